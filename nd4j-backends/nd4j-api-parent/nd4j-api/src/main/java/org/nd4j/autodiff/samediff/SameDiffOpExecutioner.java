@@ -9,6 +9,7 @@ import org.nd4j.linalg.api.ops.aggregates.Batch;
 import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
 import org.nd4j.linalg.api.ops.impl.accum.Variance;
 import org.nd4j.linalg.api.rng.Random;
+import org.nd4j.linalg.cache.OutputShapeCache;
 import org.nd4j.linalg.cache.TADManager;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.profiler.OpProfiler;
@@ -501,6 +502,11 @@ public class SameDiffOpExecutioner implements OpExecutioner,OpProfiler.OpProfile
         return backendExecutioner.calculateOutputShape(op);
     }
 
+    @Override
+    public OutputShapeCache getOutputShapeCache() {
+        return backendExecutioner.getOutputShapeCache();
+    }
+
 
     @Override
     public void registerGraph(long id, Pointer graph) {
@@ -41,9 +41,18 @@ public class DataBufferLogEntry implements Serializable {
     public DataBufferLogEntry() {}
 
     public DataBufferLogEntry(DataBuffer buffer, String status) {
+        this(buffer, status, true);
+    }
+
+    /**
+     * @param buffer
+     * @param status
+     * @param captureStackTrace if false, stack trace isn't captured, since that's the most expensive part of entry
+     */
+    public DataBufferLogEntry(DataBuffer buffer, String status, boolean captureStackTrace) {
         this.length = buffer.length();
         this.dataType = buffer.dataType() == DataBuffer.Type.DOUBLE ? "double" : "float";
-        this.stackTraceElements = Thread.currentThread().getStackTrace();
+        this.stackTraceElements = captureStackTrace ? Thread.currentThread().getStackTrace() : null;
         this.references = buffer.references();
         timestamp = System.currentTimeMillis();
         this.status = status;
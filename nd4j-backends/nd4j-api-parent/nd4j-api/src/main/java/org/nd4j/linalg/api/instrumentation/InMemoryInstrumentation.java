@@ -21,141 +21,400 @@ package org.nd4j.linalg.api.instrumentation;
 
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.executors.ExecutorServiceProvider;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Collects log entries in memory
+ * Collects log entries in memory, within fixed number of entries.
+ *
+ * Each logging thread writes into its own bounded ring buffer, without locks. Single background consumer drains
+ * these buffers into history rings (oldest entries are overwritten once capacity is reached), and into bounded map of
+ * live arrays, used for leak detection. If producer ring is full, entry is dropped and counted.
+ *
+ * PLEASE NOTE: Capacities limit number of entries, not bytes. Without stack traces an entry takes a few hundred bytes,
+ * so default capacities can hold tens of megabytes. Each captured stack trace adds a few kilobytes per entry,
+ * so stack traces capture is disabled by default, and capacities should be lowered before enabling it.
+ *
+ * PLEASE NOTE: Arrays are matched by identity hash code, so created/destroyed matching is best effort.
  *
  * @author Adam Gibson
  */
 public class InMemoryInstrumentation implements Instrumentation {
-    private List<LogEntry> entries = Collections.synchronizedList(new ArrayList<LogEntry>());
-    private List<DataBufferLogEntry> dataBufferLogEntries =
-                    Collections.synchronizedList(new ArrayList<DataBufferLogEntry>());
-    private ExecutorService executorService = ExecutorServiceProvider.getExecutorService();
-    private Map<String, Collection<LogEntry>> logEntries = new ConcurrentHashMap<>();
+    public static final int DEFAULT_HISTORY_CAPACITY = 65536;
+    public static final int DEFAULT_PRODUCER_CAPACITY = 4096;
+    public static final int DEFAULT_LIVE_CAPACITY = 65536;
 
-    @Override
-    public void log(final INDArray toLog, final String status) {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                LogEntry entry = new LogEntry(toLog, status);
-                entries.add(entry);
-                //                Collection<LogEntry> logEntries = InMemoryInstrumentation.this.logEntries.get(toLog.id());
-                //
-                //                if (logEntries == null) {
-                //                    logEntries = new CopyOnWriteArrayList<>();
-                //                    InMemoryInstrumentation.this.logEntries.put(toLog.id(), logEntries);
-                //                }
-
-                //                logEntries.add(entry);
-            }
-        });
+    protected static final long DRAIN_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
 
+    private final int producerCapacity;
+    private final int liveCapacity;
+    private volatile boolean captureStackTraces = false;
 
+    private final List<ProducerRing> producers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ProducerRing> producer = new ThreadLocal<ProducerRing>() {
+        @Override
+        protected ProducerRing initialValue() {
+            ProducerRing ring = new ProducerRing(producerCapacity);
+            producers.add(ring);
+            startConsumer();
+            return ring;
+        }
+    };
+
+    // everything below is guarded by this lock, and updated by consumer only
+    private final Object consumerLock = new Object();
+    private HistoryRing<LogEntry> entries;
+    private HistoryRing<DataBufferLogEntry> dataBufferLogEntries;
+    private final LinkedHashMap<Integer, LogEntry> live = new LinkedHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong(0);
+    private long evicted = 0;
+
+    private volatile Thread consumer;
 
+    public InMemoryInstrumentation() {
+        this(DEFAULT_HISTORY_CAPACITY, DEFAULT_PRODUCER_CAPACITY, DEFAULT_LIVE_CAPACITY);
     }
 
-    @Override
-    public void log(final DataBuffer buffer, final String status) {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                dataBufferLogEntries.add(new DataBufferLogEntry(buffer, status));
+    /**
+     * Worst case number of entries held is 2 * historyCapacity + producerCapacity * number of logging threads,
+     * live arrays are also part of history unless it was overwritten, so they add up to liveCapacity more.
+     *
+     * @param historyCapacity max number of log entries kept, for arrays and for buffers each
+     * @param producerCapacity max number of entries buffered per thread, before consumer picks them up
+     * @param liveCapacity max number of live arrays tracked
+     */
+    public InMemoryInstrumentation(int historyCapacity, int producerCapacity, int liveCapacity) {
+        if (historyCapacity < 1 || producerCapacity < 1 || liveCapacity < 1)
+            throw new IllegalArgumentException("Capacities should be positive");
 
-            }
-        });
+        this.entries = new HistoryRing<>(historyCapacity);
+        this.dataBufferLogEntries = new HistoryRing<>(historyCapacity);
+        this.producerCapacity = producerCapacity;
+        this.liveCapacity = liveCapacity;
+    }
+
+    /**
+     * This method enables or disables stack traces capture for new entries. Disabled by default.
+     * Stack trace is captured on each logged allocation, and multiplies memory footprint of every entry.
+     *
+     * @param captureStackTraces
+     */
+    public void setCaptureStackTraces(boolean captureStackTraces) {
+        this.captureStackTraces = captureStackTraces;
     }
 
     @Override
-    public void log(final INDArray toLog) {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                entries.add(new LogEntry(toLog));
+    public void log(INDArray toLog, String status) {
+        LogEntry entry = new LogEntry(toLog, stackTrace(), status);
+        producer.get().offer(new Event(entry, System.identityHashCode(toLog)));
+    }
 
-            }
-        });
+    @Override
+    public void log(DataBuffer buffer, String status) {
+        DataBufferLogEntry entry = new DataBufferLogEntry(buffer, status, captureStackTraces);
+        producer.get().offer(new Event(entry, System.identityHashCode(buffer)));
     }
 
     @Override
-    public void log(final DataBuffer buffer) {
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                dataBufferLogEntries.add(new DataBufferLogEntry(buffer));
+    public void log(INDArray toLog) {
+        log(toLog, CREATED);
+    }
 
-            }
-        });
+    @Override
+    public void log(DataBuffer buffer) {
+        log(buffer, CREATED);
+    }
+
+    protected StackTraceElement[] stackTrace() {
+        return captureStackTraces ? Thread.currentThread().getStackTrace() : null;
     }
 
     @Override
     public Collection<LogEntry> getStillAlive() {
-        Set<LogEntry> ret = new HashSet<>();
-        for (Map.Entry<String, Collection<LogEntry>> s : logEntries.entrySet()) {
-            Collection<LogEntry> coll = s.getValue();
-            boolean foundDestroyed = false;
-            LogEntry created = null;
-            for (LogEntry entry : coll) {
-                if (entry.getStatus().equals(Instrumentation.DESTROYED)) {
-                    foundDestroyed = true;
-                }
-                if (entry.getStatus().equals(Instrumentation.CREATED)) {
-                    created = entry;
-                }
+        synchronized (consumerLock) {
+            drain();
+            return new ArrayList<>(live.values());
+        }
+    }
+
+    /**
+     * This method returns live arrays created more than given time ago, oldest first
+     *
+     * @param age
+     * @param timeUnit
+     * @return
+     */
+    public List<LogEntry> getLeakCandidates(long age, TimeUnit timeUnit) {
+        long threshold = System.currentTimeMillis() - timeUnit.toMillis(age);
+        List<LogEntry> result = new ArrayList<>();
 
+        synchronized (consumerLock) {
+            drain();
+            for (LogEntry entry : live.values()) {
+                if (entry.getTimestamp() <= threshold)
+                    result.add(entry);
             }
+        }
 
-            if (!foundDestroyed)
-                if (created != null)
-                    ret.add(created);
-                else
-                    throw new IllegalStateException("Unable to add a non created entry");
+        Collections.sort(result, new Comparator<LogEntry>() {
+            @Override
+            public int compare(LogEntry o1, LogEntry o2) {
+                return Long.compare(o1.getTimestamp(), o2.getTimestamp());
+            }
+        });
 
-        }
-        return ret;
+        return result;
     }
 
     @Override
     public Collection<LogEntry> getDestroyed() {
-        Set<LogEntry> ret = new HashSet<>();
-        for (Map.Entry<String, Collection<LogEntry>> s : logEntries.entrySet()) {
-            Collection<LogEntry> coll = s.getValue();
-            for (LogEntry entry : coll) {
-                if (entry.getStatus().equals(Instrumentation.DESTROYED)) {
-                    ret.add(entry);
-                }
-            }
+        List<LogEntry> ret = new ArrayList<>();
+        for (LogEntry entry : getEntries()) {
+            if (DESTROYED.equals(entry.getStatus()))
+                ret.add(entry);
         }
         return ret;
     }
 
     @Override
     public boolean isDestroyed(String id) {
-        Collection<LogEntry> logged = logEntries.get(id);
-        if (logged == null)
+        boolean found = false;
+        for (LogEntry entry : getEntries()) {
+            if (id.equals(entry.getId())) {
+                if (DESTROYED.equals(entry.getStatus()))
+                    return true;
+
+                found = true;
+            }
+        }
+
+        if (!found)
             throw new IllegalArgumentException("No key found " + id);
-        return logged.size() == 2;
+
+        return false;
+    }
+
+    /**
+     * This method returns number of entries dropped because producer ring was full
+     * @return
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * This method returns number of entries overwritten or evicted because of memory budget
+     * @return
+     */
+    public long getEvictedCount() {
+        synchronized (consumerLock) {
+            return evicted + entries.getOverwritten() + dataBufferLogEntries.getOverwritten();
+        }
+    }
+
+    /**
+     * This method moves all pending entries into history, on calling thread
+     */
+    public void flush() {
+        synchronized (consumerLock) {
+            drain();
+        }
+    }
+
+    protected void startConsumer() {
+        if (consumer != null)
+            return;
+
+        synchronized (this) {
+            if (consumer != null)
+                return;
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        LockSupport.parkNanos(DRAIN_INTERVAL);
+                        synchronized (consumerLock) {
+                            drain();
+                        }
+                    }
+                }
+            });
+            thread.setName("InMemoryInstrumentation consumer");
+            thread.setDaemon(true);
+            thread.start();
+
+            consumer = thread;
+        }
+    }
+
+    /**
+     * This method stops background consumer. Pending entries are still available via flush() and queries.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (consumer != null)
+                consumer.interrupt();
+        }
+    }
+
+    protected void drain() {
+        for (ProducerRing ring : producers) {
+            // rings of finished threads are dropped once drained
+            Thread owner = ring.owner.get();
+            boolean finished = owner == null || !owner.isAlive();
+
+            Event event;
+            while ((event = ring.poll()) != null)
+                consume(event);
+
+            if (finished)
+                producers.remove(ring);
+        }
+    }
+
+    protected void consume(Event event) {
+        if (!(event.entry instanceof LogEntry)) {
+            dataBufferLogEntries.add(event.entry);
+            return;
+        }
+
+        LogEntry entry = (LogEntry) event.entry;
+        entries.add(entry);
+
+        if (DESTROYED.equals(entry.getStatus())) {
+            live.remove(event.key);
+        } else if (CREATED.equals(entry.getStatus())) {
+            live.put(event.key, entry);
+
+            if (live.size() > liveCapacity) {
+                Iterator<Integer> iterator = live.keySet().iterator();
+                iterator.next();
+                iterator.remove();
+                evicted++;
+            }
+        }
     }
 
     public List<DataBufferLogEntry> getDataBufferLogEntries() {
-        return dataBufferLogEntries;
+        synchronized (consumerLock) {
+            drain();
+            return dataBufferLogEntries.asList();
+        }
     }
 
     public void setDataBufferLogEntries(List<DataBufferLogEntry> dataBufferLogEntries) {
-        this.dataBufferLogEntries = dataBufferLogEntries;
+        synchronized (consumerLock) {
+            this.dataBufferLogEntries = new HistoryRing<>(this.dataBufferLogEntries.capacity());
+            for (DataBufferLogEntry entry : dataBufferLogEntries)
+                this.dataBufferLogEntries.add(entry);
+        }
     }
 
     public List<LogEntry> getEntries() {
-        return entries;
+        synchronized (consumerLock) {
+            drain();
+            return entries.asList();
+        }
     }
 
     public void setEntries(List<LogEntry> entries) {
-        this.entries = entries;
+        synchronized (consumerLock) {
+            this.entries = new HistoryRing<>(this.entries.capacity());
+            for (LogEntry entry : entries)
+                this.entries.add(entry);
+        }
+    }
+
+    protected static class Event {
+        protected final DataBufferLogEntry entry;
+        protected final int key;
+
+        protected Event(DataBufferLogEntry entry, int key) {
+            this.entry = entry;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Single-producer single-consumer ring. Producer never blocks: if ring is full, event is dropped.
+     */
+    protected class ProducerRing {
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        private final Event[] buffer;
+        private final int mask;
+        private volatile long head = 0;
+        private volatile long tail = 0;
+
+        protected ProducerRing(int capacity) {
+            int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            this.buffer = new Event[size];
+            this.mask = size - 1;
+        }
+
+        protected void offer(Event event) {
+            long t = tail;
+            if (t - head >= buffer.length) {
+                dropped.incrementAndGet();
+                return;
+            }
+
+            buffer[(int) (t & mask)] = event;
+            // volatile write publishes event to consumer
+            tail = t + 1;
+        }
+
+        protected Event poll() {
+            long h = head;
+            if (h == tail)
+                return null;
+
+            int idx = (int) (h & mask);
+            Event event = buffer[idx];
+            buffer[idx] = null;
+            head = h + 1;
+            return event;
+        }
+    }
+
+    /**
+     * Fixed-capacity history, overwriting oldest entries
+     */
+    protected static class HistoryRing<T> {
+        private final Object[] buffer;
+        private long position = 0;
+
+        protected HistoryRing(int capacity) {
+            this.buffer = new Object[capacity];
+        }
+
+        protected void add(T entry) {
+            buffer[(int) (position % buffer.length)] = entry;
+            position++;
+        }
+
+        protected int capacity() {
+            return buffer.length;
+        }
+
+        protected long getOverwritten() {
+            return Math.max(0, position - buffer.length);
+        }
+
+        @SuppressWarnings("unchecked")
+        protected List<T> asList() {
+            int size = (int) Math.min(position, buffer.length);
+            List<T> list = new ArrayList<>(size);
+            for (long i = position - size; i < position; i++)
+                list.add((T) buffer[(int) (i % buffer.length)]);
+
+            return list;
+        }
     }
 }
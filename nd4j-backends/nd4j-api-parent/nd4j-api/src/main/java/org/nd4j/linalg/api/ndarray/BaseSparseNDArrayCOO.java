@@ -189,6 +189,20 @@ public class BaseSparseNDArrayCOO extends BaseSparseNDArray {
         }
     }
 
+    /**
+     * Convert this matrix to CSR format, via one pass over sorted buffers
+     * @return the CSR matrix
+     * */
+    public INDArray toCSR() {
+        if (rank() != 2 || isView())
+            throw new UnsupportedOperationException("Only matrices that are not views can be converted to CSR");
+
+        int nnz = (int) length;
+        SparseNDArrayCOOBuilder builder = new SparseNDArrayCOOBuilder(shape(), nnz);
+        builder.append(indices.asInt(), values.asDouble(), nnz);
+        return builder.buildCSR();
+    }
+
     /**
      * Translate the view index to the corresponding index of the original ndarray
      * @param virtualIndexes the view indexes
@@ -0,0 +1,422 @@
+package org.nd4j.linalg.api.ndarray;
+
+import org.nd4j.linalg.compression.BlockExecutor;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bulk construction path for sparse arrays.
+ *
+ * Entries are appended unsorted into growable buffers, and sorted only once, when array is built:
+ * O(nnz log nnz) in total, instead of O(nnz^2) for consecutive putScalar() calls on COO array.
+ * Sorting and merging of duplicate entries are done in parallel, and entries equal to 0 after merge are dropped.
+ *
+ * PLEASE NOTE: Builder isn't thread-safe, and entries are limited to Integer.MAX_VALUE / rank.
+ */
+public class SparseNDArrayCOOBuilder {
+
+    /**
+     * What to do with entries that share the same index
+     */
+    public enum DuplicatePolicy {
+        /**
+         * Values are summed up
+         */
+        SUM,
+        /**
+         * Value appended last wins, same as consecutive putScalar() calls
+         */
+        LAST
+    }
+
+    // minimal number of entries per parallel block
+    protected static final int MIN_BLOCK = 65536;
+    protected static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private final int[] shape;
+    private final int rank;
+    private final long[] strides;
+    private DuplicatePolicy duplicatePolicy = DuplicatePolicy.SUM;
+
+    private int[] indices;
+    private double[] values;
+    private int size;
+
+    public SparseNDArrayCOOBuilder(int... shape) {
+        this(shape, 16);
+    }
+
+    /**
+     * @param shape shape of resulting array
+     * @param expectedSize expected number of entries, used for initial allocation only
+     */
+    public SparseNDArrayCOOBuilder(int[] shape, int expectedSize) {
+        checkNotNull(shape);
+        checkArgument(shape.length > 0, "Shape can't be empty");
+        checkArgument(expectedSize >= 0, "Expected size can't be negative");
+
+        this.shape = shape.clone();
+        this.rank = shape.length;
+        this.strides = new long[rank];
+
+        // row-major linear index, same order as used by sortCooIndices
+        long stride = 1;
+        for (int d = rank - 1; d >= 0; d--) {
+            checkArgument(shape[d] > 0, "Shape should be positive");
+            strides[d] = stride;
+            checkArgument(stride <= Long.MAX_VALUE / shape[d], "Shape is too large");
+            stride *= shape[d];
+        }
+
+        int capacity = Math.max(16, expectedSize);
+        this.indices = new int[capacity * rank];
+        this.values = new double[capacity];
+    }
+
+    public SparseNDArrayCOOBuilder setDuplicatePolicy(DuplicatePolicy duplicatePolicy) {
+        this.duplicatePolicy = checkNotNull(duplicatePolicy);
+        return this;
+    }
+
+    /**
+     * This method returns number of entries appended so far, including duplicates
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method appends single entry
+     *
+     * @param index indexes of the element, one per dimension
+     * @param value
+     * @return
+     */
+    public SparseNDArrayCOOBuilder add(int[] index, double value) {
+        checkArgument(index.length == rank, "Index should have %s elements, but has %s", rank, index.length);
+        ensureCapacity(size + 1);
+
+        int offset = size * rank;
+        for (int d = 0; d < rank; d++) {
+            checkIndex(d, index[d]);
+            indices[offset + d] = index[d];
+        }
+        values[size++] = value;
+        return this;
+    }
+
+    /**
+     * This method appends single matrix entry
+     *
+     * @param row
+     * @param column
+     * @param value
+     * @return
+     */
+    public SparseNDArrayCOOBuilder add(int row, int column, double value) {
+        return add(new int[] {row, column}, value);
+    }
+
+    /**
+     * This method appends multiple entries at once
+     *
+     * @param indexes indexes of elements, indexes[i] holds indexes of i-th element
+     * @param values
+     * @return
+     */
+    public SparseNDArrayCOOBuilder addAll(int[][] indexes, double[] values) {
+        checkArgument(indexes.length == values.length, "Number of indexes and values should match");
+        ensureCapacity(size + values.length);
+
+        for (int i = 0; i < values.length; i++)
+            add(indexes[i], values[i]);
+
+        return this;
+    }
+
+    /**
+     * This method appends entries stored as flat row-major [count, rank] indexes
+     */
+    protected SparseNDArrayCOOBuilder append(int[] flatIndexes, double[] values, int count) {
+        ensureCapacity(size + count);
+        for (int i = 0; i < count * rank; i++)
+            checkIndex(i % rank, flatIndexes[i]);
+
+        System.arraycopy(flatIndexes, 0, this.indices, size * rank, count * rank);
+        System.arraycopy(values, 0, this.values, size, count);
+        size += count;
+        return this;
+    }
+
+    /**
+     * This method builds COO array. Indexes of resulting array are already sorted.
+     *
+     * @return
+     */
+    public INDArray buildCOO() {
+        Entries entries = sortAndMerge();
+        if (entries.size == 0)
+            return Nd4j.createSparseCOO(new double[0], new int[0][], shape);
+
+        INDArray array = Nd4j.createSparseCOO(Nd4j.createBuffer(entries.values), Nd4j.createBuffer(entries.indices),
+                        shape);
+        if (array instanceof BaseSparseNDArrayCOO)
+            ((BaseSparseNDArrayCOO) array).isSorted = true;
+
+        return array;
+    }
+
+    /**
+     * This method builds CSR matrix, without intermediate COO array
+     *
+     * @return
+     */
+    public INDArray buildCSR() {
+        checkArgument(rank == 2, "Only matrices can be built in CSR format");
+
+        Entries entries = sortAndMerge();
+        int rows = shape[0];
+        int[] columns = new int[entries.size];
+        int[] pointerB = new int[rows];
+        int[] pointerE = new int[rows];
+
+        int e = 0;
+        for (int r = 0; r < rows; r++) {
+            pointerB[r] = e;
+            while (e < entries.size && entries.indices[e * 2] == r) {
+                columns[e] = entries.indices[e * 2 + 1];
+                e++;
+            }
+            pointerE[r] = e;
+        }
+
+        return Nd4j.createSparseCSR(entries.values, columns, pointerB, pointerE, shape);
+    }
+
+    private void checkIndex(int dimension, int index) {
+        if (index < 0 || index >= shape[dimension])
+            throw new IllegalArgumentException("Index " + index + " is out of bounds for dimension " + dimension
+                            + " of shape " + Arrays.toString(shape));
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= values.length)
+            return;
+
+        checkArgument((long) required * rank <= Integer.MAX_VALUE, "Too many entries");
+        int capacity = (int) Math.min(Integer.MAX_VALUE / rank, Math.max(required, (long) values.length * 2));
+        values = Arrays.copyOf(values, capacity);
+        indices = Arrays.copyOf(indices, capacity * rank);
+    }
+
+    protected Entries sortAndMerge() {
+        final int n = size;
+        final long[] keys = new long[n];
+        final int[] order = new int[n];
+
+        final int blocks = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), n / MIN_BLOCK));
+        final int[] bounds = new int[blocks + 1];
+        for (int b = 0; b <= blocks; b++)
+            bounds[b] = (int) ((long) n * b / blocks);
+
+        // sorting every block independently
+        final long[] keyBuffer = new long[n];
+        final int[] orderBuffer = new int[n];
+        BlockExecutor.execute(blocks, new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) throws Exception {
+                for (int i = bounds[block]; i < bounds[block + 1]; i++) {
+                    long key = 0;
+                    for (int d = 0; d < rank; d++)
+                        key += indices[i * rank + d] * strides[d];
+
+                    keys[i] = key;
+                    order[i] = i;
+                }
+
+                sort(keys, order, keyBuffer, orderBuffer, bounds[block], bounds[block + 1]);
+            }
+        });
+
+        // and merging sorted blocks pairwise, in rounds
+        long[] srcKeys = keys;
+        int[] srcOrder = order;
+        long[] dstKeys = keyBuffer;
+        int[] dstOrder = orderBuffer;
+        for (int width = 1; width < blocks; width *= 2) {
+            final long[] sk = srcKeys, dk = dstKeys;
+            final int[] so = srcOrder, dOrder = dstOrder;
+            final int w = width;
+            BlockExecutor.execute((blocks + 2 * w - 1) / (2 * w), new BlockExecutor.BlockTask() {
+                @Override
+                public void process(int pair) throws Exception {
+                    int lo = bounds[pair * 2 * w];
+                    int mid = bounds[Math.min(pair * 2 * w + w, blocks)];
+                    int hi = bounds[Math.min(pair * 2 * w + 2 * w, blocks)];
+                    merge(sk, so, dk, dOrder, lo, mid, hi);
+                }
+            });
+
+            srcKeys = dk;
+            srcOrder = dOrder;
+            dstKeys = sk;
+            dstOrder = so;
+        }
+
+        return mergeDuplicates(srcKeys, srcOrder, blocks);
+    }
+
+    /**
+     * This method merges runs of equal keys, in parallel. Block boundaries are moved, so no run is split between blocks.
+     */
+    protected Entries mergeDuplicates(final long[] keys, final int[] order, final int blocks) {
+        final int n = size;
+        final int[] bounds = new int[blocks + 1];
+        for (int b = 1; b <= blocks; b++) {
+            int bound = Math.max(bounds[b - 1], (int) ((long) n * b / blocks));
+            while (bound > 0 && bound < n && keys[bound] == keys[bound - 1])
+                bound++;
+
+            bounds[b] = bound;
+        }
+
+        final int[] counts = new int[blocks];
+        BlockExecutor.execute(blocks, new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) throws Exception {
+                int count = 0;
+                for (int i = bounds[block]; i < bounds[block + 1];) {
+                    int end = runEnd(keys, i, bounds[block + 1]);
+                    if (mergedValue(order, i, end) != 0.0)
+                        count++;
+                    i = end;
+                }
+                counts[block] = count;
+            }
+        });
+
+        final int[] offsets = new int[blocks + 1];
+        for (int b = 0; b < blocks; b++)
+            offsets[b + 1] = offsets[b] + counts[b];
+
+        final Entries entries = new Entries(offsets[blocks], rank);
+        BlockExecutor.execute(blocks, new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) throws Exception {
+                int position = offsets[block];
+                for (int i = bounds[block]; i < bounds[block + 1];) {
+                    int end = runEnd(keys, i, bounds[block + 1]);
+                    double value = mergedValue(order, i, end);
+                    if (value != 0.0) {
+                        entries.values[position] = value;
+                        System.arraycopy(indices, order[i] * rank, entries.indices, position * rank, rank);
+                        position++;
+                    }
+                    i = end;
+                }
+            }
+        });
+
+        return entries;
+    }
+
+    private static int runEnd(long[] keys, int start, int limit) {
+        int end = start + 1;
+        while (end < limit && keys[end] == keys[start])
+            end++;
+
+        return end;
+    }
+
+    private double mergedValue(int[] order, int start, int end) {
+        // sort is stable, so the last element of the run is the one appended last
+        if (duplicatePolicy == DuplicatePolicy.LAST)
+            return values[order[end - 1]];
+
+        double sum = 0.0;
+        for (int i = start; i < end; i++)
+            sum += values[order[i]];
+
+        return sum;
+    }
+
+    /**
+     * Stable merge sort of keys within [lo, hi), order is permuted along with keys
+     */
+    protected static void sort(long[] keys, int[] order, long[] keyBuffer, int[] orderBuffer, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                long key = keys[i];
+                int idx = order[i];
+                int j = i - 1;
+                while (j >= lo && keys[j] > key) {
+                    keys[j + 1] = keys[j];
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                keys[j + 1] = key;
+                order[j + 1] = idx;
+            }
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        sort(keys, order, keyBuffer, orderBuffer, lo, mid);
+        sort(keys, order, keyBuffer, orderBuffer, mid, hi);
+
+        // already in order
+        if (keys[mid - 1] <= keys[mid])
+            return;
+
+        System.arraycopy(keys, lo, keyBuffer, lo, hi - lo);
+        System.arraycopy(order, lo, orderBuffer, lo, hi - lo);
+        merge(keyBuffer, orderBuffer, keys, order, lo, mid, hi);
+    }
+
+    /**
+     * This method merges sorted [lo, mid) and [mid, hi) ranges of source arrays into the same range of target arrays
+     */
+    protected static void merge(long[] srcKeys, int[] srcOrder, long[] dstKeys, int[] dstOrder, int lo, int mid,
+                    int hi) {
+        int i = lo, j = mid, o = lo;
+        while (i < mid && j < hi) {
+            if (srcKeys[j] < srcKeys[i]) {
+                dstKeys[o] = srcKeys[j];
+                dstOrder[o++] = srcOrder[j++];
+            } else {
+                dstKeys[o] = srcKeys[i];
+                dstOrder[o++] = srcOrder[i++];
+            }
+        }
+
+        while (i < mid) {
+            dstKeys[o] = srcKeys[i];
+            dstOrder[o++] = srcOrder[i++];
+        }
+
+        while (j < hi) {
+            dstKeys[o] = srcKeys[j];
+            dstOrder[o++] = srcOrder[j++];
+        }
+    }
+
+    /**
+     * Sorted, merged entries: flat row-major indices, and values
+     */
+    protected static class Entries {
+        protected final int size;
+        protected final int[] indices;
+        protected final double[] values;
+
+        protected Entries(int size, int rank) {
+            this.size = size;
+            this.indices = new int[size * rank];
+            this.values = new double[size];
+        }
+    }
+}
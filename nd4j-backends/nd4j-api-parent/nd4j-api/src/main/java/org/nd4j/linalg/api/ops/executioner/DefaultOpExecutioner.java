@@ -31,10 +31,13 @@ import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 import org.nd4j.linalg.api.ops.aggregates.Batch;
 import org.nd4j.linalg.api.ops.impl.accum.Variance;
 import org.nd4j.linalg.api.rng.Random;
+import org.nd4j.linalg.cache.OutputShapeCache;
 import org.nd4j.linalg.cache.TADManager;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.LatencyProfiler;
 import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.SamplingProfiler;
 
 import java.util.List;
 import java.util.Map;
@@ -52,6 +55,7 @@ public class DefaultOpExecutioner implements OpExecutioner {
 
     protected ProfilingMode profilingMode = ProfilingMode.DISABLED;
     protected ExecutionMode executionMode = ExecutionMode.JAVA;
+    protected OutputShapeCache outputShapeCache = new OutputShapeCache();
 
     public DefaultOpExecutioner() {}
 
@@ -413,6 +417,13 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().processOpCall(op, tadBuffers);
                 break;
+            case LATENCY:
+                if (!LatencyProfiler.getInstance().shouldSample())
+                    return 0L;
+                break;
+            case SAMPLING:
+                SamplingProfiler.getInstance().processOpCall(op, tadBuffers);
+                return 0L;
             case DISABLED:
             default:
                 return 0L;
@@ -470,6 +481,13 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().processOpCall(op);
                 break;
+            case LATENCY:
+                if (!LatencyProfiler.getInstance().shouldSample())
+                    return 0L;
+                break;
+            case SAMPLING:
+                SamplingProfiler.getInstance().processOpCall(op);
+                return 0L;
             case SCOPE_PANIC:
                 checkForWorkspaces(op);
                 return 0L;
@@ -493,6 +511,10 @@ public class DefaultOpExecutioner implements OpExecutioner {
             case OPERATIONS:
                 OpProfiler.getInstance().timeOpCall(op, timeStart);
                 break;
+            case LATENCY:
+                if (timeStart != 0L)
+                    LatencyProfiler.getInstance().timeOpCall(op, timeStart);
+                break;
             case NAN_PANIC:
                 OpExecutionerUtil.checkForNaN(op);
                 break;
@@ -658,6 +680,11 @@ public class DefaultOpExecutioner implements OpExecutioner {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public OutputShapeCache getOutputShapeCache() {
+        return outputShapeCache;
+    }
+
 
     @Override
     public void enableDebugMode(boolean reallyEnable) {
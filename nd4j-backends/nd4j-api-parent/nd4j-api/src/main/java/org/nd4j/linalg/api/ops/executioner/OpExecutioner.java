@@ -26,6 +26,7 @@ import org.nd4j.linalg.api.ops.aggregates.Aggregate;
 import org.nd4j.linalg.api.ops.aggregates.Batch;
 import org.nd4j.linalg.api.ops.impl.accum.Variance;
 import org.nd4j.linalg.api.rng.Random;
+import org.nd4j.linalg.cache.OutputShapeCache;
 import org.nd4j.linalg.cache.TADManager;
 
 import java.util.List;
@@ -45,7 +46,7 @@ public interface OpExecutioner {
     }
 
     enum ProfilingMode {
-        DISABLED, NAN_PANIC, INF_PANIC, ANY_PANIC, OPERATIONS, METHODS, ALL, SCOPE_PANIC
+        DISABLED, NAN_PANIC, INF_PANIC, ANY_PANIC, OPERATIONS, METHODS, ALL, SCOPE_PANIC, LATENCY, SAMPLING
     }
 
     /**
@@ -353,6 +354,12 @@ public interface OpExecutioner {
 
     List<int[]> calculateOutputShape(CustomOp op);
 
+    /**
+     * This method returns cache used by calculateOutputShape(CustomOp) calls
+     * @return
+     */
+    OutputShapeCache getOutputShapeCache();
+
 
     void enableDebugMode(boolean reallyEnable);
 
@@ -0,0 +1,146 @@
+package org.nd4j.linalg.cache;
+
+import lombok.NonNull;
+import org.nd4j.linalg.api.ops.CustomOp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache for CustomOp output shapes, used by OpExecutioner.calculateOutputShape() implementations,
+ * to avoid native shape function calls for the same op called with the same inputs over and over.
+ *
+ * PLEASE NOTE: Cached shapes are copied on both put and get, so callers are free to modify them.
+ */
+public class OutputShapeCache {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Map<OutputShapeDescriptor, List<int[]>> cache;
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    private volatile boolean enabled = true;
+
+    public OutputShapeCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OutputShapeCache(final int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity should be positive");
+
+        this.cache = new LinkedHashMap<OutputShapeDescriptor, List<int[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<OutputShapeDescriptor, List<int[]>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * This method returns descriptor for given op, or null if cache is disabled
+     *
+     * @param op
+     * @return
+     */
+    public OutputShapeDescriptor getDescriptor(@NonNull CustomOp op) {
+        return enabled ? new OutputShapeDescriptor(op) : null;
+    }
+
+    /**
+     * This method returns cached shapes for given descriptor, or null if there's nothing cached yet
+     *
+     * @param descriptor
+     * @return
+     */
+    public List<int[]> get(OutputShapeDescriptor descriptor) {
+        if (descriptor == null)
+            return null;
+
+        List<int[]> shapes;
+        synchronized (cache) {
+            shapes = cache.get(descriptor);
+        }
+
+        if (shapes == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return copy(shapes);
+    }
+
+    /**
+     * This method stores shapes for given descriptor
+     *
+     * @param descriptor
+     * @param shapes
+     */
+    public void put(OutputShapeDescriptor descriptor, @NonNull List<int[]> shapes) {
+        if (descriptor == null || !enabled)
+            return;
+
+        List<int[]> copy = copy(shapes);
+        synchronized (cache) {
+            cache.put(descriptor, copy);
+        }
+    }
+
+    /**
+     * This method drops all cached shapes. Counters are kept intact.
+     */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * This method enables or disables cache. Disabling cache also drops all cached shapes.
+     *
+     * @param reallyEnable
+     */
+    public void setEnabled(boolean reallyEnable) {
+        this.enabled = reallyEnable;
+        if (!reallyEnable)
+            invalidate();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * This method resets hit/miss counters
+     */
+    public void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    protected static List<int[]> copy(List<int[]> shapes) {
+        List<int[]> result = new ArrayList<>(shapes.size());
+        for (int[] shape : shapes)
+            result.add(shape == null ? null : shape.clone());
+
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+package org.nd4j.linalg.cache;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.CustomOp;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is utility class, made to compare CustomOp calls for output shape caching purposes.
+ *
+ * Idea: for given op, input shapes and arguments, output shapes will always be the same.
+ * However, some ops (i.e. reshape with shape passed as array) take shape from input values. So values of small
+ * inputs are made part of descriptor as well, but only for integer inputs, and for ops listed via
+ * {@link #registerValueDependentOp(String)}. Values of other inputs are never read, so building descriptor
+ * doesn't cause device to host synchronization.
+ */
+public class OutputShapeDescriptor {
+    /**
+     * Inputs with length up to this value have their values compared as well
+     */
+    public static final int MAX_VALUES_LENGTH = 16;
+
+    // ops whose shape functions read shape, axis or size arguments from input arrays
+    private static final Set<String> VALUE_DEPENDENT_OPS = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    static {
+        for (String opName : new String[] {"reshape", "permute", "transpose", "tile", "expand_dims", "slice",
+                        "stridedslice", "strided_slice", "split", "split_v", "squeeze", "repeat", "rollaxis", "fill",
+                        "range", "pad", "randomuniform", "random_uniform"})
+            VALUE_DEPENDENT_OPS.add(opName);
+    }
+
+    @Getter
+    private final long opHash;
+    private final int[][] shapes;
+    private final double[][] values;
+    private final int[] iArgs;
+    private final double[] tArgs;
+    private final int hashCode;
+
+    public OutputShapeDescriptor(@NonNull CustomOp op) {
+        this.opHash = op.opHash();
+
+        INDArray[] inputs = op.inputArguments();
+        boolean valueDependent = op.opName() != null && VALUE_DEPENDENT_OPS.contains(op.opName());
+        this.shapes = new int[inputs.length][];
+        this.values = new double[inputs.length][];
+        for (int e = 0; e < inputs.length; e++) {
+            shapes[e] = TadDescriptor.dataBufferToArray(inputs[e].shapeInfoDataBuffer());
+
+            if (inputs[e].lengthLong() <= MAX_VALUES_LENGTH
+                            && (valueDependent || inputs[e].data().dataType() == DataBuffer.Type.INT)) {
+                values[e] = new double[(int) inputs[e].lengthLong()];
+                for (int i = 0; i < values[e].length; i++)
+                    values[e][i] = inputs[e].getDouble(i);
+            }
+        }
+
+        this.iArgs = op.iArgs() == null ? new int[0] : op.iArgs().clone();
+        this.tArgs = op.tArgs() == null ? new double[0] : op.tArgs().clone();
+
+        int result = (int) (opHash ^ (opHash >>> 32));
+        result = 31 * result + Arrays.deepHashCode(shapes);
+        result = 31 * result + Arrays.deepHashCode(values);
+        result = 31 * result + Arrays.hashCode(iArgs);
+        result = 31 * result + Arrays.hashCode(tArgs);
+        this.hashCode = result;
+    }
+
+    /**
+     * This method marks given op as one whose shape function reads values of its inputs,
+     * so values of its small inputs become part of descriptor
+     *
+     * @param opName
+     */
+    public static void registerValueDependentOp(@NonNull String opName) {
+        VALUE_DEPENDENT_OPS.add(opName);
+    }
+
+    /**
+     * This method returns true if given op was registered as one whose shape function reads values of its inputs
+     *
+     * @param opName
+     * @return
+     */
+    public static boolean isValueDependentOp(@NonNull String opName) {
+        return VALUE_DEPENDENT_OPS.contains(opName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        OutputShapeDescriptor that = (OutputShapeDescriptor) o;
+
+        return opHash == that.opHash && hashCode == that.hashCode && Arrays.deepEquals(shapes, that.shapes)
+                        && Arrays.deepEquals(values, that.values) && Arrays.equals(iArgs, that.iArgs)
+                        && Arrays.equals(tArgs, that.tArgs);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -1,9 +1,18 @@
 package org.nd4j.linalg.compression;
 
 import lombok.NonNull;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
 import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.executioner.GridExecutioner;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
 import org.nd4j.linalg.factory.Nd4j;
 import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
@@ -12,9 +21,12 @@ import org.reflections.util.ConfigurationBuilder;
 import org.reflections.util.FilterBuilder;
 
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author raver119@gmail.com
@@ -26,6 +38,14 @@ public class BasicNDArrayCompressor {
 
     protected String defaultCompression = "FLOAT16";
 
+    // number of elements per block for block-wise compression, 0 means block-wise compression is disabled
+    protected volatile long blockSize = 0;
+    protected volatile ExecutorService blockExecutor;
+    protected volatile int blockThreads = Runtime.getRuntime().availableProcessors();
+
+    // number of blocks, block size, and then numberOfBlocks + 1 offsets
+    protected static final int BLOCK_HEADER_LENGTH = 16;
+
     private BasicNDArrayCompressor() {
         loadCompressors();
     }
@@ -117,6 +137,51 @@ public class BasicNDArrayCompressor {
         }
     }
 
+    /**
+     * This method enables block-wise compression: buffers longer than given number of elements are split into blocks,
+     * which are compressed and decompressed in parallel with selected codec. Block index is stored in CompressionDescriptor,
+     * so single block can be decompressed without touching the rest of buffer.
+     *
+     * PLEASE NOTE: Only FLOAT and DOUBLE buffers are compressed block-wise, other buffers are compressed as usual.
+     *
+     * @param blockSize number of elements per block, 0 disables block-wise compression
+     * @return
+     */
+    public BasicNDArrayCompressor setBlockSize(long blockSize) {
+        if (blockSize < 0)
+            throw new IllegalArgumentException("Block size can't be negative");
+
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * This method returns number of elements per block for block-wise compression, or 0 if it's disabled
+     * @return
+     */
+    public long getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * This method sets pool used for block-wise compression. By default ExecutorServiceProvider pool is used.
+     *
+     * @param executorService
+     * @param threads max number of threads working on single buffer, including calling thread
+     * @return
+     */
+    public BasicNDArrayCompressor setBlockExecutor(@NonNull ExecutorService executorService, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads should be positive");
+
+        synchronized (this) {
+            this.blockExecutor = executorService;
+            this.blockThreads = threads;
+        }
+
+        return this;
+    }
+
     /**
      * Compress the given data buffer
      * given the default compression algorithm
@@ -140,6 +205,9 @@ public class BasicNDArrayCompressor {
         if (!codecs.containsKey(algorithm))
             throw new RuntimeException("Non-existent compression algorithm requested: [" + algorithm + "]");
 
+        if (isBlockCompressionApplicable(buffer))
+            return compressBlocks(buffer, codecs.get(algorithm));
+
         return codecs.get(algorithm).compress(buffer);
     }
 
@@ -172,6 +240,17 @@ public class BasicNDArrayCompressor {
         if (!codecs.containsKey(algorithm))
             throw new RuntimeException("Non-existent compression algorithm requested: [" + algorithm + "]");
 
+        if (isBlockCompressionApplicable(array.data())) {
+            INDArray dup = array.dup(array.ordering());
+
+            Nd4j.getExecutioner().commit();
+
+            dup.setData(compressBlocks(dup.data(), codecs.get(algorithm)));
+            dup.markAsCompressed(true);
+
+            return dup;
+        }
+
         return codecs.get(algorithm).compress(array);
     }
 
@@ -186,6 +265,14 @@ public class BasicNDArrayCompressor {
         if (!codecs.containsKey(algorithm))
             throw new RuntimeException("Non-existent compression algorithm requested: [" + algorithm + "]");
 
+        if (!array.isView() && isBlockCompressionApplicable(array.data())) {
+            Nd4j.getExecutioner().commit();
+
+            array.setData(compressBlocks(array.data(), codecs.get(algorithm)));
+            array.markAsCompressed(true);
+            return;
+        }
+
         codecs.get(algorithm).compressi(array);
     }
 
@@ -205,6 +292,9 @@ public class BasicNDArrayCompressor {
             throw new RuntimeException("Non-existent compression algorithm requested: ["
                             + descriptor.getCompressionAlgorithm() + "]");
 
+        if (descriptor.isBlocked())
+            return decompressBlocks(comp);
+
         return codecs.get(descriptor.getCompressionAlgorithm()).decompress(buffer);
     }
 
@@ -228,6 +318,9 @@ public class BasicNDArrayCompressor {
             throw new RuntimeException("Non-existent compression algorithm requested: ["
                             + descriptor.getCompressionAlgorithm() + "]");
 
+        if (descriptor.isBlocked())
+            return Nd4j.createArrayFromShapeBuffer(decompressBlocks(comp), array.shapeInfoDataBuffer());
+
         return codecs.get(descriptor.getCompressionAlgorithm()).decompress(array);
     }
 
@@ -249,6 +342,12 @@ public class BasicNDArrayCompressor {
             throw new RuntimeException("Non-existent compression algorithm requested: ["
                             + descriptor.getCompressionAlgorithm() + "]");
 
+        if (descriptor.isBlocked()) {
+            array.markAsCompressed(false);
+            array.setData(decompressBlocks(comp));
+            return;
+        }
+
         codecs.get(descriptor.getCompressionAlgorithm()).decompressi(array);
     }
 
@@ -290,4 +389,228 @@ public class BasicNDArrayCompressor {
     public INDArray compress(double[] array) {
         return codecs.get(defaultCompression).compress(array);
     }
+
+    /**
+     * This method decompresses single block of buffer compressed block-wise
+     *
+     * @param buffer compressed buffer
+     * @param block index of the block
+     * @return buffer with elements of given block
+     */
+    public DataBuffer decompressBlock(@NonNull DataBuffer buffer, int block) {
+        if (buffer.dataType() != DataBuffer.Type.COMPRESSED
+                        || !((CompressedDataBuffer) buffer).getCompressionDescriptor().isBlocked())
+            throw new IllegalStateException("DataBuffer wasn't compressed block-wise");
+
+        CompressedDataBuffer comp = (CompressedDataBuffer) buffer;
+        CompressionDescriptor descriptor = comp.getCompressionDescriptor();
+        long[] offsets = getBlockOffsets(comp);
+
+        if (block < 0 || block >= descriptor.getNumberOfBlocks())
+            throw new IllegalArgumentException("Block " + block + " is out of range for "
+                            + descriptor.getNumberOfBlocks() + " blocks");
+
+        long first = block * descriptor.getBlockElements();
+        long elements = Math.min(descriptor.getBlockElements(), descriptor.getNumberOfElements() - first);
+
+        DataBuffer result = createOriginal(descriptor, elements);
+        decompressBlock(comp, getCodec(descriptor), offsets, block, result, 0);
+
+        return result;
+    }
+
+    protected boolean isBlockCompressionApplicable(DataBuffer buffer) {
+        long size = blockSize;
+        return size > 0 && buffer.length() > size && (buffer.dataType() == DataBuffer.Type.FLOAT
+                        || buffer.dataType() == DataBuffer.Type.DOUBLE);
+    }
+
+    protected ExecutorService getBlockExecutor() {
+        ExecutorService executorService = blockExecutor;
+        return executorService != null ? executorService : ExecutorServiceProvider.getExecutorService();
+    }
+
+    protected NDArrayCompressor getCodec(CompressionDescriptor descriptor) {
+        if (!codecs.containsKey(descriptor.getCompressionAlgorithm()))
+            throw new RuntimeException("Non-existent compression algorithm requested: ["
+                            + descriptor.getCompressionAlgorithm() + "]");
+
+        return codecs.get(descriptor.getCompressionAlgorithm());
+    }
+
+    /**
+     * This method compresses buffer as independent blocks, in parallel.
+     * Compressed blocks are stored one after another, with block index in front of them.
+     */
+    protected DataBuffer compressBlocks(DataBuffer buffer, final NDArrayCompressor codec) {
+        final long size = blockSize;
+        final long length = buffer.length();
+        final int elementSize = buffer.getElementSize();
+        final DataBuffer.Type type = buffer.dataType();
+        final long source = buffer.addressPointer().address();
+        final int numBlocks = (int) ((length + size - 1) / size);
+        final CompressedDataBuffer[] blocks = new CompressedDataBuffer[numBlocks];
+
+        BlockExecutor.execute(numBlocks, new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) {
+                long first = block * size;
+                long elements = Math.min(size, length - first);
+
+                try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                    DataBuffer compressed = codec.compress(view(type, source + first * elementSize, elements));
+                    if (compressed.dataType() != DataBuffer.Type.COMPRESSED)
+                        throw new IllegalStateException("Codec [" + codec.getDescriptor()
+                                        + "] doesn't support block-wise compression");
+
+                    blocks[block] = (CompressedDataBuffer) compressed;
+                }
+            }
+        }, getBlockExecutor(), blockThreads);
+
+        long[] offsets = new long[numBlocks + 1];
+        offsets[0] = BLOCK_HEADER_LENGTH + 8L * (numBlocks + 1);
+        for (int i = 0; i < numBlocks; i++)
+            offsets[i + 1] = offsets[i] + blocks[i].getCompressionDescriptor().getCompressedLength();
+
+        BytePointer pointer = new BytePointer(offsets[numBlocks]);
+        ByteBuffer header = new PagedPointer(pointer.address(), offsets[0]).asBytePointer().asByteBuffer()
+                        .order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(numBlocks);
+        header.putLong(size);
+        for (long offset : offsets)
+            header.putLong(offset);
+
+        for (int i = 0; i < numBlocks; i++)
+            Pointer.memcpy(new PagedPointer(pointer.address() + offsets[i], offsets[i + 1] - offsets[i])
+                            .asBytePointer(),
+                            blocks[i].addressPointer(), offsets[i + 1] - offsets[i]);
+
+        CompressionDescriptor descriptor = new CompressionDescriptor(buffer, codec);
+        descriptor.setCompressedLength(offsets[numBlocks]);
+        descriptor.setBlockElements(size);
+        descriptor.setBlockOffsets(offsets);
+
+        return new CompressedDataBuffer(pointer, descriptor);
+    }
+
+    protected DataBuffer decompressBlocks(final CompressedDataBuffer buffer) {
+        final CompressionDescriptor descriptor = buffer.getCompressionDescriptor();
+        final NDArrayCompressor codec = getCodec(descriptor);
+        final long[] offsets = getBlockOffsets(buffer);
+        final DataBuffer result = createOriginal(descriptor, descriptor.getNumberOfElements());
+
+        BlockExecutor.execute(descriptor.getNumberOfBlocks(), new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) {
+                decompressBlock(buffer, codec, offsets, block, result, block * descriptor.getBlockElements());
+            }
+        }, getBlockExecutor(), blockThreads);
+
+        return result;
+    }
+
+    protected void decompressBlock(CompressedDataBuffer buffer, NDArrayCompressor codec, long[] offsets, int block,
+                    DataBuffer target, long targetOffset) {
+        CompressionDescriptor descriptor = buffer.getCompressionDescriptor();
+        long first = block * descriptor.getBlockElements();
+        long elements = Math.min(descriptor.getBlockElements(), descriptor.getNumberOfElements() - first);
+        long compressedLength = offsets[block + 1] - offsets[block];
+
+        CompressionDescriptor blockDescriptor = descriptor.clone();
+        blockDescriptor.setBlockElements(0);
+        blockDescriptor.setBlockOffsets(null);
+        blockDescriptor.setNumberOfElements(elements);
+        blockDescriptor.setOriginalLength(elements * descriptor.getOriginalElementSize());
+        blockDescriptor.setCompressedLength(compressedLength);
+
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            DataBuffer restored = codec.decompress(new CompressedDataBuffer(
+                            new PagedPointer(buffer.addressPointer().address() + offsets[block], compressedLength)
+                                            .asBytePointer(),
+                            blockDescriptor));
+
+            if (restored.dataType() == target.dataType()) {
+                Pointer.memcpy(new PagedPointer(
+                                target.addressPointer().address() + targetOffset * target.getElementSize(),
+                                elements * target.getElementSize()).asBytePointer(), restored.addressPointer(),
+                                elements * target.getElementSize());
+            } else {
+                for (long i = 0; i < elements; i++)
+                    target.put(targetOffset + i, restored.getDouble(i));
+            }
+        }
+    }
+
+    /**
+     * This method creates uncompressed buffer of the data type blocks were compressed from
+     */
+    protected static DataBuffer createOriginal(CompressionDescriptor descriptor, long length) {
+        switch ((int) descriptor.getOriginalElementSize()) {
+            case 8:
+                return Nd4j.getDataBufferFactory().createDouble(length, false);
+            case 4:
+                return Nd4j.getDataBufferFactory().createFloat(length, false);
+            case 2:
+                return Nd4j.getDataBufferFactory().createHalf(length, false);
+            default:
+                return Nd4j.createBuffer(length, false);
+        }
+    }
+
+    /**
+     * This method returns block offsets, reading them from compressed buffer if descriptor doesn't have them
+     * (i.e. if buffer was deserialized). Deserialized descriptors only know that buffer was compressed block-wise,
+     * so block size is restored from the block index as well.
+     */
+    protected static long[] getBlockOffsets(CompressedDataBuffer buffer) {
+        CompressionDescriptor descriptor = buffer.getCompressionDescriptor();
+        if (descriptor.getBlockOffsets() != null)
+            return descriptor.getBlockOffsets();
+
+        long address = buffer.addressPointer().address();
+        if (descriptor.getBlockElements() < 0) {
+            ByteBuffer header = new PagedPointer(address, BLOCK_HEADER_LENGTH).asBytePointer().asByteBuffer()
+                            .order(ByteOrder.LITTLE_ENDIAN);
+            header.getLong();
+            descriptor.setBlockElements(header.getLong());
+        }
+
+        int numBlocks = descriptor.getNumberOfBlocks();
+        ByteBuffer header = new PagedPointer(address, BLOCK_HEADER_LENGTH + 8L * (numBlocks + 1)).asBytePointer()
+                        .asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (header.getLong(0) != numBlocks)
+            throw new IllegalStateException("Block index doesn't match descriptor: expected " + numBlocks
+                            + " blocks, got " + header.getLong(0));
+
+        long[] offsets = new long[numBlocks + 1];
+        for (int i = 0; i <= numBlocks; i++)
+            offsets[i] = header.getLong(BLOCK_HEADER_LENGTH + i * 8);
+
+        descriptor.setBlockOffsets(offsets);
+        return offsets;
+    }
+
+    protected static DataBuffer view(DataBuffer.Type type, final long addr, final long length) {
+        if (type == DataBuffer.Type.DOUBLE) {
+            DoublePointer pointer = new DoublePointer() {
+                {
+                    address = addr;
+                    capacity = length;
+                    limit = length;
+                }
+            };
+            return Nd4j.createBuffer(pointer, type, length, DoubleIndexer.create(pointer));
+        } else {
+            FloatPointer pointer = new FloatPointer() {
+                {
+                    address = addr;
+                    capacity = length;
+                    limit = length;
+                }
+            };
+            return Nd4j.createBuffer(pointer, type, length, FloatIndexer.create(pointer));
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package org.nd4j.linalg.compression;
+
+import lombok.NonNull;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Helper for processing independent blocks of a buffer in parallel.
+ *
+ * Calling thread always takes part in processing, and helper threads only pick blocks nobody has claimed yet,
+ * so this is safe to use even from within threads of the same executor: if all of them are busy,
+ * calling thread just processes all blocks on its own.
+ */
+public class BlockExecutor {
+
+    public interface BlockTask {
+        /**
+         * This method processes single block
+         *
+         * @param block index of the block
+         */
+        void process(int block) throws Exception;
+    }
+
+    private BlockExecutor() {}
+
+    /**
+     * This method processes given number of blocks, using ExecutorServiceProvider pool
+     *
+     * @param numBlocks
+     * @param task
+     */
+    public static void execute(int numBlocks, @NonNull BlockTask task) {
+        execute(numBlocks, task, ExecutorServiceProvider.getExecutorService(),
+                        Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This method processes given number of blocks, using up to maxThreads threads, including calling one
+     *
+     * @param numBlocks
+     * @param task
+     * @param executorService pool used for helper threads
+     * @param maxThreads
+     */
+    public static void execute(final int numBlocks, @NonNull final BlockTask task,
+                    @NonNull ExecutorService executorService, int maxThreads) {
+        if (numBlocks <= 0)
+            return;
+
+        final AtomicInteger next = new AtomicInteger(0);
+        final CountDownLatch done = new CountDownLatch(numBlocks);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int block;
+                while ((block = next.getAndIncrement()) < numBlocks) {
+                    try {
+                        if (error.get() == null)
+                            task.process(block);
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        int helpers = Math.min(numBlocks, maxThreads) - 1;
+        for (int i = 0; i < helpers; i++)
+            executorService.execute(worker);
+
+        worker.run();
+
+        try {
+            // blocks claimed by helper threads are in progress, and will be finished soon
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        if (error.get() != null)
+            throw new RuntimeException(error.get());
+    }
+}
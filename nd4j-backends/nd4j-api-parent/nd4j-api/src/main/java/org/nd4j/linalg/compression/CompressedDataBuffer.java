@@ -22,6 +22,11 @@ import java.io.IOException;
  * @author raver119@gmail.com
  */
 public class CompressedDataBuffer extends BaseDataBuffer {
+    /**
+     * Prefix of serialized algorithm name, for buffers compressed block-wise
+     */
+    public static final String BLOCKED_PREFIX = "BLOCKED:";
+
     @Getter
     @Setter
     protected CompressionDescriptor compressionDescriptor;
@@ -34,6 +39,10 @@ public class CompressedDataBuffer extends BaseDataBuffer {
         this.elementSize = (byte) descriptor.getOriginalElementSize();
 
         initTypeAndSize();
+
+        // deserialized descriptors only know that buffer was compressed block-wise, block index is stored in payload
+        if (descriptor.getBlockElements() < 0)
+            BasicNDArrayCompressor.getBlockOffsets(this);
     }
 
     /**
@@ -54,7 +63,9 @@ public class CompressedDataBuffer extends BaseDataBuffer {
         out.writeUTF(Type.COMPRESSED.name());
         // at this moment we don't care about mimics anymore
         //ByteRawIndexer indexer = new ByteRawIndexer((BytePointer) pointer);
-        out.writeUTF(compressionDescriptor.getCompressionAlgorithm());
+        out.writeUTF(compressionDescriptor.isBlocked()
+                        ? BLOCKED_PREFIX + compressionDescriptor.getCompressionAlgorithm()
+                        : compressionDescriptor.getCompressionAlgorithm());
         out.writeLong(compressionDescriptor.getCompressedLength());
         out.writeLong(compressionDescriptor.getOriginalLength());
         out.writeLong(compressionDescriptor.getNumberOfElements());
@@ -102,6 +113,13 @@ public class CompressedDataBuffer extends BaseDataBuffer {
                     descriptor.setOriginalLength(originalLength);
                     descriptor.setNumberOfElements(numberOfElements);
 
+                    // block index is stored in front of compressed blocks, and will be restored from there
+                    if (compressionAlgorithm.startsWith(BLOCKED_PREFIX)) {
+                        descriptor.setCompressionAlgorithm(compressionAlgorithm.substring(BLOCKED_PREFIX.length()));
+                        descriptor.setOriginalElementSize(originalLength / Math.max(1, numberOfElements));
+                        descriptor.setBlockElements(-1);
+                    }
+
                     CompressedDataBuffer compressedBuffer = new CompressedDataBuffer(pointer, descriptor);
                     return Nd4j.getCompressor().decompress(compressedBuffer);
                 }
@@ -24,8 +24,14 @@ public class CompressionDescriptor implements Cloneable, Serializable {
     private long compressedLength;
     private long numberOfElements;
     private long originalElementSize;
+    // block index, used only for buffers compressed block-wise. Index itself is stored in front of compressed blocks,
+    // 40-byte descriptor only carries BLOCKED_FLAG, and negative value here means "read block size from payload"
+    private long blockElements;
+    private long[] blockOffsets;
     //40 bytes for the compression descriptor bytebuffer
     public final static int COMPRESSION_BYTE_BUFFER_LENGTH = 40;
+    // bit set in serialized compression opType, for buffers compressed block-wise
+    public final static int BLOCKED_FLAG = 1 << 16;
 
     public CompressionDescriptor() {
 
@@ -80,8 +86,11 @@ public class CompressionDescriptor implements Cloneable, Serializable {
         CompressionDescriptor compressionDescriptor = new CompressionDescriptor();
         //compression opType
         int compressionTypeOrdinal = byteBuffer.getInt();
-        CompressionType compressionType = CompressionType.values()[compressionTypeOrdinal];
+        CompressionType compressionType = CompressionType.values()[compressionTypeOrdinal & ~BLOCKED_FLAG];
         compressionDescriptor.setCompressionType(compressionType);
+        //block size itself is restored from compressed payload, by CompressedDataBuffer
+        if ((compressionTypeOrdinal & BLOCKED_FLAG) != 0)
+            compressionDescriptor.setBlockElements(-1);
 
         //compression algo
         int compressionAlgoOrdinal = byteBuffer.getInt();
@@ -102,6 +111,7 @@ public class CompressionDescriptor implements Cloneable, Serializable {
      * 40: 8 + 32
      * two ints representing their enum values
      * for the compression algorithm and opType
+     * (opType has {@link #BLOCKED_FLAG} set for buffers compressed block-wise)
      *
      * and 4 longs for the compressed and
      * original sizes
@@ -114,7 +124,7 @@ public class CompressionDescriptor implements Cloneable, Serializable {
         //4 longs at 8 bytes a piece
         int sizesLength = 4 * 8;
         ByteBuffer directAlloc = ByteBuffer.allocateDirect(enumSize + sizesLength).order(ByteOrder.nativeOrder());
-        directAlloc.putInt(compressionType.ordinal());
+        directAlloc.putInt(isBlocked() ? compressionType.ordinal() | BLOCKED_FLAG : compressionType.ordinal());
         directAlloc.putInt(CompressionAlgorithm.valueOf(compressionAlgorithm).ordinal());
         directAlloc.putLong(originalLength);
         directAlloc.putLong(compressedLength);
@@ -124,6 +134,27 @@ public class CompressionDescriptor implements Cloneable, Serializable {
         return directAlloc;
     }
 
+    /**
+     * This method returns TRUE if buffer was compressed as independent blocks
+     *
+     * @return
+     */
+    public boolean isBlocked() {
+        return blockElements != 0;
+    }
+
+    /**
+     * This method returns number of independently compressed blocks, or 0 if buffer wasn't compressed block-wise
+     *
+     * @return
+     */
+    public int getNumberOfBlocks() {
+        if (blockElements < 0)
+            throw new IllegalStateException("Block index wasn't restored from compressed payload yet");
+
+        return isBlocked() ? (int) ((numberOfElements + blockElements - 1) / blockElements) : 0;
+    }
+
     @Override
     public CompressionDescriptor clone() {
         CompressionDescriptor descriptor = new CompressionDescriptor();
@@ -133,6 +164,8 @@ public class CompressionDescriptor implements Cloneable, Serializable {
         descriptor.compressedLength = this.compressedLength;
         descriptor.numberOfElements = this.numberOfElements;
         descriptor.originalElementSize = this.originalElementSize;
+        descriptor.blockElements = this.blockElements;
+        descriptor.blockOffsets = this.blockOffsets == null ? null : this.blockOffsets.clone();
 
         return descriptor;
     }
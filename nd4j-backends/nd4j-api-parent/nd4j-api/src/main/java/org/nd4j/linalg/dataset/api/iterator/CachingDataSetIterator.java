@@ -3,16 +3,38 @@ package org.nd4j.linalg.dataset.api.iterator;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.iterator.cache.DataSetCache;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.factory.Nd4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.WeakReference;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * DataSetIterator that caches DataSets produced by source iterator during first epoch,
+ * and serves them from {@link DataSetCache} afterwards.
+ *
+ * If prefetchSize is positive, DataSets are read from cache by background task, up to prefetchSize DataSets ahead,
+ * so cache reads (i.e. disk I/O for {@link org.nd4j.linalg.dataset.api.iterator.cache.InFileDataSetCache}) overlap with computation.
+ * Background task runs on {@link ExecutorServiceProvider#IO_POOL} pool. It stops on reset()/shutdown(), and also once
+ * iterator itself becomes unreachable, so abandoned iterators don't hold pool threads.
+ *
  * Created by anton on 7/16/16.
  */
 public class CachingDataSetIterator implements DataSetIterator {
     private static final Logger log = LoggerFactory.getLogger(DataSetCache.class);
+    // marks end of data in prefetch queue
+    private static final DataSet TERMINATOR = new DataSet();
+    // how often blocked loader checks if it's still needed
+    private static final long LOADER_POLL_MS = 100;
 
     private DataSetIterator sourceIterator;
     private DataSetCache cache;
@@ -20,6 +42,11 @@ public class CachingDataSetIterator implements DataSetIterator {
     private int currentIndex = 0;
     private boolean usingCache = false;
     private boolean allowPrefetching;
+    private int prefetchSize;
+
+    // prefetch state, used only if prefetchSize > 0
+    private CacheLoader loader;
+    private DataSet nextDataSet;
 
     public CachingDataSetIterator(DataSetIterator sourceIterator, DataSetCache cache, String namespace) {
         this(sourceIterator, cache, namespace, false);
@@ -27,6 +54,21 @@ public class CachingDataSetIterator implements DataSetIterator {
 
     public CachingDataSetIterator(DataSetIterator sourceIterator, DataSetCache cache, String namespace,
                     boolean allowPrefetching) {
+        this(sourceIterator, cache, namespace, allowPrefetching, 0);
+    }
+
+    /**
+     * @param sourceIterator iterator used to fill cache
+     * @param cache cache to use
+     * @param namespace cache namespace
+     * @param allowPrefetching value returned by {@link #asyncSupported()}
+     * @param prefetchSize number of DataSets read from cache ahead of consumer by background thread. 0 disables background reads.
+     */
+    public CachingDataSetIterator(DataSetIterator sourceIterator, DataSetCache cache, String namespace,
+                    boolean allowPrefetching, int prefetchSize) {
+        if (prefetchSize < 0)
+            throw new IllegalArgumentException("prefetchSize can't be negative");
+
         this.sourceIterator = sourceIterator;
         this.cache = cache;
         this.namespace = namespace;
@@ -34,6 +76,7 @@ public class CachingDataSetIterator implements DataSetIterator {
 
         this.usingCache = cache.isComplete(namespace);
         this.allowPrefetching = allowPrefetching;
+        this.prefetchSize = prefetchSize;
     }
 
     public CachingDataSetIterator(DataSetIterator sourceIterator, DataSetCache cache) {
@@ -41,6 +84,10 @@ public class CachingDataSetIterator implements DataSetIterator {
     }
 
     private String makeKey(int index) {
+        return makeKey(namespace, index);
+    }
+
+    private static String makeKey(String namespace, int index) {
         return String.format("data-set-cache-%s-%06d.bin", namespace, index);
     }
 
@@ -76,6 +123,7 @@ public class CachingDataSetIterator implements DataSetIterator {
 
     @Override
     public void reset() {
+        stopLoader();
         sourceIterator.reset();
         currentIndex = 0;
     }
@@ -112,7 +160,9 @@ public class CachingDataSetIterator implements DataSetIterator {
 
     @Override
     public boolean hasNext() {
-        if (usingCache) {
+        if (usingCache && prefetchSize > 0) {
+            return prefetchedNext() != TERMINATOR;
+        } else if (usingCache) {
             return cache.contains(makeKey(currentIndex));
         } else {
             if (sourceIterator.hasNext()) {
@@ -131,7 +181,13 @@ public class CachingDataSetIterator implements DataSetIterator {
 
         DataSet ds;
 
-        if (usingCache) {
+        if (usingCache && prefetchSize > 0) {
+            ds = prefetchedNext();
+            if (ds == TERMINATOR)
+                throw new NoSuchElementException();
+
+            nextDataSet = null;
+        } else if (usingCache) {
             ds = cache.get(key);
         } else {
             ds = sourceIterator.next();
@@ -147,4 +203,134 @@ public class CachingDataSetIterator implements DataSetIterator {
     public void remove() {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * This method shuts down background loader, if any
+     */
+    public void shutdown() {
+        stopLoader();
+    }
+
+    private DataSet prefetchedNext() {
+        if (nextDataSet != null)
+            return nextDataSet;
+
+        if (loader == null) {
+            loader = new CacheLoader(this, currentIndex);
+            loader.future = ExecutorServiceProvider.getExecutorService(ExecutorServiceProvider.IO_POOL).submit(loader);
+        }
+
+        try {
+            nextDataSet = loader.queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        if (nextDataSet == TERMINATOR && loader.exception != null)
+            throw new RuntimeException("Failed to read DataSet from cache", loader.exception);
+
+        return nextDataSet;
+    }
+
+    private void stopLoader() {
+        nextDataSet = null;
+        if (loader == null)
+            return;
+
+        loader.cancelled = true;
+        loader.future.cancel(true);
+        // if task has started already, we wait till it's done with cache
+        if (!loader.started.compareAndSet(false, true)) {
+            try {
+                loader.finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        loader = null;
+    }
+
+    /**
+     * Background task reading cached DataSets in order, starting from given index.
+     * It doesn't reference iterator strongly, so it notices when iterator was abandoned without shutdown().
+     */
+    private static class CacheLoader implements Runnable {
+        private final WeakReference<CachingDataSetIterator> owner;
+        private final DataSetCache cache;
+        private final String namespace;
+        private final BlockingQueue<DataSet> queue;
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final int deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        private volatile boolean cancelled = false;
+        private volatile Throwable exception;
+        private Future<?> future;
+        private int index;
+
+        private CacheLoader(CachingDataSetIterator owner, int index) {
+            this.owner = new WeakReference<>(owner);
+            this.cache = owner.cache;
+            this.namespace = owner.namespace;
+            this.queue = new LinkedBlockingQueue<>(owner.prefetchSize);
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            // task cancelled before it had a chance to start
+            if (!started.compareAndSet(false, true))
+                return;
+
+            try {
+                Nd4j.getAffinityManager().attachThreadToDevice(Thread.currentThread(), deviceId);
+                load();
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private void load() {
+            try {
+                while (isNeeded()) {
+                    String key = makeKey(namespace, index);
+                    if (!cache.contains(key))
+                        break;
+
+                    if (!offer(cache.get(key)))
+                        return;
+                    index++;
+                }
+            } catch (InterruptedException e) {
+                // reset() or shutdown() was called, nobody waits for data anymore
+                return;
+            } catch (Throwable t) {
+                log.error("Failed to read DataSet from cache", t);
+                exception = t;
+            }
+
+            try {
+                offer(TERMINATOR);
+            } catch (InterruptedException e) {
+                // nobody waits for data anymore
+            }
+        }
+
+        /**
+         * This method waits for free space in queue, as long as someone may consume it
+         *
+         * @return false if loader isn't needed anymore
+         */
+        private boolean offer(DataSet dataSet) throws InterruptedException {
+            while (!queue.offer(dataSet, LOADER_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (!isNeeded())
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean isNeeded() {
+            return !cancelled && !Thread.currentThread().isInterrupted() && owner.get() != null;
+        }
+    }
 }
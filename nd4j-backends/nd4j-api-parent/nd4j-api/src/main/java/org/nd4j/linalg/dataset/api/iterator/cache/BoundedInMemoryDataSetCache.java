@@ -0,0 +1,274 @@
+package org.nd4j.linalg.dataset.api.iterator.cache;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory DataSet cache with fixed byte budget.
+ *
+ * Once serialized DataSets held in memory exceed the budget, least recently used ones are spilled
+ * to {@link InFileDataSetCache}. Spilled DataSets are promoted back to memory when accessed.
+ * Memory hits, file hits and misses are tracked per namespace.
+ */
+public class BoundedInMemoryDataSetCache implements DataSetCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSetCache.class);
+
+    // keys produced by CachingDataSetIterator look like data-set-cache-NAMESPACE-000042.bin
+    private static final Pattern KEY_PATTERN = Pattern.compile("^data-set-cache-(.*)-\\d+\\.bin$");
+
+    private final long maxBytes;
+    private final InFileDataSetCache fileCache;
+
+    // access-ordered, so iteration goes from least to most recently used entry
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    // spilled keys, and keys that have up-to-date copy in file tier
+    private final Set<String> spilled = new HashSet<>();
+    private final Set<String> persisted = new HashSet<>();
+    // spilled entries that aren't written to file tier yet. they don't count against budget, and are served from here
+    private final Map<String, byte[]> pending = new LinkedHashMap<>();
+    private final Object spillLock = new Object();
+    private final Set<String> completeNamespaces = new HashSet<>();
+    private final Map<String, NamespaceStats> stats = new HashMap<>();
+    private long bytes = 0;
+
+    public BoundedInMemoryDataSetCache(long maxBytes, File cacheDirectory) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes can't be negative");
+
+        this.maxBytes = maxBytes;
+        this.fileCache = new InFileDataSetCache(cacheDirectory);
+    }
+
+    public BoundedInMemoryDataSetCache(long maxBytes, Path cacheDirectory) {
+        this(maxBytes, cacheDirectory.toFile());
+    }
+
+    public BoundedInMemoryDataSetCache(long maxBytes, String cacheDirectory) {
+        this(maxBytes, new File(cacheDirectory));
+    }
+
+    @Override
+    public synchronized boolean isComplete(String namespace) {
+        return completeNamespaces.contains(namespace);
+    }
+
+    @Override
+    public synchronized void setComplete(String namespace, boolean value) {
+        if (value) {
+            completeNamespaces.add(namespace);
+        } else {
+            completeNamespaces.remove(namespace);
+        }
+    }
+
+    @Override
+    public DataSet get(String key) {
+        DataSet dataSet = lookup(key);
+        writeSpilled();
+        return dataSet;
+    }
+
+    private synchronized DataSet lookup(String key) {
+        NamespaceStats namespaceStats = statsFor(key);
+
+        byte[] data = cache.get(key);
+        if (data != null) {
+            namespaceStats.memoryHits++;
+            return deserialize(data);
+        }
+
+        if (!spilled.contains(key)) {
+            namespaceStats.misses++;
+            return null;
+        }
+
+        // spilled, but not written to file tier yet
+        data = pending.remove(key);
+        if (data != null) {
+            namespaceStats.fileHits++;
+            spilled.remove(key);
+            store(key, data);
+            return deserialize(data);
+        }
+
+        DataSet dataSet = fileCache.get(key);
+        if (dataSet == null) {
+            namespaceStats.misses++;
+            spilled.remove(key);
+            return null;
+        }
+
+        namespaceStats.fileHits++;
+
+        // promote back to memory tier. file copy stays valid, so it won't be written again on next spill
+        spilled.remove(key);
+        store(key, serialize(dataSet));
+        persisted.add(key);
+
+        return dataSet;
+    }
+
+    @Override
+    public void put(String key, DataSet dataSet) {
+        byte[] data = serialize(dataSet);
+
+        synchronized (this) {
+            byte[] old = cache.remove(key);
+            if (old != null) {
+                log.debug("evicting key {} from data set cache", key);
+                bytes -= old.length;
+            }
+
+            spilled.remove(key);
+            persisted.remove(key);
+            pending.remove(key);
+
+            store(key, data);
+        }
+
+        writeSpilled();
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return cache.containsKey(key) || spilled.contains(key);
+    }
+
+    /**
+     * This method returns number of bytes currently held in memory tier
+     */
+    public synchronized long getMemoryBytes() {
+        return bytes;
+    }
+
+    /**
+     * This method returns number of DataSets currently spilled to file tier
+     */
+    public synchronized int getSpilledEntries() {
+        return spilled.size();
+    }
+
+    public synchronized long getMemoryHits(String namespace) {
+        NamespaceStats namespaceStats = stats.get(namespace);
+        return namespaceStats == null ? 0 : namespaceStats.memoryHits;
+    }
+
+    public synchronized long getFileHits(String namespace) {
+        NamespaceStats namespaceStats = stats.get(namespace);
+        return namespaceStats == null ? 0 : namespaceStats.fileHits;
+    }
+
+    public synchronized long getMisses(String namespace) {
+        NamespaceStats namespaceStats = stats.get(namespace);
+        return namespaceStats == null ? 0 : namespaceStats.misses;
+    }
+
+    /**
+     * This method returns fraction of get() calls for given namespace served from memory tier
+     *
+     * @param namespace
+     * @return hit rate in range [0, 1], or 0 if there were no requests for this namespace
+     */
+    public synchronized double getMemoryHitRate(String namespace) {
+        NamespaceStats namespaceStats = stats.get(namespace);
+        if (namespaceStats == null)
+            return 0.0;
+
+        long total = namespaceStats.memoryHits + namespaceStats.fileHits + namespaceStats.misses;
+        return total == 0 ? 0.0 : namespaceStats.memoryHits / (double) total;
+    }
+
+    private void store(String key, byte[] data) {
+        cache.put(key, data);
+        bytes += data.length;
+
+        Iterator<Map.Entry<String, byte[]>> iterator = cache.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, byte[]> entry = iterator.next();
+            iterator.remove();
+            bytes -= entry.getValue().length;
+
+            // file write is done by writeSpilled(), once cache monitor is released
+            String spilledKey = entry.getKey();
+            if (!persisted.contains(spilledKey))
+                pending.put(spilledKey, entry.getValue());
+            spilled.add(spilledKey);
+        }
+    }
+
+    /**
+     * This method writes spilled entries to file tier. Serialized bytes are written as is, outside of cache monitor.
+     * Writes are done one at a time, so older copy of an entry never overwrites newer one.
+     */
+    private void writeSpilled() {
+        synchronized (spillLock) {
+            while (true) {
+                String key;
+                byte[] data;
+                synchronized (this) {
+                    if (pending.isEmpty())
+                        return;
+
+                    Map.Entry<String, byte[]> entry = pending.entrySet().iterator().next();
+                    key = entry.getKey();
+                    data = entry.getValue();
+                }
+
+                fileCache.putBytes(key, data);
+
+                synchronized (this) {
+                    // entry could be promoted back or replaced while we were writing it
+                    if (pending.get(key) == data) {
+                        pending.remove(key);
+                        persisted.add(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private NamespaceStats statsFor(String key) {
+        Matcher matcher = KEY_PATTERN.matcher(key);
+        String namespace = matcher.matches() ? matcher.group(1) : key;
+
+        NamespaceStats namespaceStats = stats.get(namespace);
+        if (namespaceStats == null) {
+            namespaceStats = new NamespaceStats();
+            stats.put(namespace, namespaceStats);
+        }
+        return namespaceStats;
+    }
+
+    private static byte[] serialize(DataSet dataSet) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        dataSet.save(os);
+        return os.toByteArray();
+    }
+
+    private static DataSet deserialize(byte[] data) {
+        DataSet ds = new DataSet();
+        ds.load(new ByteArrayInputStream(data));
+        return ds;
+    }
+
+    private static class NamespaceStats {
+        private long memoryHits;
+        private long fileHits;
+        private long misses;
+    }
+}
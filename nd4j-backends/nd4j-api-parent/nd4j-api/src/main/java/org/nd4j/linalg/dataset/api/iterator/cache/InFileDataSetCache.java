@@ -3,6 +3,7 @@ package org.nd4j.linalg.dataset.api.iterator.cache;
 import org.nd4j.linalg.dataset.DataSet;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 
@@ -80,6 +81,24 @@ public class InFileDataSetCache implements DataSetCache {
 
     @Override
     public void put(String key, DataSet dataSet) {
+        dataSet.save(prepareFile(key));
+    }
+
+    /**
+     * This method stores DataSet already serialized with DataSet.save(), without deserializing it first
+     *
+     * @param key
+     * @param data
+     */
+    void putBytes(String key, byte[] data) {
+        try (FileOutputStream fos = new FileOutputStream(prepareFile(key), false)) {
+            fos.write(data);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private File prepareFile(String key) {
         File file = resolveKey(key);
 
         File parentDir = file.getParentFile();
@@ -93,7 +112,7 @@ public class InFileDataSetCache implements DataSetCache {
             file.delete();
         }
 
-        dataSet.save(file);
+        return file;
     }
 
     @Override
@@ -0,0 +1,22 @@
+package org.nd4j.linalg.executors;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * SPI for supplying executors to ExecutorServiceProvider, i.e. pools managed by host application,
+ * NUMA-pinned pools, or virtual-thread executors on JVMs that have them.
+ *
+ * Implementation is picked up via java.util.ServiceLoader, via system property {@link ExecutorServiceProvider#PROVIDER},
+ * or set explicitly with {@link ExecutorServiceProvider#setProvider(ExecutorProvider)}.
+ */
+public interface ExecutorProvider {
+
+    /**
+     * This method returns executor for given pool name
+     *
+     * @param poolName name of the pool, i.e. {@link ExecutorServiceProvider#DEFAULT_POOL} or {@link ExecutorServiceProvider#IO_POOL}
+     * @param threads number of threads configured for this pool
+     * @return executor, or null if default executor should be created
+     */
+    ExecutorService createExecutorService(String poolName, int threads);
+}
@@ -1,15 +1,42 @@
 package org.nd4j.linalg.executors;
 
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Provider of named executor pools, shared across nd4j.
+ *
+ * Pools are created lazily. Host application can register its own pools under given name, or supply all of them via
+ * {@link ExecutorProvider} SPI, so nd4j doesn't create hidden pools that oversubscribe cores.
+ *
+ * Number of threads for pool can be set via "org.nd4j.parallel.threads.[name]" system property,
+ * default pool uses "org.nd4j.parallel.threads" as before.
+ */
+@Slf4j
 public class ExecutorServiceProvider {
 
     public static final String EXEC_THREADS = "org.nd4j.parallel.threads";
     public final static String ENABLED = "org.nd4j.parallel.enabled";
+    public final static String PROVIDER = "org.nd4j.parallel.provider";
+
+    /**
+     * Pool used for compute-bound tasks
+     */
+    public final static String DEFAULT_POOL = "default";
+
+    /**
+     * Pool used for I/O-bound tasks, i.e. prefetch of {@link org.nd4j.linalg.dataset.api.iterator.CachingDataSetIterator}
+     */
+    public final static String IO_POOL = "io";
 
     private static final int nThreads;
-    private static ExecutorService executorService;
+    private static final Map<String, ExecutorService> pools = new ConcurrentHashMap<>();
     private static ForkJoinPool forkJoinPool;
+    private static ExecutorProvider provider;
 
     static {
         int defaultThreads = Runtime.getRuntime().availableProcessors();
@@ -18,29 +45,173 @@ public class ExecutorServiceProvider {
             nThreads = 1;
         else
             nThreads = Integer.parseInt(System.getProperty(EXEC_THREADS, String.valueOf(defaultThreads)));
+
+        provider = loadProvider();
     }
 
-    public static synchronized ExecutorService getExecutorService() {
+    private static ExecutorProvider loadProvider() {
+        String className = System.getProperty(PROVIDER);
+        if (className != null) {
+            try {
+                return (ExecutorProvider) Class.forName(className).newInstance();
+            } catch (Exception e) {
+                throw new RuntimeException("Unable to instantiate ExecutorProvider [" + className + "]", e);
+            }
+        }
+
+        Iterator<ExecutorProvider> iterator = ServiceLoader.load(ExecutorProvider.class).iterator();
+        if (iterator.hasNext()) {
+            ExecutorProvider p = iterator.next();
+            log.info("Using ExecutorProvider: [{}]", p.getClass().getName());
+            return p;
+        }
+
+        return null;
+    }
+
+    public static ExecutorService getExecutorService() {
+        return getExecutorService(DEFAULT_POOL);
+    }
+
+    /**
+     * This method returns pool with given name, creating it if necessary
+     *
+     * @param name
+     * @return
+     */
+    public static ExecutorService getExecutorService(@NonNull String name) {
+        ExecutorService executorService = pools.get(name);
         if (executorService != null)
             return executorService;
 
-        executorService = new ThreadPoolExecutor(nThreads, nThreads, 60L, TimeUnit.SECONDS,
+        synchronized (ExecutorServiceProvider.class) {
+            executorService = pools.get(name);
+            if (executorService != null)
+                return executorService;
+
+            int threads = getNumberOfThreads(name);
+            if (provider != null)
+                executorService = provider.createExecutorService(name, threads);
+
+            if (executorService == null)
+                executorService = createExecutorService(name, threads);
+
+            pools.put(name, executorService);
+            return executorService;
+        }
+    }
+
+    /**
+     * This method registers externally managed pool under given name. Previously registered pool isn't shut down.
+     *
+     * @param name
+     * @param executorService
+     */
+    public static void registerExecutorService(@NonNull String name, @NonNull ExecutorService executorService) {
+        synchronized (ExecutorServiceProvider.class) {
+            pools.put(name, executorService);
+        }
+    }
+
+    /**
+     * This method removes pool with given name, so next request for it creates new one. Removed pool isn't shut down.
+     *
+     * @param name
+     * @return removed pool, or null if there was no pool with given name
+     */
+    public static ExecutorService deregisterExecutorService(@NonNull String name) {
+        synchronized (ExecutorServiceProvider.class) {
+            return pools.remove(name);
+        }
+    }
+
+    /**
+     * This method sets ExecutorProvider used for pools created from now on
+     *
+     * @param executorProvider provider, or null to use default pools
+     */
+    public static synchronized void setProvider(ExecutorProvider executorProvider) {
+        provider = executorProvider;
+    }
+
+    public static synchronized ForkJoinPool getForkJoinPool() {
+        if (forkJoinPool != null)
+            return forkJoinPool;
+        forkJoinPool = new ForkJoinPool(nThreads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        return forkJoinPool;
+    }
+
+    /**
+     * This method registers externally managed ForkJoinPool
+     *
+     * @param pool
+     */
+    public static synchronized void setForkJoinPool(@NonNull ForkJoinPool pool) {
+        forkJoinPool = pool;
+    }
+
+    /**
+     * This method returns metrics of all pools created or registered so far, including ForkJoinPool
+     *
+     * @return
+     */
+    public static List<PoolMetrics> getMetrics() {
+        List<PoolMetrics> metrics = new ArrayList<>();
+        for (Map.Entry<String, ExecutorService> entry : new TreeMap<>(pools).entrySet())
+            metrics.add(getMetrics(entry.getKey(), entry.getValue()));
+
+        ForkJoinPool fjp;
+        synchronized (ExecutorServiceProvider.class) {
+            fjp = forkJoinPool;
+        }
+
+        if (fjp != null)
+            metrics.add(getMetrics("forkjoin", fjp));
+
+        return metrics;
+    }
+
+    protected static PoolMetrics getMetrics(String name, ExecutorService executorService) {
+        if (executorService instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor tpe = (ThreadPoolExecutor) executorService;
+            return new PoolMetrics(name, tpe.getPoolSize(), tpe.getActiveCount(), tpe.getQueue().size(),
+                            tpe.getCompletedTaskCount(), tpe.getLargestPoolSize());
+        } else if (executorService instanceof ForkJoinPool) {
+            ForkJoinPool fjp = (ForkJoinPool) executorService;
+            return new PoolMetrics(name, fjp.getPoolSize(), fjp.getActiveThreadCount(),
+                            fjp.getQueuedSubmissionCount() + fjp.getQueuedTaskCount(), -1, -1);
+        } else
+            return new PoolMetrics(name, -1, -1, -1, -1, -1);
+    }
+
+    protected static int getNumberOfThreads(String name) {
+        if (DEFAULT_POOL.equals(name))
+            return nThreads;
+
+        // I/O pools are expected to block most of time, so they're oversized by default
+        int defaultThreads = IO_POOL.equals(name) ? nThreads * 4 : nThreads;
+        return Integer.parseInt(System.getProperty(EXEC_THREADS + "." + name, String.valueOf(defaultThreads)));
+    }
+
+    protected static ExecutorService createExecutorService(final String name, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
                         new LinkedTransferQueue<Runnable>(), new ThreadFactory() {
+                            private final AtomicInteger counter = new AtomicInteger(0);
+
                             @Override
                             public Thread newThread(Runnable r) {
                                 Thread t = Executors.defaultThreadFactory().newThread(r);
                                 t.setDaemon(true);
+                                if (!DEFAULT_POOL.equals(name))
+                                    t.setName("nd4j-" + name + "-" + counter.incrementAndGet());
                                 return t;
                             }
                         });
-        return executorService;
-    }
 
-    public static synchronized ForkJoinPool getForkJoinPool() {
-        if (forkJoinPool != null)
-            return forkJoinPool;
-        forkJoinPool = new ForkJoinPool(nThreads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
-        return forkJoinPool;
-    }
+        // idle threads of additional pools aren't kept around
+        if (!DEFAULT_POOL.equals(name))
+            executor.allowCoreThreadTimeOut(true);
 
+        return executor;
+    }
 }
@@ -0,0 +1,18 @@
+package org.nd4j.linalg.executors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Point-in-time metrics of single pool. Values that aren't available for given executor implementation are set to -1.
+ */
+@Data
+@AllArgsConstructor
+public class PoolMetrics {
+    private String name;
+    private int poolSize;
+    private int activeThreads;
+    private long queueSize;
+    private long completedTasks;
+    private int largestPoolSize;
+}
@@ -8,6 +8,7 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.memory.abstracts.DummyWorkspace;
 
+import java.io.File;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -54,6 +55,11 @@ public abstract class BasicMemoryManager implements MemoryManager {
         throw new UnsupportedOperationException("This method isn't available for this backend");
     }
 
+    @Override
+    public Pointer mmapFile(File file) {
+        throw new UnsupportedOperationException("This method isn't available for this backend");
+    }
+
     /**
      * This method detaches off-heap memory from passed INDArray instances, and optionally stores them in cache for future reuse
      * PLEASE NOTE: Cache options depend on specific implementations
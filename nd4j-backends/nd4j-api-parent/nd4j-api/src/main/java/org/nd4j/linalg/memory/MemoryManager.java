@@ -6,6 +6,8 @@ import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.memory.enums.MemoryKind;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
+import java.io.File;
+
 /**
  *
  * @author raver119@gmail.com
@@ -119,6 +121,17 @@ public interface MemoryManager {
      */
     void release(Pointer pointer, MemoryKind kind);
 
+    /**
+     * This method memory-maps given file, without the 2GB limit of java.nio mappings
+     *
+     * PLEASE NOTE: File is unmapped once returned pointer is garbage collected.
+     * PLEASE NOTE: Mapping is shared, so writes to mapped memory reach the file.
+     *
+     * @param file file to map
+     * @return pointer to the first byte of the file, with capacity equal to file length
+     */
+    Pointer mmapFile(File file);
+
     /**
      * This method detaches off-heap memory from passed INDArray instances, and optionally stores them in cache for future reuse
      * PLEASE NOTE: Cache options depend on specific implementations
@@ -0,0 +1,541 @@
+package org.nd4j.linalg.memory.abstracts;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.Pointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
+import org.nd4j.linalg.api.memory.WorkspaceEvent;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.MemoryKind;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.api.memory.enums.WorkspaceEventType;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
+import org.nd4j.linalg.api.memory.pointers.PointersPair;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.memory.MemoryManager;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MemoryWorkspace implementation that can be used by multiple threads at the same time.
+ *
+ * Workspace holds one shared block of memory. Each thread entering this workspace carves its own sub-arena
+ * out of that block with a single CAS on shared offset, and then allocates from its sub-arena without any synchronization.
+ * Allocations that don't fit into remaining block are spilled, according to SpillPolicy.
+ *
+ * Entering and leaving this workspace is counted per thread, so nested scopes within one thread are fine.
+ * Memory is reset (and optionally reallocated to learned size) only once the last borrower has left the workspace,
+ * so all arrays allocated within a cycle stay valid until all threads are done with it.
+ *
+ * PLEASE NOTE: DEVICE allocations are always spilled, shared block is host memory only.
+ */
+@Slf4j
+public class ConcurrentWorkspace implements MemoryWorkspace {
+    // default size of per-thread sub-arena
+    public static final long DEFAULT_ARENA_SIZE = 1024L * 1024L;
+
+    @Getter
+    protected final WorkspaceConfiguration workspaceConfiguration;
+    @Getter
+    protected final String id;
+    @Getter
+    protected int deviceId;
+    @Getter
+    protected Long threadId;
+
+    protected final long arenaSize;
+    protected final MemoryManager memoryManager;
+
+    // shared block, and current offset within it
+    protected volatile PagedPointer block;
+    protected AtomicLong currentSize = new AtomicLong(0);
+    protected AtomicLong blockOffset = new AtomicLong(0);
+
+    protected AtomicLong generationId = new AtomicLong(0);
+    protected AtomicInteger borrowers = new AtomicInteger(0);
+    protected AtomicLong cyclesCount = new AtomicLong(0);
+
+    protected AtomicLong cycleAllocations = new AtomicLong(0);
+    protected AtomicLong lastCycleAllocations = new AtomicLong(0);
+    protected AtomicLong maxCycle = new AtomicLong(0);
+    protected AtomicLong spilledAllocationsSize = new AtomicLong(0);
+    protected AtomicInteger externalCount = new AtomicInteger(0);
+
+    // cumulative event counters, indexed by WorkspaceEventType ordinal
+    @Getter
+    protected final AtomicLongArray eventCounts = new AtomicLongArray(WorkspaceEventType.values().length);
+    @Getter
+    protected final AtomicLongArray eventBytes = new AtomicLongArray(WorkspaceEventType.values().length);
+
+    protected AtomicBoolean isUsed = new AtomicBoolean(true);
+    protected AtomicBoolean isDebug = new AtomicBoolean(false);
+
+    // spilled allocations are released once all borrowers have left
+    protected Queue<PointersPair> externalAllocations = new ConcurrentLinkedQueue<>();
+
+    protected ThreadLocal<Arena> arenas = new ThreadLocal<Arena>() {
+        @Override
+        protected Arena initialValue() {
+            return new Arena();
+        }
+    };
+
+    protected ThreadLocal<Scope> scopes = new ThreadLocal<Scope>() {
+        @Override
+        protected Scope initialValue() {
+            return new Scope();
+        }
+    };
+
+    public ConcurrentWorkspace(@NonNull WorkspaceConfiguration configuration, @NonNull String workspaceId) {
+        this(configuration, workspaceId, DEFAULT_ARENA_SIZE);
+    }
+
+    /**
+     * @param configuration workspace configuration. initialSize, maxSize, overallocationLimit, policyLearning and policySpill are respected
+     * @param workspaceId id of this workspace
+     * @param arenaSize number of bytes each thread carves out of shared block at once
+     */
+    public ConcurrentWorkspace(@NonNull WorkspaceConfiguration configuration, @NonNull String workspaceId,
+                    long arenaSize) {
+        if (arenaSize < 8)
+            throw new ND4JIllegalStateException("Arena size should be at least 8 bytes");
+
+        this.workspaceConfiguration = configuration;
+        this.id = workspaceId;
+        this.arenaSize = align(arenaSize);
+        this.threadId = Thread.currentThread().getId();
+        this.memoryManager = Nd4j.getMemoryManager();
+        this.deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+
+        long size = configuration.getInitialSize();
+        if (size > 0 && configuration.getPolicyAllocation() == AllocationPolicy.OVERALLOCATE
+                        && configuration.getOverallocationLimit() > 0)
+            size += (long) (size * configuration.getOverallocationLimit());
+
+        if (configuration.getMaxSize() > 0 && size > configuration.getMaxSize())
+            size = configuration.getMaxSize();
+
+        currentSize.set(align(size));
+        initializeWorkspace();
+    }
+
+    protected static long align(long bytes) {
+        return (bytes + 7L) & ~7L;
+    }
+
+    @Override
+    public long getGenerationId() {
+        return generationId.get();
+    }
+
+    @Override
+    public PagedPointer alloc(long requiredMemory, DataBuffer.Type dataType, boolean initialize) {
+        return alloc(requiredMemory, MemoryKind.HOST, dataType, initialize);
+    }
+
+    @Override
+    public PagedPointer alloc(long requiredMemory, MemoryKind kind, DataBuffer.Type dataType, boolean initialize) {
+        requiredMemory = align(requiredMemory);
+        long numElements = requiredMemory / Nd4j.sizeOfDataType(dataType);
+
+        cycleAllocations.addAndGet(requiredMemory);
+
+        PagedPointer shared = block;
+        if (kind == MemoryKind.HOST && isUsed.get() && shared != null) {
+            long offset = allocateFromArena(requiredMemory);
+            if (offset >= 0) {
+                PagedPointer ptr = shared.withOffset(offset, numElements);
+
+                if (isDebug.get())
+                    log.info("Workspace [{}]: thread {} allocating {} bytes at offset {}", id,
+                                    Thread.currentThread().getId(), requiredMemory, offset);
+
+                if (initialize)
+                    Pointer.memset(ptr, 0, requiredMemory);
+
+                return ptr;
+            }
+        }
+
+        if (workspaceConfiguration.getPolicySpill() == SpillPolicy.FAIL && kind == MemoryKind.HOST && isUsed.get())
+            throw new ND4JIllegalStateException("Can't allocate memory: Workspace is full");
+
+        // only host spills are accounted, since they are the ones that can be avoided by larger block
+        if (kind == MemoryKind.HOST)
+            spilledAllocationsSize.addAndGet(requiredMemory);
+        externalCount.incrementAndGet();
+
+        if (isDebug.get())
+            log.info("Workspace [{}]: thread {} spilled {} bytes", id, Thread.currentThread().getId(), requiredMemory);
+
+        PagedPointer pointer = new PagedPointer(memoryManager.allocate(requiredMemory, kind, initialize), numElements);
+        if (kind == MemoryKind.HOST)
+            externalAllocations.add(new PointersPair(pointer, null));
+        else
+            externalAllocations.add(new PointersPair(null, pointer));
+
+        if (kind == MemoryKind.HOST)
+            fireEvent(WorkspaceEventType.SPILL, requiredMemory, currentSize.get());
+
+        return pointer;
+    }
+
+    /**
+     * This method returns offset within shared block for given number of bytes, or -1 if block is exhausted
+     */
+    protected long allocateFromArena(long requiredMemory) {
+        long generation = generationId.get();
+        Arena arena = arenas.get();
+
+        if (arena.generation == generation && arena.offset + requiredMemory <= arena.end) {
+            long offset = arena.offset;
+            arena.offset += requiredMemory;
+            return offset;
+        }
+
+        // large allocations get their own region, so they don't waste remainder of current arena
+        if (requiredMemory > arenaSize / 2)
+            return carve(requiredMemory);
+
+        long start = carve(arenaSize);
+        if (start < 0)
+            return carve(requiredMemory);
+
+        arena.generation = generation;
+        arena.offset = start + requiredMemory;
+        arena.end = start + arenaSize;
+
+        return start;
+    }
+
+    /**
+     * This method reserves given number of bytes from shared block
+     *
+     * @return offset of reserved region, or -1 if block doesn't have enough space left
+     */
+    protected long carve(long bytes) {
+        long limit = currentSize.get();
+        while (true) {
+            long current = blockOffset.get();
+            if (current + bytes > limit)
+                return -1;
+
+            if (blockOffset.compareAndSet(current, current + bytes))
+                return current;
+        }
+    }
+
+    @Override
+    public MemoryWorkspace notifyScopeEntered() {
+        Scope scope = scopes.get();
+        if (scope.depth++ == 0) {
+            scope.previousWorkspace = Nd4j.getMemoryManager().getCurrentWorkspace();
+
+            // entering is serialized with reset, so nobody joins a cycle that's being reset right now
+            synchronized (this) {
+                borrowers.incrementAndGet();
+            }
+        }
+
+        Nd4j.getMemoryManager().setCurrentWorkspace(this);
+
+        return this;
+    }
+
+    /**
+     * Borrowing is the same as entering for this workspace: memory is never reset while any thread is within scope
+     *
+     * @return
+     */
+    @Override
+    public MemoryWorkspace notifyScopeBorrowed() {
+        return notifyScopeEntered();
+    }
+
+    @Override
+    public MemoryWorkspace notifyScopeLeft() {
+        close();
+        return this;
+    }
+
+    /**
+     * Tagged use is counted separately from scopes, so it never changes number of borrowers: matching close() call
+     * just consumes the tag
+     *
+     * @return
+     */
+    @Override
+    public MemoryWorkspace tagOutOfScopeUse() {
+        scopes.get().tags++;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        Scope scope = scopes.get();
+        if (scope.tags > 0) {
+            scope.tags--;
+            if (scope.depth > 0)
+                Nd4j.getMemoryManager().setCurrentWorkspace(this);
+            return;
+        }
+
+        if (scope.depth == 0)
+            throw new ND4JIllegalStateException("Workspace [" + id + "]: current thread isn't within scope");
+
+        if (--scope.depth > 0) {
+            Nd4j.getMemoryManager().setCurrentWorkspace(this);
+            return;
+        }
+
+        Nd4j.getMemoryManager().setCurrentWorkspace(scope.previousWorkspace);
+        scope.previousWorkspace = null;
+
+        // this is for safety. We have to be sure that no ops were left non-processed
+        Nd4j.getExecutioner().commit();
+
+        synchronized (this) {
+            int left = borrowers.decrementAndGet();
+            if (left < 0) {
+                borrowers.set(0);
+                throw new ND4JIllegalStateException("Workspace [" + id + "]: number of borrowers went below zero");
+            }
+
+            if (left == 0)
+                resetCycle();
+        }
+    }
+
+    /**
+     * This method is called when last borrower leaves workspace. Should be called while holding this workspace monitor.
+     */
+    protected void resetCycle() {
+        cyclesCount.incrementAndGet();
+
+        long cycle = cycleAllocations.get();
+        lastCycleAllocations.set(cycle);
+        if (cycle > maxCycle.get())
+            maxCycle.set(cycle);
+
+        // if this cycle didn't fit into block, we might want to grow it
+        long required = blockOffset.get() + spilledAllocationsSize.get();
+        boolean learning = workspaceConfiguration.getPolicyLearning() != LearningPolicy.NONE
+                        || workspaceConfiguration.getPolicySpill() == SpillPolicy.REALLOCATE;
+
+        clearExternalAllocations();
+
+        if (learning && spilledAllocationsSize.get() > 0
+                        && (workspaceConfiguration.getMaxSize() == 0 || currentSize.get() < workspaceConfiguration.getMaxSize())) {
+            long size = required;
+            if (workspaceConfiguration.getPolicyAllocation() == AllocationPolicy.OVERALLOCATE
+                            && workspaceConfiguration.getOverallocationLimit() > 0)
+                size += (long) (size * workspaceConfiguration.getOverallocationLimit());
+
+            if (workspaceConfiguration.getMaxSize() > 0 && size > workspaceConfiguration.getMaxSize())
+                size = workspaceConfiguration.getMaxSize();
+
+            if (isDebug.get())
+                log.info("Workspace [{}]: reallocating from {} to {} bytes", id, currentSize.get(), size);
+
+            long previousSize = currentSize.get();
+
+            releaseBlock();
+            currentSize.set(align(size));
+            initializeWorkspace();
+
+            fireEvent(previousSize > 0 ? WorkspaceEventType.REALLOCATE : WorkspaceEventType.LEARNED, 0,
+                            previousSize);
+        }
+
+        spilledAllocationsSize.set(0);
+        externalCount.set(0);
+        cycleAllocations.set(0);
+        blockOffset.set(0);
+
+        // all per-thread arenas become invalid with new generation
+        generationId.incrementAndGet();
+    }
+
+    /**
+     * This method accounts workspace event in this workspace counters, and reports it to workspace manager.
+     * Event object is created only if there are listeners registered
+     */
+    protected void fireEvent(WorkspaceEventType type, long bytes, long previousSize) {
+        eventCounts.incrementAndGet(type.ordinal());
+        eventBytes.addAndGet(type.ordinal(), bytes);
+
+        MemoryWorkspaceManager manager = Nd4j.getWorkspaceManager();
+        if (!manager.hasWorkspaceListeners())
+            return;
+
+        manager.notifyWorkspaceEvent(new WorkspaceEvent(type, id, Thread.currentThread().getId(), bytes, previousSize,
+                        currentSize.get(), System.currentTimeMillis()));
+    }
+
+    protected void clearExternalAllocations() {
+        PointersPair pair;
+        while ((pair = externalAllocations.poll()) != null) {
+            if (pair.getHostPointer() != null)
+                memoryManager.release(pair.getHostPointer(), MemoryKind.HOST);
+
+            if (pair.getDevicePointer() != null)
+                memoryManager.release(pair.getDevicePointer(), MemoryKind.DEVICE);
+        }
+    }
+
+    protected void releaseBlock() {
+        if (block != null) {
+            memoryManager.release(block, MemoryKind.HOST);
+            block = null;
+        }
+    }
+
+    @Override
+    public synchronized void initializeWorkspace() {
+        if (block == null && currentSize.get() > 0) {
+            if (isDebug.get())
+                log.info("Allocating [{}] shared workspace of {} bytes...", id, currentSize.get());
+
+            block = new PagedPointer(memoryManager.allocate(currentSize.get(), MemoryKind.HOST, false));
+        }
+    }
+
+    @Override
+    public void destroyWorkspace() {
+        destroyWorkspace(true);
+    }
+
+    @Override
+    public synchronized void destroyWorkspace(boolean extended) {
+        if (borrowers.get() > 0)
+            throw new ND4JIllegalStateException("Workspace [" + id + "]: can't be destroyed while "
+                            + borrowers.get() + " thread(s) are within scope");
+
+        clearExternalAllocations();
+        releaseBlock();
+
+        currentSize.set(0);
+        blockOffset.set(0);
+        generationId.incrementAndGet();
+    }
+
+    @Override
+    public void toggleWorkspaceUse(boolean isEnabled) {
+        isUsed.set(isEnabled);
+    }
+
+    @Override
+    public void enableDebug(boolean reallyEnable) {
+        isDebug.set(reallyEnable);
+    }
+
+    /**
+     * This method returns True if at least one thread is within scope of this workspace
+     *
+     * @return
+     */
+    @Override
+    public boolean isScopeActive() {
+        return borrowers.get() > 0;
+    }
+
+    /**
+     * This method returns parent Workspace of current thread, if any. Null if there's none.
+     *
+     * @return
+     */
+    @Override
+    public MemoryWorkspace getParentWorkspace() {
+        return scopes.get().previousWorkspace;
+    }
+
+    /**
+     * This method returns number of threads currently within scope of this workspace
+     * @return
+     */
+    public int getNumberOfBorrowers() {
+        return borrowers.get();
+    }
+
+    /**
+     * This method returns number of bytes of shared block
+     * @return
+     */
+    @Override
+    public long getCurrentSize() {
+        return currentSize.get();
+    }
+
+    /**
+     * This method returns number of bytes of shared block already reserved by threads during this cycle
+     * @return
+     */
+    public long getBlockOffset() {
+        return blockOffset.get();
+    }
+
+    /**
+     * This method returns number of bytes in spilled host allocations during this cycle
+     * @return
+     */
+    public long getSpilledSize() {
+        return spilledAllocationsSize.get();
+    }
+
+    public int getNumberOfExternalAllocations() {
+        return externalCount.get();
+    }
+
+    public long getCyclesCount() {
+        return cyclesCount.get();
+    }
+
+    public long getArenaSize() {
+        return arenaSize;
+    }
+
+    @Override
+    public long getThisCycleAllocations() {
+        return cycleAllocations.get();
+    }
+
+    @Override
+    public long getLastCycleAllocations() {
+        return lastCycleAllocations.get();
+    }
+
+    @Override
+    public long getMaxCycleAllocations() {
+        return maxCycle.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentWorkspace{" + "id='" + id + '\'' + ", currentSize=" + currentSize.get() + ", borrowers="
+                        + borrowers.get() + '}';
+    }
+
+    protected static class Arena {
+        protected long generation = -1;
+        protected long offset;
+        protected long end;
+    }
+
+    protected static class Scope {
+        protected int depth;
+        protected int tags;
+        protected MemoryWorkspace previousWorkspace;
+    }
+}
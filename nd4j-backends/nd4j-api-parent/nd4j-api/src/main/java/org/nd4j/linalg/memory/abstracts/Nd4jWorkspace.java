@@ -13,6 +13,8 @@ import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.memory.MemoryManager;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
+import org.nd4j.linalg.api.memory.WorkspaceEvent;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.pointers.PagedPointer;
 import org.nd4j.linalg.api.memory.pointers.PointersPair;
@@ -29,6 +31,7 @@ import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Basic implementation for
@@ -107,6 +110,12 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
     protected AtomicLong generationId = new AtomicLong(0);
 
+    // cumulative event counters, indexed by WorkspaceEventType ordinal. Shared with GarbageWorkspaceReference
+    @Getter
+    protected final AtomicLongArray eventCounts = new AtomicLongArray(WorkspaceEventType.values().length);
+    @Getter
+    protected final AtomicLongArray eventBytes = new AtomicLongArray(WorkspaceEventType.values().length);
+
     // this memory manager implementation will be used to allocate real memory for this workspace
 
     public Nd4jWorkspace(@NonNull WorkspaceConfiguration configuration) {
@@ -388,6 +397,8 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
                         externalAllocations.add(new PointersPair(pointer, null));
 
+                        fireEvent(WorkspaceEventType.SPILL, requiredMemory, currentSize.get());
+
                         return pointer;
                     } else {
                         pinnedCount.incrementAndGet();
@@ -397,6 +408,7 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
                         pinnedAllocations.add(new PointersPair(stepsCount.get(), requiredMemory, pointer, null));
 
+                        fireEvent(WorkspaceEventType.PINNED, requiredMemory, currentSize.get());
 
                         return pointer;
                     }
@@ -414,6 +426,8 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
     @Override
     public void initializeWorkspace() {
+        long previousSize = currentSize.get();
+
         // we can reallocate this workspace to larger size if that's needed and allowed by configuration
         if ((currentSize.get() < maxCycle.get() || currentSize.get() < cycleAllocations.get())
                         && workspaceConfiguration.getPolicySpill() == SpillPolicy.REALLOCATE
@@ -471,9 +485,33 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
 
                 // calling for implementation-specific workspace initialization. basically allocation happens there
                 init();
+
+                if (currentSize.get() > 0)
+                    fireEvent(previousSize > 0 ? WorkspaceEventType.REALLOCATE : WorkspaceEventType.LEARNED, 0,
+                                    previousSize);
             }
     }
 
+    /**
+     * This method accounts workspace event in this workspace counters, and reports it to workspace manager.
+     * Event object is created only if there are listeners registered
+     *
+     * @param type
+     * @param bytes
+     * @param previousSize
+     */
+    protected void fireEvent(WorkspaceEventType type, long bytes, long previousSize) {
+        eventCounts.incrementAndGet(type.ordinal());
+        eventBytes.addAndGet(type.ordinal(), bytes);
+
+        MemoryWorkspaceManager manager = Nd4j.getWorkspaceManager();
+        if (!manager.hasWorkspaceListeners())
+            return;
+
+        manager.notifyWorkspaceEvent(new WorkspaceEvent(type, id, threadId, bytes, previousSize, currentSize.get(),
+                        System.currentTimeMillis()));
+    }
+
     /**
      * This method returns number of spilled allocations, that can be purged at the end of block
      * @return
@@ -796,6 +834,10 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
         private Queue<PointersPair> pinnedPointers;
         private List<PointersPair> externalPointers;
         private String key;
+        private AtomicLongArray eventCounts;
+        private AtomicLongArray eventBytes;
+        // set once DESTROY event was fired for explicitly destroyed workspace, so it's not fired again on GC
+        private volatile boolean destroyed;
 
         public GarbageWorkspaceReference(MemoryWorkspace referent, ReferenceQueue<? super MemoryWorkspace> queue) {
             super(referent, queue);
@@ -805,6 +847,8 @@ public abstract class Nd4jWorkspace implements MemoryWorkspace {
             this.threadId = referent.getThreadId();
             this.pinnedPointers = ((Nd4jWorkspace) referent).pinnedAllocations;
             this.externalPointers = ((Nd4jWorkspace) referent).externalAllocations;
+            this.eventCounts = ((Nd4jWorkspace) referent).eventCounts;
+            this.eventBytes = ((Nd4jWorkspace) referent).eventBytes;
 
             this.key = id + "_" + threadId;
         }
@@ -4,11 +4,16 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.memory.MemoryWorkspaceManager;
+import org.nd4j.linalg.api.memory.WorkspaceEvent;
+import org.nd4j.linalg.api.memory.WorkspaceListener;
+import org.nd4j.linalg.api.memory.WorkspacePool;
+import org.nd4j.linalg.api.memory.WorkspaceStatistics;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.*;
 import org.nd4j.linalg.api.memory.pointers.PagedPointer;
 import org.nd4j.linalg.api.memory.pointers.PointersPair;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.memory.abstracts.ConcurrentWorkspace;
 import org.nd4j.linalg.memory.abstracts.DummyWorkspace;
 import org.nd4j.linalg.memory.abstracts.Nd4jWorkspace;
 
@@ -18,7 +23,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Workspace manager implementation. Please note, this class is supposed to be used via Nd4j.getWorkspaceManager(), to provide consistency between different threads within given JVM process
@@ -32,7 +40,14 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
     protected ThreadLocal<Map<String, MemoryWorkspace>> backingMap = new ThreadLocal<>();
     private ReferenceQueue<MemoryWorkspace> queue;
     private WorkspaceDeallocatorThread thread;
-    private Map<String, Nd4jWorkspace.GarbageWorkspaceReference> referenceMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<String, Nd4jWorkspace.GarbageWorkspaceReference> referenceMap = new ConcurrentHashMap<>();
+    protected Map<String, MemoryWorkspace> sharedWorkspaces = new ConcurrentHashMap<>();
+
+    protected List<WorkspaceListener> listeners = new CopyOnWriteArrayList<>();
+
+    // event counters of destroyed and collected workspaces, live ones keep their own. Guarded by retiredEventCounts
+    protected final long[] retiredEventCounts = new long[WorkspaceEventType.values().length];
+    protected final long[] retiredEventBytes = new long[WorkspaceEventType.values().length];
 
     public BasicWorkspaceManager() {
         this(WorkspaceConfiguration.builder().initialSize(0).maxSize(0).overallocationLimit(0.3)
@@ -99,7 +114,12 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
     protected void pickReference(MemoryWorkspace workspace) {
         Nd4jWorkspace.GarbageWorkspaceReference reference =
                         new Nd4jWorkspace.GarbageWorkspaceReference(workspace, queue);
-        referenceMap.put(reference.getKey(), reference);
+
+        synchronized (retiredEventCounts) {
+            Nd4jWorkspace.GarbageWorkspaceReference previous = referenceMap.put(reference.getKey(), reference);
+            if (previous != null)
+                retireEventCounters(previous.getEventCounts(), previous.getEventBytes());
+        }
     }
 
     @Override
@@ -126,6 +146,8 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
 
         //workspace.destroyWorkspace();
         backingMap.get().remove(workspace.getId());
+
+        fireDestroyEvent(workspace);
     }
 
     /**
@@ -140,6 +162,9 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
         //workspace.destroyWorkspace();
 
         backingMap.get().remove(MemoryWorkspace.DEFAULT_ID);
+
+        if (workspace != null)
+            fireDestroyEvent(workspace);
     }
 
     /**
@@ -237,6 +262,211 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
         }
     }
 
+    /**
+     * This method returns Workspace with a given Id, shared by all threads
+     *
+     * @param configuration
+     * @param id
+     * @return
+     */
+    @Override
+    public MemoryWorkspace getSharedWorkspace(@NonNull WorkspaceConfiguration configuration, @NonNull String id) {
+        MemoryWorkspace workspace = sharedWorkspaces.get(id);
+        if (workspace != null)
+            return workspace;
+
+        // creation is synchronized, so shared block is never allocated twice
+        synchronized (sharedWorkspaces) {
+            workspace = sharedWorkspaces.get(id);
+            if (workspace == null) {
+                workspace = new ConcurrentWorkspace(configuration, id);
+                sharedWorkspaces.put(id, workspace);
+            }
+        }
+
+        return workspace;
+    }
+
+    @Override
+    public MemoryWorkspace getSharedWorkspace(@NonNull String id) {
+        return getSharedWorkspace(defaultConfiguration, id);
+    }
+
+    @Override
+    public void destroySharedWorkspace(@NonNull String id) {
+        synchronized (sharedWorkspaces) {
+            MemoryWorkspace workspace = sharedWorkspaces.get(id);
+            if (workspace == null)
+                return;
+
+            workspace.destroyWorkspace();
+            sharedWorkspaces.remove(id);
+
+            fireDestroyEvent(workspace);
+        }
+    }
+
+    /**
+     * This method creates pool of workspaces. Pooled workspaces aren't attached to any thread.
+     *
+     * @param configuration
+     * @param id
+     * @param poolSize
+     * @return
+     */
+    @Override
+    public WorkspacePool createWorkspacePool(@NonNull WorkspaceConfiguration configuration, @NonNull String id,
+                    int poolSize) {
+        return new WorkspacePool(configuration, id, poolSize) {
+            @Override
+            protected MemoryWorkspace createWorkspace(WorkspaceConfiguration configuration, String id) {
+                return createDetachedWorkspace(configuration, id);
+            }
+        };
+    }
+
+    /**
+     * This method creates new workspace via backend-specific createNewWorkspace(), and detaches it from current thread.
+     * Workspace that current thread had under the same id, if any, stays in place.
+     * Memory is still released once workspace is garbage collected.
+     */
+    protected MemoryWorkspace createDetachedWorkspace(@NonNull WorkspaceConfiguration configuration, @NonNull String id) {
+        ensureThreadExistense();
+
+        Map<String, MemoryWorkspace> map = backingMap.get();
+        MemoryWorkspace previous = map.get(id);
+        MemoryWorkspace workspace = createNewWorkspace(configuration, id);
+
+        if (previous != null)
+            map.put(id, previous);
+        else
+            map.remove(id);
+
+        return workspace;
+    }
+
+    @Override
+    public void addWorkspaceListener(@NonNull WorkspaceListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeWorkspaceListener(@NonNull WorkspaceListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public boolean hasWorkspaceListeners() {
+        return !listeners.isEmpty();
+    }
+
+    @Override
+    public void notifyWorkspaceEvent(@NonNull WorkspaceEvent event) {
+        for (WorkspaceListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (Exception e) {
+                log.warn("Workspace listener failed on event {}", event, e);
+            }
+        }
+    }
+
+    protected void fireDestroyEvent(MemoryWorkspace workspace) {
+        if (workspace instanceof Nd4jWorkspace) {
+            // reference stays in place until workspace is collected, we just make sure DESTROY isn't fired twice
+            Nd4jWorkspace.GarbageWorkspaceReference reference =
+                            referenceMap.get(workspace.getId() + "_" + workspace.getThreadId());
+            if (reference != null && reference.get() == workspace)
+                reference.setDestroyed(true);
+        } else if (workspace instanceof ConcurrentWorkspace) {
+            ConcurrentWorkspace ws = (ConcurrentWorkspace) workspace;
+            retireEventCounters(ws.getEventCounts(), ws.getEventBytes());
+        }
+
+        fireDestroyEvent(workspace.getId(), workspace.getThreadId(), workspace.getCurrentSize());
+    }
+
+    protected void fireDestroyEvent(String id, Long threadId, long previousSize) {
+        synchronized (retiredEventCounts) {
+            retiredEventCounts[WorkspaceEventType.DESTROY.ordinal()]++;
+        }
+
+        if (!hasWorkspaceListeners())
+            return;
+
+        notifyWorkspaceEvent(new WorkspaceEvent(WorkspaceEventType.DESTROY, id, threadId, 0, previousSize, 0,
+                        System.currentTimeMillis()));
+    }
+
+    protected void retireEventCounters(AtomicLongArray counts, AtomicLongArray bytes) {
+        synchronized (retiredEventCounts) {
+            for (int e = 0; e < retiredEventCounts.length; e++) {
+                retiredEventCounts[e] += counts.get(e);
+                retiredEventBytes[e] += bytes.get(e);
+            }
+        }
+    }
+
+    /**
+     * This method returns snapshot of statistics for workspaces of all threads.
+     * Only workspaces that weren't garbage collected yet are accounted in sizes.
+     * Event counters are summed over all workspaces, including destroyed and collected ones.
+     *
+     * @return
+     */
+    @Override
+    public WorkspaceStatistics getWorkspaceStatistics() {
+        WorkspaceStatistics statistics = new WorkspaceStatistics();
+        statistics.setTimestamp(System.currentTimeMillis());
+
+        long[] counts = new long[retiredEventCounts.length];
+        long[] bytes = new long[retiredEventBytes.length];
+
+        // collected references are moved to retired counters under the same lock, so nothing is counted twice
+        synchronized (retiredEventCounts) {
+            for (int e = 0; e < counts.length; e++) {
+                counts[e] = retiredEventCounts[e];
+                bytes[e] = retiredEventBytes[e];
+            }
+
+            for (Nd4jWorkspace.GarbageWorkspaceReference reference : referenceMap.values()) {
+                for (int e = 0; e < counts.length; e++) {
+                    counts[e] += reference.getEventCounts().get(e);
+                    bytes[e] += reference.getEventBytes().get(e);
+                }
+            }
+        }
+
+        for (Nd4jWorkspace.GarbageWorkspaceReference reference : referenceMap.values()) {
+            MemoryWorkspace workspace = reference.get();
+            if (workspace instanceof Nd4jWorkspace) {
+                Nd4jWorkspace ws = (Nd4jWorkspace) workspace;
+                statistics.add(ws.getId(), ws.getCurrentSize(), ws.getSpilledSize(), ws.getPinnedSize(),
+                                ws.getLastCycleAllocations(), ws.getMaxCycleAllocations(),
+                                ws.getNumberOfExternalAllocations(), ws.getNumberOfPinnedAllocations());
+            }
+        }
+
+        for (MemoryWorkspace workspace : sharedWorkspaces.values()) {
+            if (workspace instanceof ConcurrentWorkspace) {
+                ConcurrentWorkspace ws = (ConcurrentWorkspace) workspace;
+                statistics.add(ws.getId(), ws.getCurrentSize(), ws.getSpilledSize(), 0, ws.getLastCycleAllocations(),
+                                ws.getMaxCycleAllocations(), ws.getNumberOfExternalAllocations(), 0);
+
+                for (int e = 0; e < counts.length; e++) {
+                    counts[e] += ws.getEventCounts().get(e);
+                    bytes[e] += ws.getEventBytes().get(e);
+                }
+            }
+        }
+
+        for (WorkspaceEventType type : WorkspaceEventType.values()) {
+            statistics.getEventCounts().put(type, counts[type.ordinal()]);
+            statistics.getEventBytes().put(type, bytes[type.ordinal()]);
+        }
+
+        return statistics;
+    }
 
     protected class WorkspaceDeallocatorThread extends Thread implements Runnable {
         private final ReferenceQueue<MemoryWorkspace> queue;
@@ -290,7 +520,14 @@ public abstract class BasicWorkspaceManager implements MemoryWorkspaceManager {
                                 Nd4j.getMemoryManager().release(pair.getDevicePointer(), MemoryKind.DEVICE);
                         }
 
-                        referenceMap.remove(reference.getKey());
+                        // newer workspace with the same id might have replaced this reference already
+                        synchronized (retiredEventCounts) {
+                            if (referenceMap.remove(reference.getKey(), reference))
+                                retireEventCounters(reference.getEventCounts(), reference.getEventBytes());
+                        }
+
+                        if (!reference.isDestroyed())
+                            fireDestroyEvent(reference.getId(), reference.getThreadId(), 0);
                     }
                 } catch (Exception e) {
                     //
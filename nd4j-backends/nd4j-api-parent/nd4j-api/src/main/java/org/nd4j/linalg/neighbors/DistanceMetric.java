@@ -0,0 +1,20 @@
+package org.nd4j.linalg.neighbors;
+
+/**
+ * Metrics supported by nearest neighbours search.
+ *
+ * For similarities larger value means closer, for distances it's the opposite.
+ * PLEASE NOTE: MANHATTAN can't be derived from dot products, so it's not supported by TopKSearch.
+ */
+public enum DistanceMetric {
+    EUCLIDEAN, COSINE_DISTANCE, COSINE_SIMILARITY, DOT_PRODUCT, MANHATTAN;
+
+    /**
+     * This method returns TRUE if larger values of this metric mean closer vectors
+     *
+     * @return
+     */
+    public boolean isSimilarity() {
+        return this == COSINE_SIMILARITY || this == DOT_PRODUCT;
+    }
+}
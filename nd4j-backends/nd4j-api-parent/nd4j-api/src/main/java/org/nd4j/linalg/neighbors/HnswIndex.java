@@ -0,0 +1,763 @@
+package org.nd4j.linalg.neighbors;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.serde.binary.BinarySerde;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest neighbours index over vectors (rows), based on Hierarchical Navigable Small World graphs:
+ * Malkov & Yashunin, https://arxiv.org/abs/1603.09320
+ *
+ * Vectors can be added at any time, and ids are assigned sequentially, starting from 0. Searches can run concurrently,
+ * and only insertions are serialized. Graph search for inserted vector doesn't block queries, they're blocked only
+ * while new vector is stored and linked. Recall/latency tradeoff is controlled by ef: size of dynamic candidate list used
+ * during search.
+ *
+ * PLEASE NOTE: Vectors are copied to heap, and distances are computed on JVM side, since single distance op call
+ * is too expensive for graph traversal. Distances match EuclideanDistance/CosineSimilarity/ManhattanDistance ops.
+ * Vectors are stored in pages of up to PAGE_ELEMENTS floats, so index size isn't limited by max java array length.
+ */
+public class HnswIndex {
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+    public static final int DEFAULT_EF = 50;
+
+    /**
+     * Max number of floats in single page of vectors storage
+     */
+    public static final int PAGE_ELEMENTS = 1 << 24;
+
+    protected static final int MAGIC = 0x484E5357;
+    protected static final int VERSION = 2;
+
+    @Getter
+    private final int dimension;
+    @Getter
+    private final DistanceMetric metric;
+    @Getter
+    private final int m;
+    @Getter
+    private final int efConstruction;
+    private final int maxM0;
+    private final int pageVectors;
+    private final double levelMultiplier;
+    @Getter
+    private volatile int ef = DEFAULT_EF;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock insertLock = new ReentrantLock();
+    private final Random random = new Random();
+
+    // all fields below are guarded by lock, and modified only by thread holding insertLock
+    private float[][] pages = new float[0][];
+    private float[] norms = new float[0];
+    private int[] levels = new int[0];
+    // node -> level -> {count, neighbours...}
+    private int[][][] links = new int[0][][];
+    private int size = 0;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ThreadLocal<VisitedSet> visited = new ThreadLocal<VisitedSet>() {
+        @Override
+        protected VisitedSet initialValue() {
+            return new VisitedSet();
+        }
+    };
+
+    public HnswIndex(int dimension, @NonNull DistanceMetric metric) {
+        this(dimension, metric, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    /**
+     * @param dimension length of vectors
+     * @param metric
+     * @param m max number of connections per node on upper levels, level 0 uses 2 * m
+     * @param efConstruction size of dynamic candidate list used during insertion
+     */
+    public HnswIndex(int dimension, @NonNull DistanceMetric metric, int m, int efConstruction) {
+        if (dimension < 1)
+            throw new ND4JIllegalStateException("Dimension should be positive");
+
+        if (m < 2)
+            throw new ND4JIllegalStateException("M should be at least 2");
+
+        if (efConstruction < 1)
+            throw new ND4JIllegalStateException("efConstruction should be positive");
+
+        this.dimension = dimension;
+        this.metric = metric;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.pageVectors = Math.max(1, PAGE_ELEMENTS / dimension);
+    }
+
+    /**
+     * This method sets size of dynamic candidate list used during search.
+     * Higher values give better recall, at the cost of latency. Values below k are ignored.
+     *
+     * @param ef
+     */
+    public void setEf(int ef) {
+        if (ef < 1)
+            throw new ND4JIllegalStateException("ef should be positive");
+
+        this.ef = ef;
+    }
+
+    /**
+     * This method returns number of vectors in index
+     *
+     * @return
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method adds single vector to index
+     *
+     * @param vector
+     * @return id of vector
+     */
+    public int add(@NonNull INDArray vector) {
+        if (vector.length() != dimension)
+            throw new ND4JIllegalStateException("Vector should have length " + dimension + ", but has " + vector.length());
+
+        return add(toFloats(vector), 0);
+    }
+
+    /**
+     * This method adds all rows of given matrix to index
+     *
+     * @param matrix
+     * @return ids of rows
+     */
+    public int[] addAll(@NonNull INDArray matrix) {
+        checkMatrix(matrix);
+
+        float[] data = toFloats(matrix);
+        int[] ids = new int[matrix.rows()];
+        for (int r = 0; r < ids.length; r++)
+            ids[r] = add(data, r * dimension);
+
+        return ids;
+    }
+
+    /**
+     * This method returns approximate k nearest vectors for each of query rows.
+     * If less than k vectors are found, remaining indices are -1, and distances are NaN.
+     *
+     * @param queries matrix with dimension columns
+     * @param k
+     * @return
+     */
+    public TopKResult search(@NonNull INDArray queries, int k) {
+        checkMatrix(queries);
+        if (k < 1)
+            throw new ND4JIllegalStateException("K should be positive, but was " + k);
+
+        float[] data = toFloats(queries);
+        int rows = queries.rows();
+        int[][] resultIndices = new int[rows][k];
+        double[] resultDistances = new double[rows * k];
+
+        lock.readLock().lock();
+        try {
+            for (int r = 0; r < rows; r++)
+                searchSingle(data, r * dimension, k, resultIndices[r], resultDistances, r * k);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new TopKResult(resultIndices, Nd4j.create(resultDistances, new int[] {rows, k}));
+    }
+
+    protected void searchSingle(float[] query, int offset, int k, int[] resultIndices, double[] resultDistances,
+                    int resultOffset) {
+        Arrays.fill(resultIndices, -1);
+        Arrays.fill(resultDistances, resultOffset, resultOffset + k, Double.NaN);
+        if (size == 0)
+            return;
+
+        float norm = norm(query, offset);
+        int ep = entryPoint;
+        for (int level = maxLevel; level > 0; level--)
+            ep = greedyClosest(query, offset, norm, ep, level);
+
+        Heap results = searchLayer(query, offset, norm, new int[] {ep}, Math.max(ef, k), 0);
+        while (results.size() > k)
+            results.pop();
+
+        int found = results.size();
+        for (int e = found - 1; e >= 0; e--) {
+            double score = results.peekScore();
+            resultIndices[e] = results.pop();
+            resultDistances[resultOffset + e] = metric.isSimilarity() ? -score : score;
+        }
+    }
+
+    protected int add(float[] source, int offset) {
+        // insertions are serialized, and only the thread holding insertLock modifies the graph. So graph search for
+        // the new node runs without write lock, and queries are blocked only while vector is stored and linked
+        insertLock.lock();
+        try {
+            int id;
+            int level;
+            int ep;
+            int topLevel;
+
+            lock.writeLock().lock();
+            try {
+                if (size == Integer.MAX_VALUE)
+                    throw new ND4JIllegalStateException(
+                                    "HnswIndex can't hold more than " + Integer.MAX_VALUE + " vectors");
+
+                id = size;
+                ensureCapacity(id + 1);
+                System.arraycopy(source, offset, page(id), offset(id), dimension);
+                norms[id] = norm(page(id), offset(id));
+
+                level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+                levels[id] = level;
+                links[id] = new int[level + 1][];
+                for (int l = 0; l <= level; l++)
+                    links[id][l] = new int[1 + (l == 0 ? maxM0 : m)];
+
+                // new node isn't linked yet, so it's unreachable for concurrent searches
+                size++;
+
+                if (entryPoint < 0) {
+                    entryPoint = id;
+                    maxLevel = level;
+                    return id;
+                }
+
+                ep = entryPoint;
+                topLevel = maxLevel;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            float[] qPage = page(id);
+            int qOffset = offset(id);
+            float qNorm = norms[id];
+
+            for (int l = topLevel; l > level; l--)
+                ep = greedyClosest(qPage, qOffset, qNorm, ep, l);
+
+            int linkLevels = Math.min(level, topLevel);
+            int[][] neighbours = new int[linkLevels + 1][];
+            int[] entries = new int[] {ep};
+            for (int l = linkLevels; l >= 0; l--) {
+                Heap candidates = searchLayer(qPage, qOffset, qNorm, entries, efConstruction, l);
+
+                int found = candidates.size();
+                int[] ids = new int[found];
+                double[] scores = new double[found];
+                for (int e = found - 1; e >= 0; e--) {
+                    scores[e] = candidates.peekScore();
+                    ids[e] = candidates.pop();
+                }
+
+                neighbours[l] = selectNeighbours(ids, scores, found, m);
+                entries = ids;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (int l = linkLevels; l >= 0; l--) {
+                    int[] own = links[id][l];
+                    own[0] = neighbours[l].length;
+                    System.arraycopy(neighbours[l], 0, own, 1, neighbours[l].length);
+
+                    int maxConnections = l == 0 ? maxM0 : m;
+                    for (int n : neighbours[l])
+                        connect(n, id, l, maxConnections);
+                }
+
+                if (level > maxLevel) {
+                    maxLevel = level;
+                    entryPoint = id;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            return id;
+        } finally {
+            insertLock.unlock();
+        }
+    }
+
+    /**
+     * This method adds link from node to newNode, shrinking node connections if they overflow
+     */
+    protected void connect(int node, int newNode, int level, int maxConnections) {
+        int[] nodeLinks = links[node][level];
+        int count = nodeLinks[0];
+        if (count < maxConnections) {
+            nodeLinks[1 + count] = newNode;
+            nodeLinks[0]++;
+            return;
+        }
+
+        int[] ids = new int[count + 1];
+        double[] scores = new double[count + 1];
+        float[] nodePage = page(node);
+        int nodeOffset = offset(node);
+        for (int e = 0; e < count; e++)
+            ids[e] = nodeLinks[1 + e];
+        ids[count] = newNode;
+
+        for (int e = 0; e <= count; e++)
+            scores[e] = distance(nodePage, nodeOffset, norms[node], ids[e]);
+
+        sortByScore(ids, scores);
+
+        int[] selected = selectNeighbours(ids, scores, ids.length, maxConnections);
+        nodeLinks[0] = selected.length;
+        System.arraycopy(selected, 0, nodeLinks, 1, selected.length);
+    }
+
+    /**
+     * Neighbour selection heuristic: candidate is taken only if it's closer to base element than to any of already
+     * selected neighbours, so connections point in different directions. Free slots are filled with pruned candidates.
+     *
+     * @param ids candidates, sorted by distance to base element
+     * @param scores distances to base element
+     */
+    protected int[] selectNeighbours(int[] ids, double[] scores, int count, int max) {
+        if (count <= max)
+            return Arrays.copyOf(ids, count);
+
+        int[] result = new int[max];
+        boolean[] taken = new boolean[count];
+        int selected = 0;
+        for (int e = 0; e < count && selected < max; e++) {
+            boolean good = true;
+            float[] page = page(ids[e]);
+            int offset = offset(ids[e]);
+            for (int r = 0; r < selected; r++) {
+                if (distance(page, offset, norms[ids[e]], result[r]) < scores[e]) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) {
+                result[selected++] = ids[e];
+                taken[e] = true;
+            }
+        }
+
+        for (int e = 0; e < count && selected < max; e++)
+            if (!taken[e])
+                result[selected++] = ids[e];
+
+        return result;
+    }
+
+    protected int greedyClosest(float[] query, int offset, float norm, int ep, int level) {
+        int current = ep;
+        double score = distance(query, offset, norm, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] nodeLinks = links[current][level];
+            for (int e = 1; e <= nodeLinks[0]; e++) {
+                double s = distance(query, offset, norm, nodeLinks[e]);
+                if (s < score) {
+                    score = s;
+                    current = nodeLinks[e];
+                    changed = true;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * This method returns max-heap of up to ef closest elements found on given level
+     */
+    protected Heap searchLayer(float[] query, int offset, float norm, int[] entries, int ef, int level) {
+        VisitedSet visitedSet = visited.get();
+        visitedSet.reset(size);
+
+        Heap candidates = new Heap(false);
+        Heap results = new Heap(true);
+        for (int ep : entries) {
+            if (!visitedSet.visit(ep))
+                continue;
+
+            double score = distance(query, offset, norm, ep);
+            candidates.push(ep, score);
+            results.push(ep, score);
+            if (results.size() > ef)
+                results.pop();
+        }
+
+        while (candidates.size() > 0) {
+            if (results.size() >= ef && candidates.peekScore() > results.peekScore())
+                break;
+
+            int current = candidates.pop();
+            int[] nodeLinks = links[current][level];
+            for (int e = 1; e <= nodeLinks[0]; e++) {
+                int n = nodeLinks[e];
+                if (!visitedSet.visit(n))
+                    continue;
+
+                double score = distance(query, offset, norm, n);
+                if (results.size() < ef || score < results.peekScore()) {
+                    candidates.push(n, score);
+                    results.push(n, score);
+                    if (results.size() > ef)
+                        results.pop();
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * This method returns distance between query and stored vector, lower is closer
+     */
+    protected double distance(float[] query, int offset, float norm, int id) {
+        float[] vectors = page(id);
+        int other = offset(id);
+        switch (metric) {
+            case EUCLIDEAN: {
+                double sum = 0.0;
+                for (int e = 0; e < dimension; e++) {
+                    double diff = query[offset + e] - vectors[other + e];
+                    sum += diff * diff;
+                }
+                return Math.sqrt(sum);
+            }
+            case MANHATTAN: {
+                double sum = 0.0;
+                for (int e = 0; e < dimension; e++)
+                    sum += Math.abs(query[offset + e] - vectors[other + e]);
+                return sum;
+            }
+            case COSINE_DISTANCE:
+                return 1.0 - TopKSearch.cosine(dot(query, offset, vectors, other), norm, norms[id]);
+            case COSINE_SIMILARITY:
+                return -TopKSearch.cosine(dot(query, offset, vectors, other), norm, norms[id]);
+            case DOT_PRODUCT:
+                return -dot(query, offset, vectors, other);
+            default:
+                throw new ND4JIllegalStateException("Unknown metric: " + metric);
+        }
+    }
+
+    private double dot(float[] query, int offset, float[] vectors, int other) {
+        double sum = 0.0;
+        for (int e = 0; e < dimension; e++)
+            sum += (double) query[offset + e] * vectors[other + e];
+        return sum;
+    }
+
+    private float norm(float[] source, int offset) {
+        double sum = 0.0;
+        for (int e = 0; e < dimension; e++)
+            sum += (double) source[offset + e] * source[offset + e];
+        return (float) Math.sqrt(sum);
+    }
+
+    /**
+     * This method returns page holding given vector
+     */
+    private float[] page(int id) {
+        return pages[id / pageVectors];
+    }
+
+    /**
+     * This method returns offset of given vector within its page
+     */
+    private int offset(int id) {
+        return (id % pageVectors) * dimension;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > levels.length) {
+            // growth is computed in long, so it doesn't overflow near Integer.MAX_VALUE
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8,
+                            Math.max((long) required, Math.max(16L, levels.length * 2L)));
+            if (capacity < required)
+                throw new ND4JIllegalStateException("HnswIndex can't hold " + required + " vectors");
+
+            norms = Arrays.copyOf(norms, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+
+        // pages are allocated one at a time, full-sized ones are never copied
+        int requiredPages = (int) (((long) required + pageVectors - 1) / pageVectors);
+        if (requiredPages > pages.length)
+            pages = Arrays.copyOf(pages, Math.max(requiredPages, pages.length * 2));
+
+        for (int p = requiredPages - 1; p >= 0 && pages[p] == null; p--)
+            pages[p] = new float[pageVectors * dimension];
+    }
+
+    private void checkMatrix(INDArray matrix) {
+        if (matrix.rank() != 2 || matrix.columns() != dimension)
+            throw new ND4JIllegalStateException("Expected matrix with " + dimension + " columns, but got shape "
+                            + Arrays.toString(matrix.shape()));
+    }
+
+    protected static float[] toFloats(INDArray array) {
+        if (array.isView() || array.ordering() != 'c')
+            array = array.dup('c');
+
+        return array.data().asFloat();
+    }
+
+    private static void sortByScore(int[] ids, double[] scores) {
+        // insertion sort: arrays are up to 2 * M + 1 long, and almost sorted
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            double score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] > score) {
+                ids[j + 1] = ids[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * This method saves index to given file. Vectors are stored via BinarySerde, as one matrix per storage page,
+     * graph is stored as plain ints.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(@NonNull File file) throws IOException {
+        lock.readLock().lock();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            DataOutputStream header = new DataOutputStream(new BufferedOutputStream(fos));
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(dimension);
+            header.writeInt(metric.ordinal());
+            header.writeInt(m);
+            header.writeInt(efConstruction);
+            header.writeInt(ef);
+            header.writeInt(size);
+            header.writeInt(entryPoint);
+            header.writeInt(maxLevel);
+            header.flush();
+
+            for (int first = 0; first < size; first += pageVectors) {
+                int rows = Math.min(pageVectors, size - first);
+                BinarySerde.writeArrayToChannel(Nd4j.create(Arrays.copyOf(page(first), rows * dimension),
+                                new int[] {rows, dimension}, 'c'), fos.getChannel());
+            }
+
+            DataOutputStream graph = new DataOutputStream(new BufferedOutputStream(fos));
+            for (int i = 0; i < size; i++) {
+                graph.writeInt(levels[i]);
+                for (int l = 0; l <= levels[i]; l++) {
+                    int[] nodeLinks = links[i][l];
+                    for (int e = 0; e <= nodeLinks[0]; e++)
+                        graph.writeInt(nodeLinks[e]);
+                }
+            }
+            graph.flush();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method restores index saved with save() method
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static HnswIndex load(@NonNull File file) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file)) {
+            // not buffered, so channel position stays right after header
+            DataInputStream header = new DataInputStream(fis);
+            if (header.readInt() != MAGIC)
+                throw new IOException("File [" + file + "] doesn't contain HnswIndex");
+
+            int version = header.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported HnswIndex version: " + version);
+
+            int dimension = header.readInt();
+            DistanceMetric metric = DistanceMetric.values()[header.readInt()];
+            int m = header.readInt();
+            int efConstruction = header.readInt();
+
+            HnswIndex index = new HnswIndex(dimension, metric, m, efConstruction);
+            index.ef = header.readInt();
+
+            int size = header.readInt();
+            int entryPoint = header.readInt();
+            int maxLevel = header.readInt();
+
+            index.ensureCapacity(size);
+            // matrices are copied row by row, since saved page size doesn't have to match ours
+            for (int restored = 0; restored < size;) {
+                INDArray matrix = BinarySerde.readFromChannel(fis.getChannel());
+                float[] data = toFloats(matrix);
+                for (int r = 0; r < matrix.rows() && restored < size; r++, restored++)
+                    System.arraycopy(data, r * dimension, index.page(restored), index.offset(restored), dimension);
+            }
+
+            DataInputStream graph = new DataInputStream(new BufferedInputStream(fis));
+            for (int i = 0; i < size; i++) {
+                int level = graph.readInt();
+                index.levels[i] = level;
+                index.links[i] = new int[level + 1][];
+                for (int l = 0; l <= level; l++) {
+                    int count = graph.readInt();
+                    int[] nodeLinks = new int[1 + Math.max(count, l == 0 ? index.maxM0 : m)];
+                    nodeLinks[0] = count;
+                    for (int e = 1; e <= count; e++)
+                        nodeLinks[e] = graph.readInt();
+
+                    index.links[i][l] = nodeLinks;
+                }
+
+                index.norms[i] = index.norm(index.page(i), index.offset(i));
+            }
+
+            index.size = size;
+            index.entryPoint = entryPoint;
+            index.maxLevel = maxLevel;
+            return index;
+        }
+    }
+
+    /**
+     * Binary heap of (id, score) pairs, either min- or max-ordered by score
+     */
+    protected static class Heap {
+        private final boolean max;
+        private int[] ids = new int[16];
+        private double[] scores = new double[16];
+        private int size;
+
+        protected Heap(boolean max) {
+            this.max = max;
+        }
+
+        protected int size() {
+            return size;
+        }
+
+        protected double peekScore() {
+            return scores[0];
+        }
+
+        protected void push(int id, double score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+
+            int pos = size++;
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!before(score, scores[parent]))
+                    break;
+
+                ids[pos] = ids[parent];
+                scores[pos] = scores[parent];
+                pos = parent;
+            }
+            ids[pos] = id;
+            scores[pos] = score;
+        }
+
+        protected int pop() {
+            int result = ids[0];
+            size--;
+
+            int id = ids[size];
+            double score = scores[size];
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size)
+                    break;
+
+                if (child + 1 < size && before(scores[child + 1], scores[child]))
+                    child++;
+
+                if (!before(scores[child], score))
+                    break;
+
+                ids[pos] = ids[child];
+                scores[pos] = scores[child];
+                pos = child;
+            }
+            ids[pos] = id;
+            scores[pos] = score;
+
+            return result;
+        }
+
+        private boolean before(double a, double b) {
+            return max ? a > b : a < b;
+        }
+    }
+
+    /**
+     * Per-thread visited marks, reset in O(1) by bumping the stamp
+     */
+    protected static class VisitedSet {
+        private int[] marks = new int[0];
+        private int stamp = 0;
+
+        protected void reset(int size) {
+            if (marks.length < size)
+                marks = new int[Math.max(size, marks.length * 2)];
+
+            stamp++;
+            if (stamp == 0) {
+                Arrays.fill(marks, 0);
+                stamp = 1;
+            }
+        }
+
+        /**
+         * This method marks element as visited, and returns FALSE if it was visited already
+         */
+        protected boolean visit(int id) {
+            if (marks[id] == stamp)
+                return false;
+
+            marks[id] = stamp;
+            return true;
+        }
+    }
+}
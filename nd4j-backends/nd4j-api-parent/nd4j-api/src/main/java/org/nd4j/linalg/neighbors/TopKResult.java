@@ -0,0 +1,29 @@
+package org.nd4j.linalg.neighbors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * Result of nearest neighbours search: for each query row there's a row of k indices of index rows,
+ * and row of k distances (or similarities) to them, closest first.
+ *
+ * Indices are kept as ints, so they're exact regardless of global data type.
+ */
+@Data
+@AllArgsConstructor
+public class TopKResult {
+    private int[][] indices;
+    private INDArray distances;
+
+    /**
+     * This method returns index row found at given position for given query
+     *
+     * @param query query row
+     * @param position position in result, 0 is the closest one
+     * @return
+     */
+    public int getIndex(int query, int position) {
+        return indices[query][position];
+    }
+}
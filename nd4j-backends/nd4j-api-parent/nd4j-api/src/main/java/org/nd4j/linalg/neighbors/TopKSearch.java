@@ -0,0 +1,294 @@
+package org.nd4j.linalg.neighbors;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.BlockExecutor;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.Arrays;
+
+/**
+ * Exact (brute force) top-k nearest neighbours search over rows of index matrix.
+ *
+ * Distances are computed blockwise, via GEMM: each block of queries is multiplied by each block of index rows,
+ * and results are merged into bounded per-query heaps. So memory used is proportional to block sizes, and full
+ * queries x index distance matrix is never materialized. Query blocks are processed in parallel.
+ *
+ * Euclidean distances are derived from dot products as sqrt(|q|^2 + |x|^2 - 2 * q·x), cosine ones use row norms,
+ * and norms of index rows are computed once, so single TopKSearch instance should be reused for multiple searches.
+ */
+public class TopKSearch {
+    public static final int DEFAULT_QUERY_BLOCK = 256;
+    public static final int DEFAULT_INDEX_BLOCK = 4096;
+
+    @Getter
+    private final INDArray index;
+    @Getter
+    private final DistanceMetric metric;
+    private final double[] indexNorms;
+
+    @Getter
+    private int queryBlockSize = DEFAULT_QUERY_BLOCK;
+    @Getter
+    private int indexBlockSize = DEFAULT_INDEX_BLOCK;
+
+    /**
+     * @param index matrix, each row of which is a vector to be searched
+     * @param metric
+     */
+    public TopKSearch(@NonNull INDArray index, @NonNull DistanceMetric metric) {
+        if (index.rank() != 2)
+            throw new ND4JIllegalStateException("Index should be a matrix, but has rank " + index.rank());
+
+        if (metric == DistanceMetric.MANHATTAN)
+            throw new ND4JIllegalStateException("Manhattan distance can't be computed via GEMM");
+
+        this.index = index;
+        this.metric = metric;
+
+        if (metric == DistanceMetric.DOT_PRODUCT) {
+            this.indexNorms = null;
+        } else {
+            INDArray norms = index.mul(index).sum(1);
+            this.indexNorms = new double[index.rows()];
+            for (int i = 0; i < indexNorms.length; i++)
+                indexNorms[i] = metric == DistanceMetric.EUCLIDEAN ? norms.getDouble(i) : Math.sqrt(norms.getDouble(i));
+        }
+    }
+
+    /**
+     * This method sets number of query rows processed as a single block (and single task)
+     *
+     * @param queryBlockSize
+     * @return
+     */
+    public TopKSearch setQueryBlockSize(int queryBlockSize) {
+        if (queryBlockSize < 1)
+            throw new ND4JIllegalStateException("Block size should be positive");
+
+        this.queryBlockSize = queryBlockSize;
+        return this;
+    }
+
+    /**
+     * This method sets number of index rows multiplied by query block at once.
+     * Temporary memory used per query block is queryBlockSize * indexBlockSize elements.
+     *
+     * @param indexBlockSize
+     * @return
+     */
+    public TopKSearch setIndexBlockSize(int indexBlockSize) {
+        if (indexBlockSize < 1)
+            throw new ND4JIllegalStateException("Block size should be positive");
+
+        this.indexBlockSize = indexBlockSize;
+        return this;
+    }
+
+    /**
+     * This method returns k nearest index rows for each of query rows
+     *
+     * @param queries matrix, with the same number of columns as index
+     * @param k
+     * @return
+     */
+    public TopKResult search(@NonNull final INDArray queries, final int k) {
+        if (queries.rank() != 2 || queries.columns() != index.columns())
+            throw new ND4JIllegalStateException("Queries should be a matrix with " + index.columns()
+                            + " columns, but has shape " + Arrays.toString(queries.shape()));
+
+        if (k < 1 || k > index.rows())
+            throw new ND4JIllegalStateException("K should be in range [1, " + index.rows() + "], but was " + k);
+
+        final int numQueries = queries.rows();
+        final int[][] resultIndices = new int[numQueries][k];
+        final double[] resultDistances = new double[numQueries * k];
+
+        int numBlocks = (numQueries + queryBlockSize - 1) / queryBlockSize;
+        BlockExecutor.execute(numBlocks, new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) throws Exception {
+                int start = block * queryBlockSize;
+                int end = Math.min(numQueries, start + queryBlockSize);
+                searchBlock(queries, start, end, k, resultIndices, resultDistances);
+            }
+        });
+
+        return new TopKResult(resultIndices, Nd4j.create(resultDistances, new int[] {numQueries, k}));
+    }
+
+    protected void searchBlock(INDArray queries, int start, int end, int k, int[][] resultIndices,
+                    double[] resultDistances) {
+        int rows = end - start;
+        INDArray queryBlock = queries.get(NDArrayIndex.interval(start, end), NDArrayIndex.all());
+
+        double[] queryNorms = null;
+        if (indexNorms != null) {
+            INDArray norms = queryBlock.mul(queryBlock).sum(1);
+            queryNorms = new double[rows];
+            for (int i = 0; i < rows; i++)
+                queryNorms[i] = metric == DistanceMetric.EUCLIDEAN ? norms.getDouble(i) : Math.sqrt(norms.getDouble(i));
+        }
+
+        BoundedHeap[] heaps = new BoundedHeap[rows];
+        for (int i = 0; i < rows; i++)
+            heaps[i] = new BoundedHeap(k);
+
+        int indexRows = index.rows();
+        double[] values = null;
+        float[] floats = null;
+        for (int iStart = 0; iStart < indexRows; iStart += indexBlockSize) {
+            int iEnd = Math.min(indexRows, iStart + indexBlockSize);
+            INDArray indexBlock = index.get(NDArrayIndex.interval(iStart, iEnd), NDArrayIndex.all());
+
+            INDArray dots = queryBlock.mmul(indexBlock.transpose());
+            if (dots.isView())
+                dots = dots.dup();
+
+            int columns = iEnd - iStart;
+            int length = rows * columns;
+            boolean cOrder = dots.ordering() == 'c';
+
+            // whole block is copied to heap at once, instead of one DataBuffer call per element
+            DataBuffer buffer = dots.data();
+            if (values == null || values.length < length)
+                values = new double[length];
+
+            if (buffer.dataType() == DataBuffer.Type.DOUBLE) {
+                buffer.asNioDouble().get(values, 0, length);
+            } else if (buffer.dataType() == DataBuffer.Type.FLOAT) {
+                if (floats == null || floats.length < length)
+                    floats = new float[length];
+
+                buffer.asNioFloat().get(floats, 0, length);
+                for (int e = 0; e < length; e++)
+                    values[e] = floats[e];
+            } else {
+                System.arraycopy(buffer.asDouble(), 0, values, 0, length);
+            }
+
+            for (int q = 0; q < rows; q++) {
+                BoundedHeap heap = heaps[q];
+                for (int c = 0; c < columns; c++) {
+                    double dot = values[cOrder ? q * columns + c : c * rows + q];
+                    heap.offer(iStart + c, score(dot, queryNorms == null ? 0 : queryNorms[q], iStart + c));
+                }
+            }
+        }
+
+        for (int q = 0; q < rows; q++) {
+            int offset = (start + q) * k;
+            heaps[q].drainSorted(resultIndices[start + q], resultDistances, offset);
+
+            // heap keeps everything as "lower is closer", so similarities are restored here
+            if (metric.isSimilarity())
+                for (int e = 0; e < k; e++)
+                    resultDistances[offset + e] = -resultDistances[offset + e];
+        }
+    }
+
+    /**
+     * This method converts dot product to distance, lower is closer
+     */
+    protected double score(double dot, double queryNorm, int indexRow) {
+        switch (metric) {
+            case EUCLIDEAN:
+                return Math.sqrt(Math.max(0.0, queryNorm + indexNorms[indexRow] - 2 * dot));
+            case COSINE_DISTANCE:
+                return 1.0 - cosine(dot, queryNorm, indexNorms[indexRow]);
+            case COSINE_SIMILARITY:
+                return -cosine(dot, queryNorm, indexNorms[indexRow]);
+            case DOT_PRODUCT:
+                return -dot;
+            default:
+                throw new ND4JIllegalStateException("Unknown metric: " + metric);
+        }
+    }
+
+    protected static double cosine(double dot, double norm1, double norm2) {
+        double denominator = norm1 * norm2;
+        return denominator == 0.0 ? 0.0 : dot / denominator;
+    }
+
+    /**
+     * Max-heap of fixed capacity, holding k entries with lowest scores seen so far
+     */
+    protected static class BoundedHeap {
+        private final int[] indices;
+        private final double[] scores;
+        private int size;
+
+        protected BoundedHeap(int capacity) {
+            this.indices = new int[capacity];
+            this.scores = new double[capacity];
+        }
+
+        protected void offer(int idx, double score) {
+            if (size < scores.length) {
+                indices[size] = idx;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (score < scores[0]) {
+                indices[0] = idx;
+                scores[0] = score;
+                siftDown(0, size);
+            }
+        }
+
+        private void siftUp(int pos) {
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (scores[parent] >= scores[pos])
+                    break;
+
+                swap(pos, parent);
+                pos = parent;
+            }
+        }
+
+        private void siftDown(int pos, int length) {
+            while (true) {
+                int left = 2 * pos + 1;
+                if (left >= length)
+                    break;
+
+                int largest = left + 1 < length && scores[left + 1] > scores[left] ? left + 1 : left;
+                if (scores[pos] >= scores[largest])
+                    break;
+
+                swap(pos, largest);
+                pos = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int ti = indices[a];
+            indices[a] = indices[b];
+            indices[b] = ti;
+
+            double ts = scores[a];
+            scores[a] = scores[b];
+            scores[b] = ts;
+        }
+
+        /**
+         * This method writes entries in ascending score order, and empties the heap.
+         * Indices are written from the start of targetIndices, scores from given offset of targetScores.
+         */
+        protected void drainSorted(int[] targetIndices, double[] targetScores, int offset) {
+            for (int e = size - 1; e >= 0; e--) {
+                targetIndices[e] = indices[0];
+                targetScores[offset + e] = scores[0];
+
+                indices[0] = indices[e];
+                scores[0] = scores[e];
+                siftDown(0, e);
+            }
+            size = 0;
+        }
+    }
+}
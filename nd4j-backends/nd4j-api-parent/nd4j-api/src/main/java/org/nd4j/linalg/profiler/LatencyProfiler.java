@@ -0,0 +1,278 @@
+package org.nd4j.linalg.profiler;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.Op;
+import org.nd4j.linalg.profiler.data.LatencySnapshot;
+import org.nd4j.linalg.profiler.data.primitives.LatencyHistogram;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Low-overhead op latency profiler, suitable for production use.
+ *
+ * Each thread records into its own set of latency histograms, keyed by op name and shape class (rank and length rounded
+ * up to power of two), so there's no shared state updated on op calls. Histograms of all threads are merged on demand,
+ * into LatencySnapshot.
+ *
+ * By default every op call is recorded, use setSampleRate() to record only 1 of every N calls per thread.
+ *
+ * PLEASE NOTE: Data recorded by threads that are already finished is folded into shared histograms, and kept until
+ * reset() call.
+ */
+@Slf4j
+public class LatencyProfiler {
+    private static final LatencyProfiler INSTANCE = new LatencyProfiler();
+
+    protected static final int MAX_RANK = 7;
+    protected static final int SHAPE_CLASSES = (MAX_RANK + 1) * 64;
+
+    private volatile int sampleRate = 1;
+
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+
+    // histograms of finished threads, guarded by itself
+    private final Map<String, Map<String, LatencyHistogram>> retired = new HashMap<>();
+    private int retiredThreads = 0;
+
+    private final ThreadLocal<Recorder> recorder = new ThreadLocal<Recorder>() {
+        @Override
+        protected Recorder initialValue() {
+            prune();
+
+            Recorder r = new Recorder(Thread.currentThread());
+            recorders.add(r);
+            return r;
+        }
+    };
+
+    public static LatencyProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    protected LatencyProfiler() {
+
+    }
+
+    /**
+     * This method sets profiler to record 1 of every N op calls, per thread
+     *
+     * @param sampleRate N, 1 means every call is recorded
+     */
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate < 1)
+            throw new IllegalArgumentException("Sample rate should be positive");
+
+        this.sampleRate = sampleRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * This method tells if current op call should be timed. Calls that aren't sampled shouldn't be passed to timeOpCall()
+     *
+     * @return
+     */
+    public boolean shouldSample() {
+        int rate = sampleRate;
+        return rate == 1 || recorder.get().shouldSample(rate);
+    }
+
+    /**
+     * This method records op call, started at given time
+     *
+     * @param op
+     * @param timeStart result of System.nanoTime() taken before op call
+     */
+    public void timeOpCall(@NonNull Op op, long timeStart) {
+        long time = System.nanoTime() - timeStart;
+        INDArray array = op.x() != null ? op.x() : op.z();
+
+        recorder.get().record(op.opName(), getShapeClass(array), time);
+    }
+
+    /**
+     * This method records time for arbitrary named call, i.e. BLAS or custom op
+     *
+     * @param opName
+     * @param array array used to determine shape class, can be null
+     * @param time time in nanoseconds
+     */
+    public void record(@NonNull String opName, INDArray array, long time) {
+        recorder.get().record(opName, getShapeClass(array), time);
+    }
+
+    /**
+     * This method merges histograms of all threads
+     *
+     * @return
+     */
+    public LatencySnapshot snapshot() {
+        prune();
+
+        Map<String, Map<String, LatencyHistogram>> merged = new HashMap<>();
+        int threads;
+
+        synchronized (retired) {
+            for (Map.Entry<String, Map<String, LatencyHistogram>> entry : retired.entrySet())
+                for (Map.Entry<String, LatencyHistogram> classEntry : entry.getValue().entrySet())
+                    merge(merged, entry.getKey(), classEntry.getKey(), classEntry.getValue());
+
+            threads = retiredThreads;
+
+            // recorders can't be retired while we hold the lock, so nothing is counted twice
+            for (Recorder r : recorders) {
+                if (r.mergeInto(merged))
+                    threads++;
+            }
+        }
+
+        return new LatencySnapshot(System.currentTimeMillis(), threads, merged);
+    }
+
+    /**
+     * This method drops all recorded data
+     */
+    public void reset() {
+        prune();
+
+        synchronized (retired) {
+            retired.clear();
+            retiredThreads = 0;
+        }
+
+        for (Recorder r : recorders)
+            r.reset();
+    }
+
+    /**
+     * This method prints out merged histograms
+     */
+    public void printOutDashboard() {
+        LatencySnapshot snapshot = snapshot();
+        log.info("--- Op latencies, total calls: {}, threads: {} ---", snapshot.getTotalCount(),
+                        snapshot.getNumberOfThreads());
+        System.out.println(snapshot.asString());
+    }
+
+    /**
+     * This method folds histograms of finished threads into retired ones, so recorders don't pile up with thread churn
+     */
+    protected void prune() {
+        for (Recorder r : recorders) {
+            if (r.isAlive())
+                continue;
+
+            synchronized (retired) {
+                if (recorders.remove(r) && r.mergeInto(retired))
+                    retiredThreads++;
+            }
+        }
+    }
+
+    protected static void merge(Map<String, Map<String, LatencyHistogram>> merged, String opName, String shapeClass,
+                    LatencyHistogram source) {
+        Map<String, LatencyHistogram> map = merged.get(opName);
+        if (map == null) {
+            map = new HashMap<>();
+            merged.put(opName, map);
+        }
+
+        LatencyHistogram histogram = map.get(shapeClass);
+        if (histogram == null)
+            map.put(shapeClass, source.copy());
+        else
+            histogram.merge(source);
+    }
+
+    protected static int getShapeClass(INDArray array) {
+        if (array == null)
+            return 0;
+
+        long length = array.lengthLong();
+        int bits = length <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(length - 1);
+        return Math.min(array.rank(), MAX_RANK) * 64 + bits;
+    }
+
+    /**
+     * This method returns human-readable name of shape class: rank, and length upper bound
+     *
+     * @param shapeClass
+     * @return
+     */
+    public static String getShapeClassName(int shapeClass) {
+        int rank = shapeClass / 64;
+        return "rank" + (rank == MAX_RANK ? rank + "+" : String.valueOf(rank)) + "/2^" + (shapeClass % 64);
+    }
+
+    /**
+     * Per-thread histograms. Lock is taken by owner thread on every call, but it's contended only during snapshot.
+     */
+    protected static class Recorder {
+        private final Map<String, LatencyHistogram[]> histograms = new HashMap<>();
+        private final WeakReference<Thread> owner;
+
+        // touched by owner thread only
+        private int countdown = 0;
+
+        protected Recorder(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        protected boolean isAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        protected boolean shouldSample(int sampleRate) {
+            if (--countdown > 0)
+                return false;
+
+            countdown = sampleRate;
+            return true;
+        }
+
+        protected synchronized void record(String opName, int shapeClass, long time) {
+            LatencyHistogram[] classes = histograms.get(opName);
+            if (classes == null) {
+                classes = new LatencyHistogram[SHAPE_CLASSES];
+                histograms.put(opName, classes);
+            }
+
+            LatencyHistogram histogram = classes[shapeClass];
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                classes[shapeClass] = histogram;
+            }
+
+            histogram.record(time);
+        }
+
+        protected synchronized boolean mergeInto(Map<String, Map<String, LatencyHistogram>> merged) {
+            boolean hasData = false;
+            for (Map.Entry<String, LatencyHistogram[]> entry : histograms.entrySet()) {
+                LatencyHistogram[] classes = entry.getValue();
+                for (int i = 0; i < classes.length; i++) {
+                    if (classes[i] == null || classes[i].getCount() == 0)
+                        continue;
+
+                    merge(merged, entry.getKey(), getShapeClassName(i), classes[i]);
+                    hasData = true;
+                }
+            }
+
+            return hasData;
+        }
+
+        protected synchronized void reset() {
+            histograms.clear();
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package org.nd4j.linalg.profiler;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ops.Op;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampling variant of OpProfiler operands analysis, cheap enough to be left enabled in production.
+ *
+ * Only 1-in-N op calls (or one op call per time interval) is analyzed for PenaltyCause findings. Each sample carries
+ * weight equal to number of op calls since previous sample, so estimated counts are statistically comparable to full profile.
+ * Stack traces are captured only for samples with penalties, limited by depth, and by number of captures per second.
+ *
+ * Counters are kept per thread, and merged on demand. Counters of finished threads are folded into retired ones.
+ */
+@Slf4j
+public class SamplingProfiler {
+    private static final SamplingProfiler INSTANCE = new SamplingProfiler();
+
+    public static final int DEFAULT_SAMPLE_RATE = 1000;
+    public static final int DEFAULT_STACK_DEPTH = 8;
+    public static final int DEFAULT_STACK_CAPTURES_PER_SECOND = 10;
+
+    protected static final OpProfiler.PenaltyCause[] CAUSES = OpProfiler.PenaltyCause.values();
+
+    // frames of these packages are skipped, so captured stack starts at op call site
+    protected static final String[] INTERNAL_PACKAGES = {"org.nd4j.linalg.api.", "org.nd4j.linalg.factory.",
+                    "org.nd4j.linalg.profiler.", "org.nd4j.linalg.cpu.", "org.nd4j.linalg.jcublas."};
+
+    private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile long sampleInterval = 0;
+    private volatile int stackDepth = DEFAULT_STACK_DEPTH;
+    private volatile long stackCaptureInterval = 1000000000L / DEFAULT_STACK_CAPTURES_PER_SECOND;
+
+    private final AtomicLong nextStackCapture = new AtomicLong(System.nanoTime());
+    private final List<Recorder> recorders = new CopyOnWriteArrayList<>();
+
+    // counters of finished threads, guarded by itself
+    private final Recorder retired = new Recorder(null);
+
+    private final ThreadLocal<Recorder> recorder = new ThreadLocal<Recorder>() {
+        @Override
+        protected Recorder initialValue() {
+            prune();
+
+            Recorder r = new Recorder(Thread.currentThread());
+            recorders.add(r);
+            return r;
+        }
+    };
+
+    public static SamplingProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    protected SamplingProfiler() {
+
+    }
+
+    /**
+     * This method sets profiler to sample 1 of every N op calls, per thread
+     *
+     * @param sampleRate N
+     */
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate < 1)
+            throw new IllegalArgumentException("Sample rate should be positive");
+
+        this.sampleRate = sampleRate;
+        this.sampleInterval = 0;
+    }
+
+    /**
+     * This method sets profiler to sample one op call every given number of microseconds, per thread
+     *
+     * @param microseconds
+     */
+    public void setSampleInterval(long microseconds) {
+        if (microseconds < 1)
+            throw new IllegalArgumentException("Sample interval should be positive");
+
+        this.sampleInterval = microseconds * 1000L;
+    }
+
+    /**
+     * This method sets max number of stack frames captured per sample. 0 disables stack capture.
+     *
+     * @param stackDepth
+     */
+    public void setStackDepth(int stackDepth) {
+        if (stackDepth < 0)
+            throw new IllegalArgumentException("Stack depth can't be negative");
+
+        this.stackDepth = stackDepth;
+    }
+
+    /**
+     * This method sets max number of stack traces captured per second, across all threads
+     *
+     * @param captures
+     */
+    public void setStackCapturesPerSecond(int captures) {
+        if (captures < 1)
+            throw new IllegalArgumentException("Number of stack captures should be positive");
+
+        this.stackCaptureInterval = 1000000000L / captures;
+    }
+
+    /**
+     * This method tracks op calls
+     *
+     * @param op
+     * @param tadBuffers optional TAD shape buffers used by op
+     */
+    public void processOpCall(@NonNull Op op, DataBuffer... tadBuffers) {
+        Recorder r = recorder.get();
+        if (!r.shouldSample())
+            return;
+
+        List<OpProfiler.PenaltyCause> causes = new ArrayList<>();
+        if (op.x() != null && op.z() != null) {
+            for (OpProfiler.PenaltyCause cause : OpProfiler.getInstance().processOperands(op.x(), op.y(), op.z()))
+                causes.add(cause);
+        }
+
+        if (tadBuffers != null && tadBuffers.length > 0) {
+            for (OpProfiler.PenaltyCause cause : OpProfiler.getInstance().processTADOperands(tadBuffers))
+                if (!causes.contains(cause))
+                    causes.add(cause);
+        }
+
+        if (causes.size() > 1)
+            causes.remove(OpProfiler.PenaltyCause.NONE);
+        else if (causes.isEmpty())
+            causes.add(OpProfiler.PenaltyCause.NONE);
+
+        String site = null;
+        if (!(causes.size() == 1 && causes.get(0) == OpProfiler.PenaltyCause.NONE) && acquireStackCapture())
+            site = captureStack();
+
+        r.record(op.opName(), causes, site);
+    }
+
+    protected boolean acquireStackCapture() {
+        if (stackDepth == 0)
+            return false;
+
+        long now = System.nanoTime();
+        long next = nextStackCapture.get();
+        return now - next >= 0 && nextStackCapture.compareAndSet(next, now + stackCaptureInterval);
+    }
+
+    /**
+     * This method returns call site of op: up to stackDepth frames, starting at first frame outside of nd4j internals
+     */
+    protected String captureStack() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        StringBuilder builder = new StringBuilder();
+        int depth = 0;
+        for (int e = 0; e < stack.length && depth < stackDepth; e++) {
+            String className = stack[e].getClassName();
+            if (depth == 0 && isInternal(className))
+                continue;
+
+            if (depth > 0)
+                builder.append(" <- ");
+
+            builder.append(className).append("#").append(stack[e].getMethodName()).append(":")
+                            .append(stack[e].getLineNumber());
+            depth++;
+        }
+
+        return builder.toString();
+    }
+
+    protected static boolean isInternal(String className) {
+        for (String prefix : INTERNAL_PACKAGES)
+            if (className.startsWith(prefix))
+                return true;
+
+        return false;
+    }
+
+    /**
+     * This method returns total number of op calls seen by profiler.
+     *
+     * PLEASE NOTE: Calls of other running threads are visible as of their last sampled call
+     * @return
+     */
+    public long getTotalCount() {
+        prune();
+
+        // recorders can't be retired while we hold the lock, so nothing is counted twice
+        synchronized (retired) {
+            long count = retired.getTotal();
+            for (Recorder r : recorders)
+                count += r.getTotal();
+
+            return count;
+        }
+    }
+
+    /**
+     * This method returns number of op calls actually analyzed
+     * @return
+     */
+    public long getSampledCount() {
+        prune();
+
+        synchronized (retired) {
+            long count = retired.getSampled();
+            for (Recorder r : recorders)
+                count += r.getSampled();
+
+            return count;
+        }
+    }
+
+    /**
+     * This method returns estimated number of op calls with given penalty
+     *
+     * @param cause
+     * @return
+     */
+    public long getEstimatedCount(@NonNull OpProfiler.PenaltyCause cause) {
+        return getWeight(null, cause);
+    }
+
+    /**
+     * This method returns estimated number of calls of given op with given penalty
+     *
+     * @param opName
+     * @param cause
+     * @return
+     */
+    public long getEstimatedCount(@NonNull String opName, @NonNull OpProfiler.PenaltyCause cause) {
+        return getWeight(opName, cause);
+    }
+
+    protected long getWeight(String opName, OpProfiler.PenaltyCause cause) {
+        prune();
+
+        synchronized (retired) {
+            long count = retired.getWeight(opName, cause);
+            for (Recorder r : recorders)
+                count += r.getWeight(opName, cause);
+
+            return count;
+        }
+    }
+
+    /**
+     * This method returns call sites with given penalty, along with estimated number of calls, sorted by that number
+     *
+     * @param cause
+     * @return
+     */
+    public Map<String, Long> getHotSpots(@NonNull OpProfiler.PenaltyCause cause) {
+        prune();
+
+        Map<String, Long> merged = new HashMap<>();
+        synchronized (retired) {
+            retired.mergeSites(cause, merged);
+            for (Recorder r : recorders)
+                r.mergeSites(cause, merged);
+        }
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(merged.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+                return Long.compare(o2.getValue(), o1.getValue());
+            }
+        });
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries)
+            result.put(entry.getKey(), entry.getValue());
+
+        return result;
+    }
+
+    /**
+     * This method drops all recorded data
+     */
+    public void reset() {
+        prune();
+
+        retired.reset();
+        for (Recorder r : recorders)
+            r.reset();
+    }
+
+    /**
+     * This method folds counters of finished threads into retired ones, so recorders don't pile up with thread churn
+     */
+    protected void prune() {
+        for (Recorder r : recorders) {
+            if (r.isAlive())
+                continue;
+
+            synchronized (retired) {
+                if (recorders.remove(r))
+                    r.mergeInto(retired);
+            }
+        }
+    }
+
+    /**
+     * This method prints out estimated penalties, and top call sites for each of them
+     */
+    public void printOutDashboard() {
+        log.info("--- Sampled op calls: {} of {} ---", getSampledCount(), getTotalCount());
+        for (OpProfiler.PenaltyCause cause : CAUSES) {
+            if (cause == OpProfiler.PenaltyCause.NONE)
+                continue;
+
+            log.info("--- {}: ~{} calls ---", cause, getEstimatedCount(cause));
+
+            int cnt = 0;
+            for (Map.Entry<String, Long> entry : getHotSpots(cause).entrySet()) {
+                if (cnt++ >= 10)
+                    break;
+
+                System.out.println("    ~" + entry.getValue() + "  " + entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Per-thread counters. Lock is taken by owner thread only for sampled calls, and it's contended only while reading.
+     */
+    protected class Recorder {
+        private final WeakReference<Thread> owner;
+
+        // these two are touched by owner thread only
+        private long countdown = 0;
+        private long lastSample = System.nanoTime();
+
+        // written by owner thread without lock on every call, other threads see it as of owner's last sampled call
+        private long total;
+        private long sampled;
+        private long weight;
+
+        private final long[] causeWeights = new long[CAUSES.length];
+        private final Map<String, long[]> opWeights = new HashMap<>();
+        private final Map<String, Long>[] sites;
+
+        @SuppressWarnings("unchecked")
+        protected Recorder(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+            sites = new Map[CAUSES.length];
+            for (int i = 0; i < sites.length; i++)
+                sites[i] = new HashMap<>();
+        }
+
+        protected boolean isAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        protected boolean shouldSample() {
+            weight++;
+            total++;
+
+            long interval = sampleInterval;
+            if (interval > 0) {
+                long now = System.nanoTime();
+                if (now - lastSample < interval)
+                    return false;
+
+                lastSample = now;
+                return true;
+            }
+
+            if (--countdown > 0)
+                return false;
+
+            countdown = sampleRate;
+            return true;
+        }
+
+        protected synchronized void record(String opName, List<OpProfiler.PenaltyCause> causes, String site) {
+            long w = weight;
+            weight = 0;
+            sampled++;
+
+            long[] ops = opWeights.get(opName);
+            if (ops == null) {
+                ops = new long[CAUSES.length];
+                opWeights.put(opName, ops);
+            }
+
+            for (OpProfiler.PenaltyCause cause : causes) {
+                causeWeights[cause.ordinal()] += w;
+                ops[cause.ordinal()] += w;
+
+                if (site != null && cause != OpProfiler.PenaltyCause.NONE) {
+                    Long current = sites[cause.ordinal()].get(site);
+                    sites[cause.ordinal()].put(site, current == null ? w : current + w);
+                }
+            }
+        }
+
+        protected synchronized long getTotal() {
+            return total;
+        }
+
+        protected synchronized long getSampled() {
+            return sampled;
+        }
+
+        protected synchronized long getWeight(String opName, OpProfiler.PenaltyCause cause) {
+            if (opName == null)
+                return causeWeights[cause.ordinal()];
+
+            long[] ops = opWeights.get(opName);
+            return ops == null ? 0L : ops[cause.ordinal()];
+        }
+
+        protected synchronized void mergeSites(OpProfiler.PenaltyCause cause, Map<String, Long> merged) {
+            for (Map.Entry<String, Long> entry : sites[cause.ordinal()].entrySet()) {
+                Long current = merged.get(entry.getKey());
+                merged.put(entry.getKey(), current == null ? entry.getValue() : current + entry.getValue());
+            }
+        }
+
+        /**
+         * This method adds counters of this recorder to given one. Calls since last sample are only added to total.
+         */
+        protected synchronized void mergeInto(Recorder target) {
+            synchronized (target) {
+                target.total += total;
+                target.sampled += sampled;
+                for (int i = 0; i < CAUSES.length; i++) {
+                    target.causeWeights[i] += causeWeights[i];
+                    for (Map.Entry<String, Long> entry : sites[i].entrySet()) {
+                        Long current = target.sites[i].get(entry.getKey());
+                        target.sites[i].put(entry.getKey(),
+                                        current == null ? entry.getValue() : current + entry.getValue());
+                    }
+                }
+
+                for (Map.Entry<String, long[]> entry : opWeights.entrySet()) {
+                    long[] ops = target.opWeights.get(entry.getKey());
+                    if (ops == null) {
+                        ops = new long[CAUSES.length];
+                        target.opWeights.put(entry.getKey(), ops);
+                    }
+
+                    for (int i = 0; i < CAUSES.length; i++)
+                        ops[i] += entry.getValue()[i];
+                }
+            }
+        }
+
+        protected synchronized void reset() {
+            total = 0;
+            sampled = 0;
+            weight = 0;
+            countdown = 0;
+            for (int i = 0; i < CAUSES.length; i++) {
+                causeWeights[i] = 0;
+                sites[i].clear();
+            }
+            opWeights.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.nd4j.linalg.profiler.data;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.linalg.profiler.data.primitives.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Point-in-time copy of latency histograms gathered by LatencyProfiler, merged across all threads.
+ *
+ * Histograms are grouped by op name, and then by shape class.
+ */
+public class LatencySnapshot {
+    @Getter
+    private final long timestamp;
+    @Getter
+    private final int numberOfThreads;
+
+    private final Map<String, Map<String, LatencyHistogram>> histograms;
+
+    public LatencySnapshot(long timestamp, int numberOfThreads,
+                    @NonNull Map<String, Map<String, LatencyHistogram>> histograms) {
+        this.timestamp = timestamp;
+        this.numberOfThreads = numberOfThreads;
+        this.histograms = histograms;
+    }
+
+    /**
+     * This method returns names of all ops recorded
+     * @return
+     */
+    public Set<String> getOpNames() {
+        return Collections.unmodifiableSet(histograms.keySet());
+    }
+
+    /**
+     * This method returns shape classes recorded for given op
+     *
+     * @param opName
+     * @return
+     */
+    public Set<String> getShapeClasses(@NonNull String opName) {
+        Map<String, LatencyHistogram> map = histograms.get(opName);
+        return map == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(map.keySet());
+    }
+
+    /**
+     * This method returns histogram for given op and shape class, or null if there were no such calls
+     *
+     * @param opName
+     * @param shapeClass
+     * @return
+     */
+    public LatencyHistogram getHistogram(@NonNull String opName, @NonNull String shapeClass) {
+        Map<String, LatencyHistogram> map = histograms.get(opName);
+        return map == null ? null : map.get(shapeClass);
+    }
+
+    /**
+     * This method returns histogram for given op, merged over all shape classes
+     *
+     * @param opName
+     * @return
+     */
+    public LatencyHistogram getHistogram(@NonNull String opName) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Map<String, LatencyHistogram> map = histograms.get(opName);
+        if (map != null)
+            for (LatencyHistogram h : map.values())
+                histogram.merge(h);
+
+        return histogram;
+    }
+
+    /**
+     * This method returns total number of op calls recorded
+     * @return
+     */
+    public long getTotalCount() {
+        long count = 0;
+        for (Map<String, LatencyHistogram> map : histograms.values())
+            for (LatencyHistogram h : map.values())
+                count += h.getCount();
+
+        return count;
+    }
+
+    public String asString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Map<String, LatencyHistogram>> op : new TreeMap<>(histograms).entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(op.getValue()).entrySet()) {
+                builder.append(String.format("%-30s %-16s %s%n", op.getKey(), entry.getKey(), entry.getValue()));
+            }
+        }
+
+        return builder.toString();
+    }
+}
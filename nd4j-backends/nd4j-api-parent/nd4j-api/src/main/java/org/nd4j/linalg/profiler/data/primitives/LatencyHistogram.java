@@ -0,0 +1,144 @@
+package org.nd4j.linalg.profiler.data.primitives;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear latency histogram, in the spirit of HdrHistogram.
+ *
+ * Values are grouped by power of two, and each power of two is split into 16 linear sub-buckets,
+ * so recorded values are preserved with ~6% relative precision over the whole long range, with constant memory footprint.
+ *
+ * PLEASE NOTE: This isn't thread-safe implementation, it's meant to be owned by single thread, and merged on demand.
+ */
+public class LatencyHistogram {
+    protected static final int SUB_BUCKET_BITS = 4;
+    protected static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    protected static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[NUM_BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    /**
+     * This method records single value
+     *
+     * @param value value, i.e. time in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+
+        if (value < min)
+            min = value;
+
+        if (value > max)
+            max = value;
+    }
+
+    /**
+     * This method adds all values recorded by other histogram into this one
+     *
+     * @param other
+     */
+    public void merge(LatencyHistogram other) {
+        if (other.count == 0)
+            return;
+
+        for (int i = 0; i < NUM_BUCKETS; i++)
+            counts[i] += other.counts[i];
+
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.merge(this);
+        return histogram;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMinimum() {
+        return count == 0 ? 0L : min;
+    }
+
+    public long getMaximum() {
+        return max;
+    }
+
+    public long getAverage() {
+        return count == 0 ? 0L : sum / count;
+    }
+
+    public long getMedian() {
+        return getPercentile(50.0);
+    }
+
+    /**
+     * This method returns value at given percentile, i.e. 99.9
+     *
+     * @param percentile percentile in range 0..100
+     * @return highest value equivalent to percentile bucket, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0)
+            return 0L;
+
+        long target = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target)
+                return Math.max(min, Math.min(max, highestEquivalentValue(i)));
+        }
+
+        return max;
+    }
+
+    protected static int bucketOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    protected static long highestEquivalentValue(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count: " + count + "; avg: " + getAverage() + " ns; p50: " + getPercentile(50.0) + " ns; p99: "
+                        + getPercentile(99.0) + " ns; p99.9: " + getPercentile(99.9) + " ns; max: " + max + " ns";
+    }
+}
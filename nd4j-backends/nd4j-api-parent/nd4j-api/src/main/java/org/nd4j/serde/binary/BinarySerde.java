@@ -3,7 +3,12 @@ package org.nd4j.serde.binary;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.primitives.Pair;
 import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.Pointer;
 import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
 import org.nd4j.linalg.api.concurrency.AffinityManager;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.shape.Shape;
@@ -11,14 +16,19 @@ import org.nd4j.linalg.compression.CompressedDataBuffer;
 import org.nd4j.linalg.compression.CompressionDescriptor;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.IntBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 
 /**
@@ -26,6 +36,11 @@ import java.util.Arrays;
  */
 @Slf4j
 public class BinarySerde {
+    /**
+     * Default chunk size used by {@link #writeArrayToChannel(INDArray, WritableByteChannel)}
+     * and {@link #readFromChannel(ReadableByteChannel)}
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
 
 
     /**
@@ -57,6 +72,17 @@ public class BinarySerde {
      * @return
      */
     public static Pair<INDArray, ByteBuffer> toArrayAndByteBuffer(ByteBuffer buffer, int offset) {
+        return toArrayAndByteBuffer(buffer, offset, true);
+    }
+
+    /**
+     * Create an ndarray and existing bytebuffer
+     * @param buffer
+     * @param offset
+     * @param dup if false, resulting array will be backed by given buffer directly
+     * @return
+     */
+    public static Pair<INDArray, ByteBuffer> toArrayAndByteBuffer(ByteBuffer buffer, int offset, boolean dup) {
         ByteBuffer byteBuffer = buffer == null ? ByteBuffer.allocateDirect(buffer.array().length).put(buffer.array())
                         .order(ByteOrder.nativeOrder()) : buffer.order(ByteOrder.nativeOrder());
         //bump the byte buffer to the proper position
@@ -84,8 +110,7 @@ public class BinarySerde {
             int position = byteBuffer.position() + (buff.getElementSize() * (int) buff.length());
             byteBuffer.position(position);
             //create the final array
-            //TODO: see how to avoid dup here
-            INDArray arr = Nd4j.createArrayFromShapeBuffer(buff.dup(), shapeBuff.dup());
+            INDArray arr = Nd4j.createArrayFromShapeBuffer(dup ? buff.dup() : buff, shapeBuff.dup());
             return Pair.of(arr, byteBuffer);
         } else {
             CompressionDescriptor compressionDescriptor = CompressionDescriptor.fromByteBuffer(byteBuffer);
@@ -95,8 +120,8 @@ public class BinarySerde {
             //create a compressed array based on the rest of the data left in the buffer
             CompressedDataBuffer compressedDataBuffer =
                             new CompressedDataBuffer(byteBufferPointer, compressionDescriptor);
-            //TODO: see how to avoid dup()
-            INDArray arr = Nd4j.createArrayFromShapeBuffer(compressedDataBuffer.dup(), shapeBuff.dup());
+            INDArray arr = Nd4j.createArrayFromShapeBuffer(dup ? compressedDataBuffer.dup() : compressedDataBuffer,
+                            shapeBuff.dup());
             //advance past the data
             int compressLength = (int) compressionDescriptor.getCompressedLength();
             byteBuffer.position(byteBuffer.position() + compressLength);
@@ -246,8 +271,199 @@ public class BinarySerde {
     public static void writeArrayToDisk(INDArray arr, File toWrite) throws IOException {
         try (FileOutputStream os = new FileOutputStream(toWrite)) {
             FileChannel channel = os.getChannel();
-            ByteBuffer buffer = BinarySerde.toByteBuffer(arr);
+            writeArrayToChannel(arr, channel);
+        }
+    }
+
+
+    /**
+     * Write an ndarray to the given channel,
+     * using {@link #DEFAULT_CHUNK_SIZE} chunks
+     * @param arr the array to write
+     * @param channel the channel to write to
+     * @throws IOException
+     */
+    public static void writeArrayToChannel(INDArray arr, WritableByteChannel channel) throws IOException {
+        writeArrayToChannel(arr, channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Write an ndarray to the given channel.
+     * Output layout is the same as for {@link #toByteBuffer(INDArray)},
+     * but array data is written straight from its memory in chunks of chunkSize bytes,
+     * so no intermediate buffer is allocated and arrays larger than 2GB are supported.
+     *
+     * @param arr the array to write
+     * @param channel the channel to write to
+     * @param chunkSize max number of bytes passed to single channel write
+     * @throws IOException
+     */
+    public static void writeArrayToChannel(INDArray arr, WritableByteChannel channel, int chunkSize)
+                    throws IOException {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size should be positive");
+
+        //subset and get rid of 1 off non 1 element wise stride cases
+        if (arr.isView())
+            arr = arr.dup();
+
+        // ensure we send data to host memory
+        Nd4j.getExecutioner().commit();
+        Nd4j.getAffinityManager().ensureLocation(arr, AffinityManager.Location.HOST);
+
+        ByteBuffer shapeBuffer = arr.shapeInfoDataBuffer().pointer().asByteBuffer().order(ByteOrder.nativeOrder());
+        ByteBuffer header;
+        long dataLength;
+        if (!arr.isCompressed()) {
+            header = ByteBuffer.allocateDirect(8 + shapeBuffer.limit()).order(ByteOrder.nativeOrder());
+            header.putInt(arr.rank());
+            header.putInt(arr.data().dataType().ordinal());
+            header.put(shapeBuffer);
+            dataLength = arr.data().length() * arr.data().getElementSize();
+        } else {
+            CompressionDescriptor descriptor = ((CompressedDataBuffer) arr.data()).getCompressionDescriptor();
+            ByteBuffer codecByteBuffer = descriptor.toByteBuffer();
+            header = ByteBuffer.allocateDirect(8 + shapeBuffer.limit() + codecByteBuffer.limit())
+                            .order(ByteOrder.nativeOrder());
+            header.putInt(arr.rank());
+            header.putInt(arr.data().dataType().ordinal());
+            header.put(shapeBuffer);
+            header.put(codecByteBuffer);
+            dataLength = descriptor.getCompressedLength();
+        }
+        header.flip();
+        writeFully(channel, header);
+
+        BytePointer data = new PagedPointer(arr.data().addressPointer().address(), dataLength).asBytePointer();
+        for (long position = 0; position < dataLength; position += chunkSize) {
+            long limit = Math.min(position + chunkSize, dataLength);
+            writeFully(channel, data.position(position).limit(limit).asByteBuffer());
+        }
+    }
+
+    /**
+     * Read an ndarray from the given channel,
+     * using {@link #DEFAULT_CHUNK_SIZE} chunks
+     * @param channel the channel to read from
+     * @return the array read
+     * @throws IOException
+     */
+    public static INDArray readFromChannel(ReadableByteChannel channel) throws IOException {
+        return readFromChannel(channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Read an ndarray written by {@link #writeArrayToChannel(INDArray, WritableByteChannel, int)}
+     * or {@link #writeArrayToDisk(INDArray, File)} from the given channel.
+     * Data is read in chunks of chunkSize bytes directly into the memory of the resulting array.
+     *
+     * @param channel the channel to read from
+     * @param chunkSize max number of bytes requested by single channel read
+     * @return the array read
+     * @throws IOException
+     */
+    public static INDArray readFromChannel(ReadableByteChannel channel, int chunkSize) throws IOException {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size should be positive");
+
+        Header header = readHeader(channel);
+        long dataLength = header.dataLength;
+
+        DataBuffer buff;
+        switch (header.type) {
+            case DOUBLE:
+                buff = Nd4j.getDataBufferFactory().createDouble(header.length, false);
+                break;
+            case FLOAT:
+                buff = Nd4j.getDataBufferFactory().createFloat(header.length, false);
+                break;
+            case HALF:
+                buff = Nd4j.getDataBufferFactory().createHalf(header.length, false);
+                break;
+            case INT:
+                buff = Nd4j.getDataBufferFactory().createInt(header.length, false);
+                break;
+            case COMPRESSED:
+                buff = null;
+                break;
+            default:
+                throw new IllegalStateException("Unsupported data type: [" + header.type + "]");
+        }
+
+        BytePointer pointer = buff == null ? new BytePointer(dataLength) : null;
+        long address = buff == null ? pointer.address() : buff.addressPointer().address();
+        BytePointer data = new PagedPointer(address, dataLength).asBytePointer();
+        for (long position = 0; position < dataLength; position += chunkSize) {
+            long limit = Math.min(position + chunkSize, dataLength);
+            readFully(channel, data.position(position).limit(limit).asByteBuffer());
+        }
+
+        // compressed buffer is created once its payload is read, since block-wise compressed ones read block index from it
+        if (buff == null)
+            buff = new CompressedDataBuffer(pointer, header.compressionDescriptor);
+
+        return Nd4j.createArrayFromShapeBuffer(buff, header.shapeBuffer);
+    }
+
+    /**
+     * Array header written by {@link #writeArrayToChannel(INDArray, WritableByteChannel, int)}
+     */
+    private static class Header {
+        private DataBuffer.Type type;
+        private DataBuffer shapeBuffer;
+        // number of elements, for uncompressed arrays
+        private long length;
+        // only set for compressed arrays
+        private CompressionDescriptor compressionDescriptor;
+        // number of bytes of array data following the header
+        private long dataLength;
+    }
+
+    private static Header readHeader(ReadableByteChannel channel) throws IOException {
+        Header header = new Header();
+
+        ByteBuffer intro = ByteBuffer.allocateDirect(8).order(ByteOrder.nativeOrder());
+        readFully(channel, intro);
+        intro.flip();
+        int rank = intro.getInt();
+        if (rank < 0)
+            throw new IllegalStateException("Found negative integer. Corrupt serialization?");
+        header.type = DataBuffer.Type.values()[intro.getInt()];
+
+        int shapeBufferLength = Shape.shapeInfoLength(rank);
+        ByteBuffer shapeBuffer = ByteBuffer.allocateDirect(shapeBufferLength * 4).order(ByteOrder.nativeOrder());
+        readFully(channel, shapeBuffer);
+        shapeBuffer.flip();
+        header.shapeBuffer = Nd4j.createBufferDetached(new int[shapeBufferLength]);
+        for (int i = 0; i < shapeBufferLength; i++) {
+            header.shapeBuffer.put(i, shapeBuffer.getInt());
+        }
+
+        if (header.type != DataBuffer.Type.COMPRESSED) {
+            header.length = 1;
+            for (int i = 0; i < rank; i++)
+                header.length *= header.shapeBuffer.getInt(1 + i);
+            header.dataLength = header.length * Nd4j.sizeOfDataType(header.type);
+        } else {
+            ByteBuffer codecBuffer = ByteBuffer.allocateDirect(CompressionDescriptor.COMPRESSION_BYTE_BUFFER_LENGTH)
+                            .order(ByteOrder.nativeOrder());
+            readFully(channel, codecBuffer);
+            codecBuffer.flip();
+            header.compressionDescriptor = CompressionDescriptor.fromByteBuffer(codecBuffer);
+            header.dataLength = header.compressionDescriptor.getCompressedLength();
+        }
+        return header;
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
             channel.write(buffer);
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                throw new EOFException("Unexpected end of stream, " + buffer.remaining() + " bytes missing");
         }
     }
 
@@ -269,6 +485,101 @@ public class BinarySerde {
     }
 
 
+    /**
+     * Memory-map an ndarray from disk, without copying its data.
+     *
+     * The file is mapped with {@link FileChannel.MapMode#PRIVATE}, so pages come straight from the OS page cache
+     * (and are shared with other processes mapping the same file) until they are written to.
+     * Writes to the returned array are private to this process and never reach the file.
+     *
+     * PLEASE NOTE: Files larger than 2GB can't be mapped by java.nio, so they are mapped
+     * via {@link org.nd4j.linalg.memory.MemoryManager#mmapFile(File)} instead. That mapping is shared,
+     * so writes to the returned array reach the file, and it's only available on backends supporting it.
+     *
+     * @param readFrom file written earlier with {@link #writeArrayToDisk(INDArray, File)}
+     * @return array backed by mapped memory
+     * @throws IOException
+     */
+    public static INDArray readFromDiskMapped(File readFrom) throws IOException {
+        if (readFrom.length() > Integer.MAX_VALUE)
+            return readFromDiskMappedNative(readFrom);
+
+        try (RandomAccessFile file = new RandomAccessFile(readFrom, "r")) {
+            FileChannel channel = file.getChannel();
+            // mapping stays valid after channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, 0, readFrom.length());
+            INDArray ret = toArrayAndByteBuffer(buffer, 0, false).getLeft();
+            return ret;
+        }
+    }
+
+
+    /**
+     * Map an ndarray from disk via {@link org.nd4j.linalg.memory.MemoryManager#mmapFile(File)}.
+     * Only the header is read through java.io, array data is used in place.
+     */
+    static INDArray readFromDiskMappedNative(File readFrom) throws IOException {
+        Header header;
+        long dataOffset;
+        try (RandomAccessFile file = new RandomAccessFile(readFrom, "r")) {
+            FileChannel channel = file.getChannel();
+            header = readHeader(channel);
+            dataOffset = channel.position();
+        }
+
+        if (dataOffset + header.dataLength > readFrom.length())
+            throw new EOFException("File [" + readFrom.getAbsolutePath() + "] is truncated, "
+                            + (dataOffset + header.dataLength - readFrom.length()) + " bytes missing");
+
+        // typed pointers below keep a reference to the mapping, so the file stays mapped while the array is in use
+        final Pointer mapping = Nd4j.getMemoryManager().mmapFile(readFrom);
+        final long dataAddress = mapping.address() + dataOffset;
+
+        DataBuffer buff;
+        switch (header.type) {
+            case DOUBLE:
+                buff = Nd4j.getDataBufferFactory().create(new DoublePointer() {
+                    private final Pointer file = mapping;
+                    {
+                        address = dataAddress;
+                    }
+                }, header.length);
+                break;
+            case FLOAT:
+                buff = Nd4j.getDataBufferFactory().create(new FloatPointer() {
+                    private final Pointer file = mapping;
+                    {
+                        address = dataAddress;
+                    }
+                }, header.length);
+                break;
+            case INT:
+                buff = Nd4j.getDataBufferFactory().create(new IntPointer() {
+                    private final Pointer file = mapping;
+                    {
+                        address = dataAddress;
+                    }
+                }, header.length);
+                break;
+            case COMPRESSED:
+                final long dataLength = header.dataLength;
+                buff = new CompressedDataBuffer(new BytePointer() {
+                    private final Pointer file = mapping;
+                    {
+                        address = dataAddress;
+                        capacity = dataLength;
+                        limit = dataLength;
+                    }
+                }, header.compressionDescriptor);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported data type: [" + header.type + "]");
+        }
+
+        return Nd4j.createArrayFromShapeBuffer(buff, header.shapeBuffer);
+    }
+
+
     /**
      * This method returns shape databuffer from saved earlier file
      *
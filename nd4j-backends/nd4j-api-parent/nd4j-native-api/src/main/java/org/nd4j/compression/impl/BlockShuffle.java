@@ -0,0 +1,376 @@
+package org.nd4j.compression.impl;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.Pointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
+import org.nd4j.linalg.compression.BlockExecutor;
+import org.nd4j.linalg.compression.CompressedDataBuffer;
+import org.nd4j.linalg.compression.CompressionDescriptor;
+import org.nd4j.linalg.compression.CompressionType;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Lossless compressor that byte-shuffles elements before compression.
+ *
+ * Buffer is split into blocks of fixed number of elements. Within each block, bytes are regrouped by their position
+ * within element: first bytes of all elements, then second bytes, and so on. For float/double data this puts sign and
+ * exponent bytes together, which makes block much more compressible. Each block is then deflated independently,
+ * so blocks are compressed and decompressed in parallel, and any single block can be decompressed on its own.
+ *
+ * Source and result stay off-heap, heap memory is used only for per-thread scratch arrays of single block size.
+ * Besides source and result, compression holds only compressed blocks, each in its own exact-size pointer.
+ *
+ * Compressed layout: 16 bytes of header (number of blocks, elements per block, element size, reserved),
+ * numberOfBlocks + 1 offsets of block payloads, and block payloads.
+ * Blocks that don't compress are stored as shuffled bytes.
+ */
+@Slf4j
+public class BlockShuffle extends AbstractCompressor {
+    public static final int DEFAULT_BLOCK_ELEMENTS = 64 * 1024;
+
+    protected static final int HEADER_LENGTH = 16;
+
+    protected volatile int blockElements = DEFAULT_BLOCK_ELEMENTS;
+    protected volatile int level = Deflater.BEST_SPEED;
+
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    /**
+     * This method returns compression descriptor. It should be unique for any compressor implementation
+     *
+     * @return
+     */
+    @Override
+    public String getDescriptor() {
+        return "BLOCKSHUFFLE";
+    }
+
+    /**
+     * This method returns compression opType provided by specific NDArrayCompressor implementation
+     *
+     * @return
+     */
+    @Override
+    public CompressionType getCompressionType() {
+        return CompressionType.LOSSLESS;
+    }
+
+    /**
+     * This method allows to configure number of elements per block, and deflate level
+     *
+     * @param vars number of elements per block, and optional deflate level (1..9)
+     */
+    @Override
+    public void configure(Object... vars) {
+        if (vars.length > 0 && vars[0] instanceof Number) {
+            int elements = ((Number) vars[0]).intValue();
+            if (elements < 1)
+                throw new IllegalArgumentException("Number of elements per block should be positive");
+            blockElements = elements;
+        }
+
+        if (vars.length > 1 && vars[1] instanceof Number) {
+            int lvl = ((Number) vars[1]).intValue();
+            if (lvl < Deflater.BEST_SPEED || lvl > Deflater.BEST_COMPRESSION)
+                throw new IllegalArgumentException("Deflate level should be in range 1..9");
+            level = lvl;
+        }
+    }
+
+    @Override
+    public DataBuffer compress(DataBuffer buffer) {
+        CompressionDescriptor descriptor = new CompressionDescriptor(buffer, this);
+
+        BytePointer pointer = compressBlocks(buffer.addressPointer().address(), buffer.length(), buffer.getElementSize());
+        descriptor.setCompressedLength(pointer.capacity());
+
+        return new CompressedDataBuffer(pointer, descriptor);
+    }
+
+    @Override
+    protected CompressedDataBuffer compressPointer(DataBuffer.TypeEx srcType, Pointer srcPointer, int length,
+                    int elementSize) {
+        CompressionDescriptor descriptor = new CompressionDescriptor();
+        descriptor.setCompressionType(getCompressionType());
+        descriptor.setCompressionAlgorithm(getDescriptor());
+        descriptor.setOriginalLength((long) length * elementSize);
+        descriptor.setNumberOfElements(length);
+        descriptor.setOriginalElementSize(elementSize);
+
+        BytePointer pointer = compressBlocks(srcPointer.address(), length, elementSize);
+        descriptor.setCompressedLength(pointer.capacity());
+
+        return new CompressedDataBuffer(pointer, descriptor);
+    }
+
+    @Override
+    public DataBuffer decompress(DataBuffer buffer) {
+        CompressionDescriptor descriptor = ((CompressedDataBuffer) buffer).getCompressionDescriptor();
+        final long source = buffer.addressPointer().address();
+        final Header header = readHeader(source);
+
+        DataBuffer result = createBuffer(descriptor.getOriginalElementSize(), descriptor.getNumberOfElements());
+        final long target = result.addressPointer().address();
+        final long length = descriptor.getNumberOfElements();
+
+        BlockExecutor.execute(header.numBlocks, new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) throws Exception {
+                decompressBlock(source, header, block, length, target
+                                + (long) block * header.blockElements * header.elementSize);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * This method returns number of independently compressed blocks within given buffer
+     *
+     * @param buffer buffer compressed with this compressor
+     * @return
+     */
+    public int getNumberOfBlocks(@NonNull DataBuffer buffer) {
+        return readHeader(buffer.addressPointer().address()).numBlocks;
+    }
+
+    /**
+     * This method decompresses single block of given buffer, without touching other blocks
+     *
+     * @param buffer buffer compressed with this compressor
+     * @param block index of the block
+     * @return buffer with elements of given block
+     */
+    public DataBuffer decompressBlock(@NonNull DataBuffer buffer, int block) {
+        CompressionDescriptor descriptor = ((CompressedDataBuffer) buffer).getCompressionDescriptor();
+        long source = buffer.addressPointer().address();
+        Header header = readHeader(source);
+
+        if (block < 0 || block >= header.numBlocks)
+            throw new IllegalArgumentException(
+                            "Block " + block + " is out of range for " + header.numBlocks + " blocks");
+
+        long length = descriptor.getNumberOfElements();
+        long first = (long) block * header.blockElements;
+        long elements = Math.min(header.blockElements, length - first);
+
+        DataBuffer result = createBuffer(header.elementSize, elements);
+        try {
+            decompressBlock(source, header, block, length, result.addressPointer().address());
+        } catch (DataFormatException e) {
+            throw new RuntimeException(e);
+        }
+
+        return result;
+    }
+
+    protected BytePointer compressBlocks(final long source, final long length, final int elementSize) {
+        final int elementsPerBlock = blockElements;
+        final int deflateLevel = level;
+
+        if ((long) elementsPerBlock * elementSize > Integer.MAX_VALUE)
+            throw new IllegalStateException("Block of " + elementsPerBlock + " elements is too large");
+
+        final int numBlocks = (int) ((length + elementsPerBlock - 1) / elementsPerBlock);
+
+        // compressed sizes aren't known in advance, so each block is compressed into its own exact-size pointer first
+        final BytePointer[] blocks = new BytePointer[numBlocks];
+
+        BlockExecutor.execute(numBlocks, new BlockExecutor.BlockTask() {
+            @Override
+            public void process(int block) {
+                long first = (long) block * elementsPerBlock;
+                int elements = (int) Math.min(elementsPerBlock, length - first);
+                int bytes = elements * elementSize;
+
+                Scratch s = scratch.get();
+                s.ensure(bytes);
+
+                view(source + first * elementSize, bytes).get(s.raw, 0, bytes);
+                shuffle(s.raw, s.shuffled, elements, elementSize);
+
+                int compressed = deflate(s.shuffled, bytes, s.packed, deflateLevel);
+                if (compressed < 0)
+                    blocks[block] = new BytePointer(bytes).put(s.shuffled, 0, bytes);
+                else
+                    blocks[block] = new BytePointer(compressed).put(s.packed, 0, compressed);
+            }
+        });
+
+        long headerLength = HEADER_LENGTH + 8L * (numBlocks + 1);
+        long total = headerLength;
+        for (BytePointer block : blocks)
+            total += block.capacity();
+
+        BytePointer result = new BytePointer(total);
+        ByteBuffer header = view(result.address(), headerLength);
+        header.putInt(numBlocks);
+        header.putInt(elementsPerBlock);
+        header.putInt(elementSize);
+        header.putInt(0);
+
+        long offset = headerLength;
+        for (int block = 0; block < numBlocks; block++) {
+            long size = blocks[block].capacity();
+            header.putLong(offset);
+            Pointer.memcpy(new BytePointer(result).position(offset), blocks[block], size);
+            offset += size;
+
+            blocks[block].deallocate();
+            blocks[block] = null;
+        }
+        header.putLong(offset);
+
+        return result;
+    }
+
+    protected void decompressBlock(long source, Header header, int block, long length, long target)
+                    throws DataFormatException {
+        long first = (long) block * header.blockElements;
+        int elements = (int) Math.min(header.blockElements, length - first);
+        int bytes = elements * header.elementSize;
+
+        ByteBuffer offsets = view(source + HEADER_LENGTH, 8L * (header.numBlocks + 1));
+        long start = offsets.getLong(block * 8);
+        int compressed = (int) (offsets.getLong((block + 1) * 8) - start);
+
+        Scratch s = scratch.get();
+        s.ensure(bytes);
+
+        view(source + start, compressed).get(s.packed, 0, compressed);
+
+        if (compressed == bytes) {
+            // this block was stored without compression
+            System.arraycopy(s.packed, 0, s.shuffled, 0, bytes);
+        } else {
+            inflate(s.packed, compressed, s.shuffled, bytes);
+        }
+
+        unshuffle(s.shuffled, s.raw, elements, header.elementSize);
+        view(target, bytes).put(s.raw, 0, bytes);
+    }
+
+    /**
+     * This method groups bytes by their position within element
+     */
+    protected static void shuffle(byte[] src, byte[] dst, int elements, int elementSize) {
+        for (int b = 0; b < elementSize; b++) {
+            int base = b * elements;
+            for (int e = 0, pos = b; e < elements; e++, pos += elementSize)
+                dst[base + e] = src[pos];
+        }
+    }
+
+    protected static void unshuffle(byte[] src, byte[] dst, int elements, int elementSize) {
+        for (int b = 0; b < elementSize; b++) {
+            int base = b * elements;
+            for (int e = 0, pos = b; e < elements; e++, pos += elementSize)
+                dst[pos] = src[base + e];
+        }
+    }
+
+    /**
+     * This method deflates input into output
+     *
+     * @return number of compressed bytes, or -1 if compressed data isn't smaller than input
+     */
+    protected static int deflate(byte[] input, int length, byte[] output, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+
+            int written = 0;
+            while (!deflater.finished() && written < length)
+                written += deflater.deflate(output, written, length - written);
+
+            return deflater.finished() && written < length ? written : -1;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    protected static void inflate(byte[] input, int length, byte[] output, int expected) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            // nowrap mode requires one extra dummy byte of input
+            input[length] = 0;
+            inflater.setInput(input, 0, length + 1);
+
+            int read = 0;
+            while (read < expected) {
+                int n = inflater.inflate(output, read, expected - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                read += n;
+            }
+
+            if (read != expected)
+                throw new DataFormatException("Expected " + expected + " bytes, but got " + read);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    protected static DataBuffer createBuffer(long elementSize, long length) {
+        if (elementSize == 2)
+            return Nd4j.getDataBufferFactory().createHalf(length, false);
+        else if (elementSize == 4)
+            return Nd4j.getDataBufferFactory().createFloat(length, false);
+        else if (elementSize == 8)
+            return Nd4j.getDataBufferFactory().createDouble(length, false);
+        else
+            throw new IllegalStateException("Unsupported element size: [" + elementSize + "]");
+    }
+
+    protected static Header readHeader(long source) {
+        ByteBuffer buffer = view(source, HEADER_LENGTH);
+        Header header = new Header();
+        header.numBlocks = buffer.getInt();
+        header.blockElements = buffer.getInt();
+        header.elementSize = buffer.getInt();
+        return header;
+    }
+
+    /**
+     * This method returns ByteBuffer view of off-heap memory, without any copy
+     */
+    protected static ByteBuffer view(long addr, long len) {
+        return new PagedPointer(addr, len).asBytePointer().asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    protected static class Header {
+        protected int numBlocks;
+        protected int blockElements;
+        protected int elementSize;
+    }
+
+    private static class Scratch {
+        private byte[] raw = new byte[0];
+        private byte[] shuffled = new byte[0];
+        // one extra byte for inflater dummy input
+        private byte[] packed = new byte[1];
+
+        private void ensure(int bytes) {
+            if (raw.length < bytes) {
+                raw = new byte[bytes];
+                shuffled = new byte[bytes];
+                packed = new byte[bytes + 1];
+            }
+        }
+    }
+}
@@ -2446,13 +2446,18 @@ public class CudaExecutioner extends DefaultOpExecutioner {
 
         val result = new ArrayList<int[]>();
 
+        val descriptor = outputShapeCache.getDescriptor(op);
+        val cached = outputShapeCache.get(descriptor);
+        if (cached != null)
+            return cached;
+
         val inputBuffers = new PointerPointer<>(op.inputArguments().length);
         val inputShapes = new PointerPointer<>(op.inputArguments().length);
 
         int cnt= 0;
         for (val in: op.inputArguments()) {
             // NOT A TYPO: shape functions work on host side only
-            inputBuffers.put(cnt++, in.data().addressPointer());
+            inputBuffers.put(cnt, in.data().addressPointer());
             inputShapes.put(cnt++, in.shapeInfoDataBuffer().addressPointer());
         }
 
@@ -2514,6 +2519,8 @@ public class CudaExecutioner extends DefaultOpExecutioner {
         }
 
 
+        outputShapeCache.put(descriptor, result);
+
         return result;
     }
 
@@ -2925,6 +2932,7 @@ public class CudaExecutioner extends DefaultOpExecutioner {
     @Override
     public void forgetGraph(long id) {
         nativeOps.unregisterGraph(null, id);
+        outputShapeCache.invalidate();
     }
 
     /**
@@ -4,7 +4,9 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.LongPointer;
 import org.bytedeco.javacpp.Pointer;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
@@ -12,6 +14,8 @@ import org.nd4j.linalg.memory.BasicMemoryManager;
 import org.nd4j.linalg.api.memory.enums.MemoryKind;
 import org.nd4j.nativeblas.NativeOpsHolder;
 
+import java.io.File;
+
 /**
  * @author raver119@gmail.com
  */
@@ -53,6 +57,33 @@ public class CpuMemoryManager extends BasicMemoryManager {
         Pointer.free(pointer);
     }
 
+    /**
+     * This method maps given file via native mmap, so files larger than 2GB are supported
+     *
+     * @param file file to map
+     * @return pointer to the first byte of the file, unmapping it once garbage collected
+     */
+    @Override
+    public Pointer mmapFile(@NonNull File file) {
+        final long length = file.length();
+        final LongPointer mmap =
+                        NativeOpsHolder.getInstance().getDeviceNativeOps().mmapFile(null, file.getAbsolutePath(), length);
+
+        if (mmap == null)
+            throw new ND4JIllegalStateException("Failed to map file [" + file.getAbsolutePath() + "]");
+
+        return new PagedPointer(mmap.get(0), length) {
+            {
+                deallocator(new Deallocator() {
+                    @Override
+                    public void deallocate() {
+                        NativeOpsHolder.getInstance().getDeviceNativeOps().munmapFile(null, mmap, length);
+                    }
+                });
+            }
+        };
+    }
+
     /**
      * This method detaches off-heap memory from passed INDArray instances, and optionally stores them in cache for future reuse
      * PLEASE NOTE: Cache options depend on specific implementations
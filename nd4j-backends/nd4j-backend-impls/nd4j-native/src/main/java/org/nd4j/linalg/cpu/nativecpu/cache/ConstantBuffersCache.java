@@ -1,91 +1,269 @@
 package org.nd4j.linalg.cpu.nativecpu.cache;
 
+import lombok.extern.slf4j.Slf4j;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.cache.ArrayDescriptor;
 import org.nd4j.linalg.cache.BasicConstantHandler;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Constant buffers cache for CPU backend.
+ *
+ * Cache is bounded by total number of bytes held. Once that budget is exceeded, least recently used buffers are evicted
+ * until cache is down to {@link #LOW_WATERMARK} of the budget, so eviction runs once per batch of insertions rather than on each of them.
+ * Budget can be changed via {@link #MAX_BYTES} system property, or via {@link #setMaxBytes(long)} at runtime.
+ *
+ * PLEASE NOTE: Lookups are lock-free. LRU order is approximate: recency is tracked in number of insertions, so
+ * lookups only write to cache entry once per insertion. Eviction happens on insertion path only.
+ *
  * @author raver119@gmail.com
  */
+@Slf4j
 public class ConstantBuffersCache extends BasicConstantHandler {
-    protected Map<ArrayDescriptor, DataBuffer> buffersCache = new ConcurrentHashMap<>();
-    private AtomicInteger counter = new AtomicInteger(0);
+    public static final String MAX_BYTES = "org.nd4j.constants.maxbytes";
+
+    // 64MB should be more than enough for shapes/dimensions used by any sane model
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+
+    /**
+     * Fraction of the budget cache is trimmed down to, once budget is exceeded
+     */
+    public static final double LOW_WATERMARK = 0.9;
+
+    protected final Map<ArrayDescriptor, CacheEntry> buffersCache = new ConcurrentHashMap<>(128);
+
+    // advanced after every insertion, entries hold value of this clock at the moment of their last use
+    private final AtomicLong clock = new AtomicLong(0);
+    private final Object evictionLock = new Object();
+
     private AtomicLong bytes = new AtomicLong(0);
-    private static final int MAX_ENTRIES = 1000;
+    private AtomicLong hits = new AtomicLong(0);
+    private AtomicLong misses = new AtomicLong(0);
+    private AtomicLong evictions = new AtomicLong(0);
+    private volatile long maxBytes;
+
+    public ConstantBuffersCache() {
+        long limit = DEFAULT_MAX_BYTES;
+        String property = System.getProperty(MAX_BYTES);
+        if (property != null) {
+            try {
+                limit = Long.parseLong(property);
+            } catch (NumberFormatException e) {
+                log.warn("Can't parse {} value [{}], using default of {} bytes", MAX_BYTES, property,
+                                DEFAULT_MAX_BYTES);
+            }
+        }
+        this.maxBytes = limit;
+    }
 
     @Override
     public DataBuffer getConstantBuffer(int[] array) {
         ArrayDescriptor descriptor = new ArrayDescriptor(array);
 
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createBufferDetached(array);
-
-            // we always allow int arrays with length < 3. 99.9% it's just dimension array. we don't want to recreate them over and over
-            if (counter.get() < MAX_ENTRIES || array.length < 4) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
-                bytes.addAndGet(array.length * 4);
-            }
+        DataBuffer buffer = lookup(descriptor);
+        if (buffer != null)
             return buffer;
-        }
 
-        return buffersCache.get(descriptor);
+        return store(descriptor, array, array.length * 4L);
     }
 
-    /**
-     * This method removes all cached constants
-     */
     @Override
-    public void purgeConstants() {
-        buffersCache = new ConcurrentHashMap<>();
+    public DataBuffer getConstantBuffer(float[] array) {
+        ArrayDescriptor descriptor = new ArrayDescriptor(array);
+
+        DataBuffer buffer = lookup(descriptor);
+        if (buffer != null)
+            return buffer;
+
+        // float and double constants are stored in global data type
+        return store(descriptor, array, array.length * (long) Nd4j.sizeOfDataType());
     }
 
     @Override
-    public DataBuffer getConstantBuffer(float[] array) {
+    public DataBuffer getConstantBuffer(double[] array) {
         ArrayDescriptor descriptor = new ArrayDescriptor(array);
 
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createBufferDetached(array);
+        DataBuffer buffer = lookup(descriptor);
+        if (buffer != null)
+            return buffer;
 
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
+        return store(descriptor, array, array.length * (long) Nd4j.sizeOfDataType());
+    }
+
+    protected DataBuffer lookup(ArrayDescriptor descriptor) {
+        CacheEntry entry = buffersCache.get(descriptor);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
 
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType());
+        // entry is written only once per insertion, so hot entries aren't bounced between cores
+        long now = clock.get();
+        if (entry.lastUsed != now)
+            entry.lastUsed = now;
+
+        hits.incrementAndGet();
+        return entry.get();
+    }
+
+    /**
+     * This method creates buffer for given constant and puts it into cache, unless other thread has already cached equal constant.
+     * In that case buffer from cache is returned, so all callers share the same instance.
+     *
+     * Buffer is only allocated by the thread whose entry made it into cache, other threads wait for it.
+     *
+     * @param array int[], float[] or double[] constant
+     */
+    protected DataBuffer store(ArrayDescriptor descriptor, Object array, long size) {
+        // buffers larger than whole budget are never cached
+        if (size > maxBytes)
+            return createBuffer(array);
+
+        CacheEntry entry = new CacheEntry(size, clock.get());
+        CacheEntry existing;
+        // entry is locked before it's published, so threads finding it in cache wait until buffer is set
+        synchronized (entry) {
+            existing = buffersCache.putIfAbsent(descriptor, entry);
+            if (existing == null) {
+                try {
+                    entry.buffer = createBuffer(array);
+                } catch (RuntimeException e) {
+                    buffersCache.remove(descriptor, entry);
+                    throw e;
+                }
             }
-            return buffer;
         }
 
-        return buffersCache.get(descriptor);
+        if (existing != null) {
+            DataBuffer buffer = existing.get();
+            // allocation failed for the thread that published this entry
+            return buffer != null ? buffer : createBuffer(array);
+        }
+
+        clock.incrementAndGet();
+        if (bytes.addAndGet(size) > maxBytes)
+            evict((long) (maxBytes * LOW_WATERMARK));
+
+        return entry.buffer;
     }
 
-    @Override
-    public DataBuffer getConstantBuffer(double[] array) {
-        ArrayDescriptor descriptor = new ArrayDescriptor(array);
+    protected static DataBuffer createBuffer(Object array) {
+        if (array instanceof int[])
+            return Nd4j.createBufferDetached((int[]) array);
+        else if (array instanceof float[])
+            return Nd4j.createBufferDetached((float[]) array);
+        else if (array instanceof double[])
+            return Nd4j.createBufferDetached((double[]) array);
+        else
+            throw new IllegalArgumentException("Unsupported constant type: " + array.getClass().getSimpleName());
+    }
 
-        if (!buffersCache.containsKey(descriptor)) {
-            DataBuffer buffer = Nd4j.createBufferDetached(array);
+    /**
+     * Removes least recently used entries until cache fits into given number of bytes.
+     */
+    protected void evict(long limit) {
+        synchronized (evictionLock) {
+            if (bytes.get() <= limit)
+                return;
 
-            if (counter.get() < MAX_ENTRIES) {
-                counter.incrementAndGet();
-                buffersCache.put(descriptor, buffer);
+            List<Map.Entry<ArrayDescriptor, CacheEntry>> entries = new ArrayList<>(buffersCache.entrySet());
+            Collections.sort(entries, new Comparator<Map.Entry<ArrayDescriptor, CacheEntry>>() {
+                @Override
+                public int compare(Map.Entry<ArrayDescriptor, CacheEntry> o1,
+                                Map.Entry<ArrayDescriptor, CacheEntry> o2) {
+                    return Long.compare(o1.getValue().lastUsed, o2.getValue().lastUsed);
+                }
+            });
 
-                bytes.addAndGet(array.length * Nd4j.sizeOfDataType());
+            for (int i = 0; i < entries.size() && bytes.get() > limit; i++) {
+                Map.Entry<ArrayDescriptor, CacheEntry> entry = entries.get(i);
+                if (buffersCache.remove(entry.getKey(), entry.getValue())) {
+                    bytes.addAndGet(-entry.getValue().size);
+                    evictions.incrementAndGet();
+                }
             }
-            return buffer;
         }
+    }
+
+    /**
+     * This method removes all cached constants
+     */
+    @Override
+    public void purgeConstants() {
+        synchronized (evictionLock) {
+            // entries are removed one by one, so concurrent insertions keep byte counter consistent
+            for (Map.Entry<ArrayDescriptor, CacheEntry> entry : buffersCache.entrySet())
+                if (buffersCache.remove(entry.getKey(), entry.getValue()))
+                    bytes.addAndGet(-entry.getValue().size);
+        }
+    }
+
+    /**
+     * This method changes byte budget for this cache. If current cache contents exceed new budget, LRU entries are evicted immediately.
+     *
+     * @param maxBytes
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("maxBytes can't be negative");
+
+        this.maxBytes = maxBytes;
+        evict(maxBytes);
+    }
 
-        return buffersCache.get(descriptor);
+    public long getMaxBytes() {
+        return maxBytes;
     }
 
     @Override
     public long getCachedBytes() {
         return bytes.get();
     }
+
+    public int getCachedEntries() {
+        return buffersCache.size();
+    }
+
+    public long getCacheHits() {
+        return hits.get();
+    }
+
+    public long getCacheMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    protected static class CacheEntry {
+        // set once by the thread that published this entry, while holding its monitor
+        protected volatile DataBuffer buffer;
+        protected final long size;
+        protected volatile long lastUsed;
+
+        protected CacheEntry(long size, long lastUsed) {
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+
+        protected DataBuffer get() {
+            DataBuffer result = buffer;
+            if (result != null)
+                return result;
+
+            // buffer is still being allocated
+            synchronized (this) {
+                return buffer;
+            }
+        }
+    }
 }
@@ -71,6 +71,11 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
     private ThreadLocal<Map<Integer, Pointer>> batchPointers = new ThreadLocal<>();
     private ThreadLocal<Map<Integer, AggregateMemoryBlock>> memoryBlocks = new ThreadLocal<>();
 
+    private ThreadLocal<CustomOpMemoryBlock> customOpBlocks = new ThreadLocal<>();
+
+    // this flag is used for benchmarking only
+    private volatile boolean reuseCustomOpArguments = true;
+
     public NativeOpExecutioner() {
         tadManager.init(loop, constantHandler);
 
@@ -1340,6 +1345,80 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
         }
     }
 
+    /**
+     * Per-thread native argument block for CustomOp calls. Pointers are allocated lazily, only grow, and are reused across invocations.
+     */
+    private static class CustomOpMemoryBlock {
+        private PointerPointer inputBuffers;
+        private PointerPointer inputShapes;
+        private PointerPointer outputBuffers;
+        private PointerPointer outputShapes;
+        private IntPointer intArguments;
+        private FloatPointer floatArguments;
+        private DoublePointer doubleArguments;
+        private ShortPointer halfArguments;
+
+        private static long grow(long current, long required) {
+            return Math.max(required, Math.max(8, current * 2));
+        }
+
+        private PointerPointer getInputBuffers(int length) {
+            if (inputBuffers == null || inputBuffers.capacity() < length)
+                inputBuffers = new PointerPointer(grow(inputBuffers == null ? 0 : inputBuffers.capacity(), length));
+
+            return inputBuffers;
+        }
+
+        private PointerPointer getInputShapes(int length) {
+            if (inputShapes == null || inputShapes.capacity() < length)
+                inputShapes = new PointerPointer(grow(inputShapes == null ? 0 : inputShapes.capacity(), length));
+
+            return inputShapes;
+        }
+
+        private PointerPointer getOutputBuffers(int length) {
+            if (outputBuffers == null || outputBuffers.capacity() < length)
+                outputBuffers = new PointerPointer(grow(outputBuffers == null ? 0 : outputBuffers.capacity(), length));
+
+            return outputBuffers;
+        }
+
+        private PointerPointer getOutputShapes(int length) {
+            if (outputShapes == null || outputShapes.capacity() < length)
+                outputShapes = new PointerPointer(grow(outputShapes == null ? 0 : outputShapes.capacity(), length));
+
+            return outputShapes;
+        }
+
+        private IntPointer getIntArguments(int length) {
+            if (intArguments == null || intArguments.capacity() < length)
+                intArguments = new IntPointer(grow(intArguments == null ? 0 : intArguments.capacity(), length));
+
+            return intArguments;
+        }
+
+        private FloatPointer getFloatArguments(int length) {
+            if (floatArguments == null || floatArguments.capacity() < length)
+                floatArguments = new FloatPointer(grow(floatArguments == null ? 0 : floatArguments.capacity(), length));
+
+            return floatArguments;
+        }
+
+        private DoublePointer getDoubleArguments(int length) {
+            if (doubleArguments == null || doubleArguments.capacity() < length)
+                doubleArguments = new DoublePointer(grow(doubleArguments == null ? 0 : doubleArguments.capacity(), length));
+
+            return doubleArguments;
+        }
+
+        private ShortPointer getHalfArguments(int length) {
+            if (halfArguments == null || halfArguments.capacity() < length)
+                halfArguments = new ShortPointer(grow(halfArguments == null ? 0 : halfArguments.capacity(), length));
+
+            return halfArguments;
+        }
+    }
+
     @Override
     public INDArray thresholdEncode(INDArray input, double threshold) {
         return thresholdEncode(input, threshold, null);
@@ -1505,9 +1584,10 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
 
         val hash = op.opHash();
 
+        CustomOpMemoryBlock block = getCustomOpMemoryBlock();
 
-        val inputShapes = new PointerPointer<>(op.numInputArguments());
-        val inputBuffers = new PointerPointer<>(op.numInputArguments());
+        val inputShapes = block.getInputShapes(op.numInputArguments());
+        val inputBuffers = block.getInputBuffers(op.numInputArguments());
 
         int cnt= 0;
         val inputArgs = op.inputArguments();
@@ -1523,8 +1603,8 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
         }
 
 
-        val outputShapes = new PointerPointer<>(op.numOutputArguments());
-        val outputBuffers = new PointerPointer<>(op.numOutputArguments());
+        val outputShapes = block.getOutputShapes(op.numOutputArguments());
+        val outputBuffers = block.getOutputBuffers(op.numOutputArguments());
 
         cnt= 0;
         for (val out: outputArgs) {
@@ -1534,14 +1614,14 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
 
 
 
-        val iArgs = op.numIArguments() > 0 ? new IntPointer(op.numIArguments()) : null;
+        val iArgs = op.numIArguments() > 0 ? block.getIntArguments(op.numIArguments()) : null;
         cnt = 0;
         val iArgs1 = op.iArgs();
         for (val i: iArgs1)
             iArgs.put(cnt++, i);
 
         if (Nd4j.dataType() == DataBuffer.Type.FLOAT) {
-            val tArgs = op.numTArguments() > 0 ? new FloatPointer(op.numTArguments()) : null;
+            val tArgs = op.numTArguments() > 0 ? block.getFloatArguments(op.numTArguments()) : null;
 
 
             val tArgs1 = op.tArgs();
@@ -1553,7 +1633,7 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
             if (status != OpStatus.ND4J_STATUS_OK)
                 throw new ND4JIllegalStateException("Op execution failed: " + status);
         }  else if (Nd4j.dataType() == DataBuffer.Type.DOUBLE) {
-            val tArgs = op.numTArguments() > 0 ? new DoublePointer(op.numTArguments()) : null;
+            val tArgs = op.numTArguments() > 0 ? block.getDoubleArguments(op.numTArguments()) : null;
             val tArgs1 = op.tArgs();
 
             cnt = 0;
@@ -1580,7 +1660,7 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
             }
 
         } else if (Nd4j.dataType() == DataBuffer.Type.HALF) {
-            val tArgs = op.numTArguments() > 0 ? new ShortPointer(op.numTArguments()) : null;
+            val tArgs = op.numTArguments() > 0 ? block.getHalfArguments(op.numTArguments()) : null;
 
             cnt = 0;
             val tArgs1 = op.tArgs();
@@ -1594,6 +1674,33 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
         }
     }
 
+    /**
+     * This method returns argument block of current thread, reused across CustomOp calls
+     */
+    private CustomOpMemoryBlock getCustomOpMemoryBlock() {
+        if (!reuseCustomOpArguments)
+            return new CustomOpMemoryBlock();
+
+        CustomOpMemoryBlock block = customOpBlocks.get();
+        if (block == null) {
+            block = new CustomOpMemoryBlock();
+            customOpBlocks.set(block);
+        }
+
+        return block;
+    }
+
+    /**
+     * This method enables or disables reuse of native argument blocks for CustomOp calls. Enabled by default.
+     *
+     * PLEASE NOTE: This method is suited for benchmarking only.
+     *
+     * @param reallyReuse
+     */
+    public void setReuseCustomOpArguments(boolean reallyReuse) {
+        this.reuseCustomOpArguments = reallyReuse;
+    }
+
     protected int[] getShapeFromPointer(IntPointer ptr) {
         val rank = ptr.get(0);
         int[] array = new int[rank];
@@ -1613,25 +1720,31 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
             return Collections.emptyList();
         }
 
+        val descriptor = outputShapeCache.getDescriptor(op);
+        val cached = outputShapeCache.get(descriptor);
+        if (cached != null)
+            return cached;
 
-        val inputBuffers = new PointerPointer<>(op.numInputArguments());
-        val inputShapes = new PointerPointer<>(op.numInputArguments());
+        CustomOpMemoryBlock block = getCustomOpMemoryBlock();
+
+        val inputBuffers = block.getInputBuffers(op.numInputArguments());
+        val inputShapes = block.getInputShapes(op.numInputArguments());
         val inputArgs = op.inputArguments();
         int cnt= 0;
         for (val in: inputArgs) {
-            inputBuffers.put(cnt++, in.data().addressPointer());
+            inputBuffers.put(cnt, in.data().addressPointer());
             inputShapes.put(cnt++, in.shapeInfoDataBuffer().addressPointer());
         }
 
 
-        val iArgs = op.numIArguments() > 0 ? new IntPointer(op.numIArguments()) : null;
+        val iArgs = op.numIArguments() > 0 ? block.getIntArguments(op.numIArguments()) : null;
         cnt = 0;
         val iArgs1 = op.iArgs();
         for (val i: iArgs1)
             iArgs.put(cnt++, i);
 
         if (Nd4j.dataType() == DataBuffer.Type.FLOAT) {
-            val tArgs = op.numTArguments() > 0 ? new FloatPointer(op.numTArguments()) : null;
+            val tArgs = op.numTArguments() > 0 ? block.getFloatArguments(op.numTArguments()) : null;
             val tArgs1 = op.tArgs();
             cnt = 0;
             for (val t: tArgs1)
@@ -1649,7 +1762,7 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
 
             loop.deleteShapeList(ptrptr);
         } else if (Nd4j.dataType() == DataBuffer.Type.DOUBLE) {
-            val tArgs = op.numTArguments() > 0 ? new DoublePointer(op.numTArguments()) : null;
+            val tArgs = op.numTArguments() > 0 ? block.getDoubleArguments(op.numTArguments()) : null;
 
             cnt = 0;
             val tArgs1 = op.tArgs();
@@ -1669,7 +1782,7 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
 
             loop.deleteShapeList(ptrptr);
         } else if (Nd4j.dataType() == DataBuffer.Type.HALF) {
-            val tArgs = op.numTArguments() > 0 ? new ShortPointer(op.numTArguments()) : null;
+            val tArgs = op.numTArguments() > 0 ? block.getHalfArguments(op.numTArguments()) : null;
 
             cnt = 0;
             val tArgs1 = op.tArgs();
@@ -1688,6 +1801,7 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
             loop.deleteShapeList(ptrptr);
         }
 
+        outputShapeCache.put(descriptor, result);
 
         return result;
     }
@@ -1840,6 +1954,7 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
     @Override
     public void forgetGraph(long id) {
         loop.unregisterGraph(null, id);
+        outputShapeCache.invalidate();
     }
 
     /**
@@ -0,0 +1,349 @@
+package org.nd4j.linalg.cpu.nativecpu.workspace;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.IntIndexer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.LocationPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory-mapped workspace that keeps named arrays across JVM restarts.
+ *
+ * First indexSize bytes of the mapped file hold an index of persisted arrays: name, data type, shape, ordering and offset.
+ * Persisted arrays are stored right after the index, and regular workspace allocations go after the last persisted array,
+ * so scope reset never touches persisted data.
+ * Once the same file is opened again, persisted arrays are attached to mapped memory directly, without any copy.
+ *
+ * PLEASE NOTE: Arrays returned by this workspace are backed by mapped memory, so they are valid only until destroyWorkspace() is called.
+ */
+@Slf4j
+public class PersistentWorkspace extends CpuWorkspace {
+    public static final long DEFAULT_INDEX_SIZE = 64 * 1024L;
+
+    private static final long MAGIC = 0x4E44344A57535831L;
+    private static final int VERSION = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    protected final long indexSize;
+    protected final Map<String, Entry> index = new LinkedHashMap<>();
+    protected final AtomicLong persistedOffset = new AtomicLong(0);
+
+    public PersistentWorkspace(@NonNull WorkspaceConfiguration configuration, @NonNull String workspaceId) {
+        this(configuration, workspaceId, DEFAULT_INDEX_SIZE);
+    }
+
+    /**
+     * @param configuration workspace configuration. MMAP location with non-null tempFilePath, STRICT allocation, no learning and BLOCK_LEFT reset are required
+     * @param workspaceId id of this workspace
+     * @param indexSize number of bytes reserved for index at the beginning of file
+     */
+    public PersistentWorkspace(@NonNull WorkspaceConfiguration configuration, @NonNull String workspaceId,
+                    long indexSize) {
+        super(validate(configuration, indexSize), workspaceId);
+        this.indexSize = indexSize;
+
+        // existing file might be larger than initialSize, and all of it is mapped
+        currentSize.set(tempFile.length());
+
+        readIndex();
+    }
+
+    protected static WorkspaceConfiguration validate(WorkspaceConfiguration configuration, long indexSize) {
+        if (configuration.getPolicyLocation() != LocationPolicy.MMAP || configuration.getTempFilePath() == null)
+            throw new ND4JIllegalStateException("Persistent workspace requires MMAP location policy and non-null file path");
+
+        if (configuration.getPolicyAllocation() != AllocationPolicy.STRICT
+                        || configuration.getPolicyLearning() != LearningPolicy.NONE
+                        || configuration.getPolicyReset() != ResetPolicy.BLOCK_LEFT)
+            throw new ND4JIllegalStateException(
+                            "Persistent workspace requires STRICT allocation, NONE learning and BLOCK_LEFT reset policies");
+
+        if (indexSize < 64 || indexSize % 8 != 0)
+            throw new ND4JIllegalStateException("Index size should be positive multiple of 8, and at least 64 bytes");
+
+        if (configuration.getInitialSize() > 0 && configuration.getInitialSize() <= indexSize)
+            throw new ND4JIllegalStateException("Workspace initialSize should be larger than index size");
+
+        // workspace would refill smaller file with zeroes, so existing file is grown in place, keeping persisted data
+        File file = new File(configuration.getTempFilePath());
+        if (file.length() > 0 && file.length() < configuration.getInitialSize()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(configuration.getInitialSize());
+            } catch (IOException e) {
+                throw new ND4JIllegalStateException("Unable to grow workspace file [" + file + "] to "
+                                + configuration.getInitialSize() + " bytes", e);
+            }
+        }
+
+        return configuration;
+    }
+
+    /**
+     * This method copies given array into this workspace, and records it in the index under a given name
+     *
+     * @param name
+     * @param array
+     * @return array attached to mapped memory
+     */
+    public synchronized INDArray persist(@NonNull String name, @NonNull INDArray array) {
+        if (index.containsKey(name))
+            throw new ND4JIllegalStateException("Array [" + name + "] is already persisted in workspace [" + id + "]");
+
+        INDArray source = array;
+        if (array.isView()) {
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().scopeOutOfWorkspaces()) {
+                source = array.dup(array.ordering());
+            }
+        }
+
+        Nd4j.getExecutioner().commit();
+
+        DataBuffer.Type type = source.data().dataType();
+        long length = source.lengthLong();
+        long bytes = length * source.data().getElementSize();
+        long aligned = (bytes + 7L) & ~7L;
+
+        long offset = hostOffset.get();
+        if (offset + aligned > currentSize.get())
+            throw new ND4JIllegalStateException("Workspace [" + id + "] doesn't have enough space to persist array ["
+                            + name + "] of " + bytes + " bytes");
+
+        Pointer.memcpy(workspace.getHostPointer().withOffset(offset, length), source.data().addressPointer(), bytes);
+
+        hostOffset.set(offset + aligned);
+        deviceOffset.set(offset + aligned);
+        persistedOffset.set(offset + aligned);
+
+        Entry entry = new Entry(name, type, source.ordering(), source.shape(), offset, length);
+        index.put(name, entry);
+
+        try {
+            writeIndex();
+        } catch (RuntimeException e) {
+            index.remove(name);
+            throw e;
+        }
+
+        return attach(entry);
+    }
+
+    /**
+     * This method returns persisted array with a given name, attached to mapped memory
+     *
+     * @param name
+     * @return array, or null if there's no such array
+     */
+    public synchronized INDArray getArray(@NonNull String name) {
+        Entry entry = index.get(name);
+        return entry == null ? null : attach(entry);
+    }
+
+    public synchronized boolean contains(@NonNull String name) {
+        return index.containsKey(name);
+    }
+
+    /**
+     * This method returns names of all persisted arrays, in order of persistence
+     *
+     * @return
+     */
+    public synchronized Set<String> getNames() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.keySet()));
+    }
+
+    /**
+     * This method forgets all persisted arrays. Their memory becomes available for regular allocations.
+     */
+    public synchronized void clearIndex() {
+        index.clear();
+        persistedOffset.set(indexSize);
+        writeIndex();
+        reset();
+    }
+
+    /**
+     * This method returns number of bytes occupied by index and persisted arrays
+     *
+     * @return
+     */
+    public long getPersistedSize() {
+        return persistedOffset.get();
+    }
+
+    /**
+     * Offsets are reset to the end of persisted data, instead of 0
+     */
+    @Override
+    public void reset() {
+        // this method is also called from superclass constructor
+        long offset = persistedOffset == null ? 0 : persistedOffset.get();
+        hostOffset.set(offset);
+        deviceOffset.set(offset);
+    }
+
+    protected INDArray attach(Entry entry) {
+        PagedPointer pointer = workspace.getHostPointer().withOffset(entry.offset, entry.length);
+
+        DataBuffer buffer;
+        switch (entry.type) {
+            case FLOAT: {
+                FloatPointer fp = pointer.asFloatPointer();
+                buffer = Nd4j.createBuffer(fp, DataBuffer.Type.FLOAT, entry.length, FloatIndexer.create(fp));
+                break;
+            }
+            case DOUBLE: {
+                DoublePointer dp = pointer.asDoublePointer();
+                buffer = Nd4j.createBuffer(dp, DataBuffer.Type.DOUBLE, entry.length, DoubleIndexer.create(dp));
+                break;
+            }
+            case INT: {
+                IntPointer ip = pointer.asIntPointer();
+                buffer = Nd4j.createBuffer(ip, DataBuffer.Type.INT, entry.length, IntIndexer.create(ip));
+                break;
+            }
+            default:
+                throw new ND4JIllegalStateException("Data type " + entry.type + " isn't supported by persistent workspace");
+        }
+
+        return Nd4j.create(buffer, entry.shape, Nd4j.getStrides(entry.shape, entry.ordering), 0, entry.ordering);
+    }
+
+    protected ByteBuffer indexBuffer() {
+        BytePointer header = new BytePointer(workspace.getHostPointer());
+        header.capacity(indexSize);
+        header.limit(indexSize);
+        header.position(0);
+
+        return header.asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    protected void readIndex() {
+        ByteBuffer buffer = indexBuffer();
+
+        if (buffer.getLong() != MAGIC) {
+            // fresh file, nothing persisted yet
+            persistedOffset.set(indexSize);
+            writeIndex();
+            reset();
+            return;
+        }
+
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new ND4JIllegalStateException("Unsupported persistent workspace version " + version + " in file ["
+                            + tempFile.getAbsolutePath() + "]");
+
+        int numEntries = buffer.getInt();
+        long end = buffer.getLong();
+        if (end < indexSize || end > currentSize.get())
+            throw new ND4JIllegalStateException("Corrupted persistent workspace index in file ["
+                            + tempFile.getAbsolutePath() + "]");
+
+        for (int e = 0; e < numEntries; e++) {
+            byte[] nameBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(nameBytes);
+            String name = new String(nameBytes, UTF8);
+
+            DataBuffer.Type type = DataBuffer.Type.values()[buffer.getInt()];
+            char ordering = buffer.getChar();
+            int[] shape = new int[buffer.getInt()];
+            for (int i = 0; i < shape.length; i++)
+                shape[i] = buffer.getInt();
+
+            long offset = buffer.getLong();
+            long length = buffer.getLong();
+
+            index.put(name, new Entry(name, type, ordering, shape, offset, length));
+        }
+
+        persistedOffset.set(end);
+        reset();
+
+        log.debug("Workspace [{}]: {} persisted arrays found in [{}]", id, numEntries, tempFile.getAbsolutePath());
+    }
+
+    protected void writeIndex() {
+        // entries are serialized first, so index that doesn't fit doesn't corrupt existing one
+        ByteBuffer entries = ByteBuffer.allocate((int) indexSize).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            for (Entry entry : new ArrayList<>(index.values())) {
+                byte[] nameBytes = entry.name.getBytes(UTF8);
+                entries.putShort((short) nameBytes.length);
+                entries.put(nameBytes);
+                entries.putInt(entry.type.ordinal());
+                entries.putChar(entry.ordering);
+                entries.putInt(entry.shape.length);
+                for (int dim : entry.shape)
+                    entries.putInt(dim);
+                entries.putLong(entry.offset);
+                entries.putLong(entry.length);
+            }
+        } catch (BufferOverflowException e) {
+            throw new ND4JIllegalStateException("Workspace [" + id + "]: index doesn't fit into " + indexSize + " bytes");
+        }
+
+        // 24 bytes are used by header
+        if (entries.position() > indexSize - 24)
+            throw new ND4JIllegalStateException("Workspace [" + id + "]: index doesn't fit into " + indexSize + " bytes");
+
+        entries.flip();
+
+        ByteBuffer buffer = indexBuffer();
+        // magic goes last, so partially written index is never considered valid
+        buffer.putLong(0L);
+        buffer.putInt(VERSION);
+        buffer.putInt(index.size());
+        buffer.putLong(persistedOffset.get());
+        buffer.put(entries);
+        buffer.putLong(0, MAGIC);
+    }
+
+    protected static class Entry {
+        protected final String name;
+        protected final DataBuffer.Type type;
+        protected final char ordering;
+        protected final int[] shape;
+        protected final long offset;
+        protected final long length;
+
+        protected Entry(String name, DataBuffer.Type type, char ordering, int[] shape, long offset, long length) {
+            this.name = name;
+            this.type = type;
+            this.ordering = ordering;
+            this.shape = shape;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
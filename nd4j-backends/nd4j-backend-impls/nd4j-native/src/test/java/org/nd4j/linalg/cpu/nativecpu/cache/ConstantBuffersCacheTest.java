@@ -0,0 +1,98 @@
+package org.nd4j.linalg.cpu.nativecpu.cache;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+
+import static org.junit.Assert.*;
+
+public class ConstantBuffersCacheTest {
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+
+        DataBuffer first = cache.getConstantBuffer(new int[] {1, 2, 3});
+        DataBuffer second = cache.getConstantBuffer(new int[] {1, 2, 3});
+
+        assertTrue(first == second);
+        assertEquals(1, cache.getCacheMisses());
+        assertEquals(1, cache.getCacheHits());
+        assertEquals(12, cache.getCachedBytes());
+    }
+
+    @Test
+    public void testLruEviction() throws Exception {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+        // low watermark of this budget leaves room for two 16 byte entries
+        cache.setMaxBytes(36);
+
+        DataBuffer a = cache.getConstantBuffer(new int[] {1, 2, 3, 4});
+        cache.getConstantBuffer(new int[] {5, 6, 7, 8});
+
+        // touch first entry, so second one becomes LRU
+        assertTrue(a == cache.getConstantBuffer(new int[] {1, 2, 3, 4}));
+
+        cache.getConstantBuffer(new int[] {9, 10, 11, 12});
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getCachedEntries());
+        assertEquals(32, cache.getCachedBytes());
+        assertTrue(a == cache.getConstantBuffer(new int[] {1, 2, 3, 4}));
+    }
+
+    @Test
+    public void testEvictionDownToLowWatermark() throws Exception {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+        cache.setMaxBytes(100);
+
+        for (int i = 0; i < 6; i++)
+            cache.getConstantBuffer(new int[] {i, i, i, i});
+
+        // 96 bytes still fit
+        assertEquals(0, cache.getEvictions());
+
+        // 112 bytes don't, and cache is trimmed below 90 bytes at once
+        cache.getConstantBuffer(new int[] {6, 6, 6, 6});
+        assertEquals(2, cache.getEvictions());
+        assertEquals(80, cache.getCachedBytes());
+
+        // so next insertion fits without eviction
+        cache.getConstantBuffer(new int[] {7, 7, 7, 7});
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void testConcurrentStoreSharesBuffer() throws Exception {
+        final ConstantBuffersCache cache = new ConstantBuffersCache();
+        final DataBuffer[] results = new DataBuffer[8];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    results[index] = cache.getConstantBuffer(new int[] {42, 43, 44});
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        for (DataBuffer result : results)
+            assertTrue(results[0] == result);
+        assertEquals(1, cache.getCachedEntries());
+        assertEquals(12, cache.getCachedBytes());
+    }
+
+    @Test
+    public void testOversizedBufferNotCached() throws Exception {
+        ConstantBuffersCache cache = new ConstantBuffersCache();
+        cache.setMaxBytes(8);
+
+        cache.getConstantBuffer(new int[] {1, 2, 3, 4});
+
+        assertEquals(0, cache.getCachedEntries());
+        assertEquals(0, cache.getCachedBytes());
+    }
+}
@@ -0,0 +1,100 @@
+package org.nd4j.linalg.cpu.nativecpu.workspace;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.LocationPolicy;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class PersistentWorkspaceTest {
+
+    @Test
+    public void testPersistAndReopen() throws Exception {
+        File file = File.createTempFile("workspace", "persistent");
+        file.delete();
+        file.deleteOnExit();
+
+        WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(1024 * 1024L)
+                        .policyLocation(LocationPolicy.MMAP).tempFilePath(file.getAbsolutePath())
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE).build();
+
+        INDArray weights = Nd4j.linspace(1, 12, 12).reshape(3, 4);
+        INDArray column = weights.getColumn(1);
+
+        PersistentWorkspace workspace = new PersistentWorkspace(configuration, "PERSISTENT");
+        INDArray persisted = workspace.persist("weights", weights);
+        workspace.persist("column", column);
+
+        assertEquals(weights, persisted);
+        long persistedSize = workspace.getPersistedSize();
+
+        // regular allocations go after persisted arrays, and are reset on scope exit
+        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+            Nd4j.create(1000).assign(-1.0);
+        }
+
+        assertEquals(persistedSize, workspace.getHostOffset());
+        assertEquals(weights, workspace.getArray("weights"));
+
+        workspace.destroyWorkspace();
+
+        // same file is opened again, arrays are attached without copy
+        WorkspaceConfiguration reopen = WorkspaceConfiguration.builder().policyLocation(LocationPolicy.MMAP)
+                        .tempFilePath(file.getAbsolutePath()).policyAllocation(AllocationPolicy.STRICT)
+                        .policyLearning(LearningPolicy.NONE).build();
+
+        PersistentWorkspace reopened = new PersistentWorkspace(reopen, "PERSISTENT");
+        try {
+            assertEquals(2, reopened.getNames().size());
+            assertTrue(reopened.contains("weights"));
+            assertNull(reopened.getArray("missing"));
+
+            assertEquals(weights, reopened.getArray("weights"));
+            assertEquals(column, reopened.getArray("column"));
+            assertEquals(persistedSize, reopened.getPersistedSize());
+
+            reopened.clearIndex();
+            assertEquals(0, reopened.getNames().size());
+        } finally {
+            reopened.destroyWorkspace();
+        }
+    }
+
+    @Test
+    public void testReopenWithLargerSize() throws Exception {
+        File file = File.createTempFile("workspace", "persistent");
+        file.delete();
+        file.deleteOnExit();
+
+        WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(1024 * 1024L)
+                        .policyLocation(LocationPolicy.MMAP).tempFilePath(file.getAbsolutePath())
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE).build();
+
+        INDArray weights = Nd4j.linspace(1, 12, 12).reshape(3, 4);
+
+        PersistentWorkspace workspace = new PersistentWorkspace(configuration, "PERSISTENT");
+        workspace.persist("weights", weights);
+        workspace.destroyWorkspace();
+
+        // larger initialSize grows the file, and persisted arrays survive
+        WorkspaceConfiguration larger = WorkspaceConfiguration.builder().initialSize(4 * 1024 * 1024L)
+                        .policyLocation(LocationPolicy.MMAP).tempFilePath(file.getAbsolutePath())
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE).build();
+
+        PersistentWorkspace reopened = new PersistentWorkspace(larger, "PERSISTENT");
+        try {
+            assertEquals(4 * 1024 * 1024L, file.length());
+            assertEquals(1, reopened.getNames().size());
+            assertEquals(weights, reopened.getArray("weights"));
+        } finally {
+            reopened.destroyWorkspace();
+        }
+    }
+}
@@ -580,5 +580,46 @@ public class SparseNDArrayCOOTest {
         System.out.println(view2.shapeInfoDataBuffer());
         System.out.println(view2.sparseInfoDataBuffer());
     }
-}
 
+    @Test
+    public void shouldBuildSortedArrayInBulk() {
+        SparseNDArrayCOOBuilder builder = new SparseNDArrayCOOBuilder(3, 3);
+        builder.add(2, 1, 5).add(0, 2, 1).add(1, 0, 2).add(0, 2, 3).add(1, 1, 0).add(2, 2, 4).add(2, 2, -4);
+
+        BaseSparseNDArrayCOO array = (BaseSparseNDArrayCOO) builder.buildCOO();
+
+        // duplicates are summed up, and zeros are dropped
+        assertEquals(3, array.nnz());
+        assertTrue(array.isSorted());
+        assertArrayEquals(new int[] {0, 2, 1, 0, 2, 1}, array.getIncludedIndices().asInt());
+        assertArrayEquals(new double[] {4, 2, 5}, array.getIncludedValues().asDouble(), 1e-5);
+    }
+
+    @Test
+    public void shouldKeepLastDuplicate() {
+        SparseNDArrayCOOBuilder builder = new SparseNDArrayCOOBuilder(2, 2)
+                        .setDuplicatePolicy(SparseNDArrayCOOBuilder.DuplicatePolicy.LAST);
+        builder.addAll(new int[][] {{1, 1}, {0, 0}, {1, 1}}, new double[] {1, 2, 3});
+
+        BaseSparseNDArrayCOO array = (BaseSparseNDArrayCOO) builder.buildCOO();
+        assertArrayEquals(new int[] {0, 0, 1, 1}, array.getIncludedIndices().asInt());
+        assertArrayEquals(new double[] {2, 3}, array.getIncludedValues().asDouble(), 1e-5);
+    }
+
+    @Test
+    public void shouldBuildCSRInBulk() {
+        SparseNDArrayCOOBuilder builder = new SparseNDArrayCOOBuilder(4, 3);
+        builder.add(3, 2, 6).add(0, 1, 1).add(3, 0, 5).add(0, 0, 2);
+
+        BaseSparseNDArrayCSR csr = (BaseSparseNDArrayCSR) builder.buildCSR();
+        assertArrayEquals(new double[] {2, 1, 5, 6}, csr.getDoubleValues(), 1e-5);
+        assertArrayEquals(new double[] {0, 1, 0, 2}, csr.getColumns(), 1e-5);
+        assertArrayEquals(new int[] {0, 2, 2, 2}, csr.getPointerBArray());
+        assertArrayEquals(new int[] {2, 2, 2, 4}, csr.getPointerEArray());
+
+        // direct conversion of COO array gives the same result
+        BaseSparseNDArrayCSR converted = (BaseSparseNDArrayCSR) ((BaseSparseNDArrayCOO) builder.buildCOO()).toCSR();
+        assertArrayEquals(csr.getDoubleValues(), converted.getDoubleValues(), 1e-5);
+        assertArrayEquals(csr.getPointerEArray(), converted.getPointerEArray());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
+import org.nd4j.compression.impl.BlockShuffle;
 import org.nd4j.linalg.BaseNd4jTest;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
@@ -216,6 +217,118 @@ public class CompressionTests extends BaseNd4jTest {
         assertEquals(exp, decomp);
     }
 
+    @Test
+    public void testBlockShuffleCompression1() {
+        INDArray array = Nd4j.linspace(1, 10000, 20000);
+        INDArray exp = array.dup();
+
+        NDArrayCompressor compressor = Nd4j.getCompressor().getCompressor("BLOCKSHUFFLE");
+        compressor.configure(1000);
+
+        INDArray compr = Nd4j.getCompressor().compress(array, "BLOCKSHUFFLE");
+
+        assertEquals(DataBuffer.Type.COMPRESSED, compr.data().dataType());
+        assertTrue(((CompressedDataBuffer) compr.data()).getCompressionDescriptor().getCompressedLength() < array
+                        .length() * array.data().getElementSize());
+
+        INDArray decomp = Nd4j.getCompressor().decompress(compr);
+
+        assertEquals(exp, array);
+        assertEquals(exp, decomp);
+
+        compressor.configure(BlockShuffle.DEFAULT_BLOCK_ELEMENTS);
+    }
+
+    @Test
+    public void testBlockShuffleRandomAccess1() {
+        INDArray array = Nd4j.linspace(1, 2500, 2500);
+
+        BlockShuffle compressor = (BlockShuffle) Nd4j.getCompressor().getCompressor("BLOCKSHUFFLE");
+        compressor.configure(1000);
+
+        DataBuffer compressed = compressor.compress(array.data());
+        assertEquals(3, compressor.getNumberOfBlocks(compressed));
+
+        DataBuffer last = compressor.decompressBlock(compressed, 2);
+        assertEquals(500, last.length());
+        assertEquals(2001.0, last.getDouble(0), 1e-5);
+        assertEquals(2500.0, last.getDouble(499), 1e-5);
+
+        compressor.configure(BlockShuffle.DEFAULT_BLOCK_ELEMENTS);
+    }
+
+    @Test
+    public void testBlockCompression1() {
+        INDArray array = Nd4j.linspace(1, 10000, 20000);
+        INDArray exp = array.dup();
+
+        BasicNDArrayCompressor.getInstance().setBlockSize(3000);
+        try {
+            INDArray compr = BasicNDArrayCompressor.getInstance().compress(array, "GZIP");
+
+            CompressionDescriptor descriptor = ((CompressedDataBuffer) compr.data()).getCompressionDescriptor();
+            assertTrue(descriptor.isBlocked());
+            assertEquals(7, descriptor.getNumberOfBlocks());
+
+            INDArray decomp = BasicNDArrayCompressor.getInstance().decompress(compr);
+
+            assertEquals(exp, array);
+            assertEquals(exp, decomp);
+
+            DataBuffer last = BasicNDArrayCompressor.getInstance().decompressBlock(compr.data(), 6);
+            assertEquals(2000, last.length());
+            assertEquals(exp.getDouble(18000), last.getDouble(0), 1e-5);
+            assertEquals(exp.getDouble(19999), last.getDouble(1999), 1e-5);
+        } finally {
+            BasicNDArrayCompressor.getInstance().setBlockSize(0);
+        }
+    }
+
+    @Test
+    public void testBlockCompressionKeepsDataType() {
+        double[] data = new double[10000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = i / 3.0;
+        DataBuffer buffer = Nd4j.getDataBufferFactory().createDouble(data);
+
+        BasicNDArrayCompressor.getInstance().setBlockSize(3000);
+        try {
+            DataBuffer compressed = BasicNDArrayCompressor.getInstance().compress(buffer, "GZIP");
+
+            DataBuffer decompressed = BasicNDArrayCompressor.getInstance().decompress(compressed);
+            assertEquals(DataBuffer.Type.DOUBLE, decompressed.dataType());
+            assertArrayEquals(data, decompressed.asDouble(), 0.0);
+
+            DataBuffer block = BasicNDArrayCompressor.getInstance().decompressBlock(compressed, 3);
+            assertEquals(DataBuffer.Type.DOUBLE, block.dataType());
+            assertEquals(1000, block.length());
+            assertEquals(data[9999], block.getDouble(999), 0.0);
+        } finally {
+            BasicNDArrayCompressor.getInstance().setBlockSize(0);
+        }
+    }
+
+    @Test
+    public void testBlockCompression2() throws Exception {
+        INDArray array = Nd4j.linspace(1, 10000, 20000);
+        INDArray exp = array.dup();
+
+        BasicNDArrayCompressor.getInstance().setBlockSize(5000);
+        try {
+            INDArray compr = BasicNDArrayCompressor.getInstance().compress(array, "GZIP");
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Nd4j.write(baos, compr);
+
+            INDArray restored = Nd4j.read(new ByteArrayInputStream(baos.toByteArray()));
+
+            assertEquals(exp, BasicNDArrayCompressor.getInstance().decompress(compr));
+            assertEquals(exp, restored);
+        } finally {
+            BasicNDArrayCompressor.getInstance().setBlockSize(0);
+        }
+    }
+
     @Test
     public void testNoOpCompression1() {
         INDArray array = Nd4j.linspace(1, 10000, 20000);
@@ -7,6 +7,7 @@ import org.nd4j.linalg.api.ops.CustomOp;
 import org.nd4j.linalg.api.ops.DynamicCustomOp;
 import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
 import org.nd4j.linalg.api.ops.executioner.OpStatus;
+import org.nd4j.linalg.cache.OutputShapeDescriptor;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
 
@@ -14,6 +15,8 @@ import java.util.Arrays;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * This class holds various CustomOps tests
@@ -301,6 +304,96 @@ public class CustomOpsTests {
         ScatterUpdate op = new ScatterUpdate(matrix, updates, indices, dims, ScatterUpdate.UpdateOp.ADD);
     }
 
+    /**
+     * Native argument blocks are reused across calls, so ops with different number of arguments are interleaved here
+     */
+    @Test
+    public void testArgumentsReuse1() throws Exception {
+        for (int e = 0; e < 10; e++) {
+            val arrayX = Nd4j.create(10, 10).assign(e + 0.5);
+            val arrayY = Nd4j.create(10, 10).assign(1.0);
+            val arrayZ = Nd4j.create(10, 10);
+
+            CustomOp floor = DynamicCustomOp.builder("floor")
+                    .addInputs(arrayX)
+                    .addOutputs(arrayX)
+                    .build();
+
+            Nd4j.getExecutioner().exec(floor);
+
+            CustomOp add = DynamicCustomOp.builder("add")
+                    .addInputs(arrayX, arrayY)
+                    .addOutputs(arrayZ)
+                    .build();
+
+            Nd4j.getExecutioner().exec(add);
+
+            assertEquals(Nd4j.create(10, 10).assign(e + 1.0), arrayZ);
+        }
+    }
+
+    @Test
+    public void testOutputShapeCache1() throws Exception {
+        val cache = Nd4j.getExecutioner().getOutputShapeCache();
+        cache.invalidate();
+
+        val arrayX = Nd4j.create(10, 10);
+        val arrayY = Nd4j.create(10, 10);
+        val arrayZ = Nd4j.create(5, 7);
+
+        CustomOp op = DynamicCustomOp.builder("add")
+                .addInputs(arrayX, arrayY)
+                .build();
+
+        val hits = cache.getHits();
+        val misses = cache.getMisses();
+
+        val shapes1 = Nd4j.getExecutioner().calculateOutputShape(op);
+        val shapes2 = Nd4j.getExecutioner().calculateOutputShape(op);
+
+        assertEquals(1, shapes1.size());
+        assertArrayEquals(new int[]{10, 10}, shapes1.get(0));
+        assertArrayEquals(shapes1.get(0), shapes2.get(0));
+        assertEquals(misses + 1, cache.getMisses());
+        assertEquals(hits + 1, cache.getHits());
+
+        // different input shapes should never hit
+        CustomOp op2 = DynamicCustomOp.builder("add")
+                .addInputs(arrayZ, arrayZ)
+                .build();
+
+        assertArrayEquals(new int[]{5, 7}, Nd4j.getExecutioner().calculateOutputShape(op2).get(0));
+        assertEquals(misses + 2, cache.getMisses());
+
+        cache.invalidate();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testOutputShapeCacheValues() throws Exception {
+        val cache = Nd4j.getExecutioner().getOutputShapeCache();
+        cache.invalidate();
+
+        // values of small inputs of ordinary ops aren't part of the key
+        CustomOp op1 = DynamicCustomOp.builder("add")
+                .addInputs(Nd4j.create(new double[]{1, 2, 3}), Nd4j.create(new double[]{4, 5, 6}))
+                .build();
+        CustomOp op2 = DynamicCustomOp.builder("add")
+                .addInputs(Nd4j.create(new double[]{7, 8, 9}), Nd4j.create(new double[]{4, 5, 6}))
+                .build();
+        assertEquals(cache.getDescriptor(op1), cache.getDescriptor(op2));
+
+        // while for ops reading shape from inputs they are
+        assertTrue(OutputShapeDescriptor.isValueDependentOp("reshape"));
+        CustomOp reshape1 = DynamicCustomOp.builder("reshape")
+                .addInputs(Nd4j.create(6), Nd4j.create(new double[]{2, 3}))
+                .build();
+        CustomOp reshape2 = DynamicCustomOp.builder("reshape")
+                .addInputs(Nd4j.create(6), Nd4j.create(new double[]{3, 2}))
+                .build();
+        assertNotEquals(cache.getDescriptor(reshape1), cache.getDescriptor(reshape2));
+    }
+
     @Test
     public void testOpStatus1() throws Exception {
         assertEquals(OpStatus.ND4J_STATUS_OK, OpStatus.byNumber(0));
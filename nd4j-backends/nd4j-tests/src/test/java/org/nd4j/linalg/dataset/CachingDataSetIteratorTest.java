@@ -10,9 +10,12 @@ import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.iterator.CachingDataSetIterator;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.iterator.SamplingDataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.cache.BoundedInMemoryDataSetCache;
 import org.nd4j.linalg.dataset.api.iterator.cache.DataSetCache;
 import org.nd4j.linalg.dataset.api.iterator.cache.InFileDataSetCache;
 import org.nd4j.linalg.dataset.api.iterator.cache.InMemoryDataSetCache;
+import org.nd4j.linalg.executors.ExecutorServiceProvider;
+import org.nd4j.linalg.executors.PoolMetrics;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 
@@ -54,7 +57,93 @@ public class CachingDataSetIteratorTest extends BaseNd4jTest {
         FileUtils.deleteDirectory(cacheDir.toFile());
     }
 
+    @Test
+    public void testInFilePrefetch() throws IOException {
+        Path cacheDir = Files.createTempDirectory("nd4j-data-set-cache-test");
+        DataSetCache cache = new InFileDataSetCache(cacheDir);
+
+        runDataSetTest(cache, 2);
+
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
+    @Test
+    public void testBoundedInMemory() throws IOException {
+        Path cacheDir = Files.createTempDirectory("nd4j-data-set-cache-test");
+        // roughly two minibatches fit into memory tier, rest will be spilled to disk
+        BoundedInMemoryDataSetCache cache = new BoundedInMemoryDataSetCache(10000, cacheDir);
+
+        runDataSetTest(cache);
+
+        assertTrue(cache.getMemoryBytes() <= 10000);
+        assertTrue(cache.getSpilledEntries() > 0);
+        assertTrue(cache.getFileHits("test-namespace") > 0);
+        assertEquals(0, cache.getMisses("test-namespace"));
+
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
+    @Test
+    public void testBoundedInMemorySpillWritesSerializedBytes() throws IOException {
+        Path cacheDir = Files.createTempDirectory("nd4j-data-set-cache-test");
+        // budget is smaller than a single DataSet, so each put spills previous entries
+        BoundedInMemoryDataSetCache cache = new BoundedInMemoryDataSetCache(1, cacheDir);
+
+        DataSet first = new DataSet(Nd4j.linspace(1, 20, 20).reshape(10, 2), Nd4j.zeros(10, 2));
+        DataSet second = new DataSet(Nd4j.linspace(21, 40, 20).reshape(10, 2), Nd4j.ones(10, 2));
+        cache.put("data-set-cache-spill-000000.bin", first);
+        cache.put("data-set-cache-spill-000001.bin", second);
+
+        assertEquals(2, cache.getSpilledEntries());
+
+        // spilled files are plain DataSet.save() output
+        InFileDataSetCache fileCache = new InFileDataSetCache(cacheDir);
+        assertEquals(first, fileCache.get("data-set-cache-spill-000000.bin"));
+        assertEquals(second, fileCache.get("data-set-cache-spill-000001.bin"));
+
+        assertEquals(first, cache.get("data-set-cache-spill-000000.bin"));
+        assertEquals(1, cache.getFileHits("spill"));
+
+        FileUtils.deleteDirectory(cacheDir.toFile());
+    }
+
+    @Test
+    public void testAbandonedPrefetchReleasesPoolThread() throws Exception {
+        int baseline = ioPoolActiveThreads();
+
+        DataSet dataSet = new DataSet(Nd4j.ones(500, 100), Nd4j.zeros(500, 2));
+        DataSetIterator it = new SamplingDataSetIterator(dataSet, 10, 50);
+        CachingDataSetIterator cachedIt = new CachingDataSetIterator(it, new InMemoryDataSetCache(), "abandoned", false, 1);
+        while (cachedIt.hasNext())
+            cachedIt.next();
+
+        // second epoch is served by loader, which blocks on full queue after first DataSet
+        cachedIt.reset();
+        cachedIt.next();
+        cachedIt = null;
+
+        for (int i = 0; i < 100 && ioPoolActiveThreads() > baseline; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        assertEquals(baseline, ioPoolActiveThreads());
+    }
+
+    private static int ioPoolActiveThreads() {
+        ExecutorServiceProvider.getExecutorService(ExecutorServiceProvider.IO_POOL);
+        for (PoolMetrics metrics : ExecutorServiceProvider.getMetrics())
+            if (ExecutorServiceProvider.IO_POOL.equals(metrics.getName()))
+                return metrics.getActiveThreads();
+
+        throw new IllegalStateException("IO pool not found");
+    }
+
     private void runDataSetTest(DataSetCache cache) {
+        runDataSetTest(cache, 0);
+    }
+
+    private void runDataSetTest(DataSetCache cache, int prefetchSize) {
         int rows = 500;
         int inputColumns = 100;
         int outputColumns = 2;
@@ -67,7 +156,7 @@ public class CachingDataSetIteratorTest extends BaseNd4jTest {
 
         String namespace = "test-namespace";
 
-        CachingDataSetIterator cachedIt = new CachingDataSetIterator(it, cache, namespace);
+        CachingDataSetIterator cachedIt = new CachingDataSetIterator(it, cache, namespace, false, prefetchSize);
         PreProcessor preProcessor = new PreProcessor();
         cachedIt.setPreProcessor(preProcessor);
 
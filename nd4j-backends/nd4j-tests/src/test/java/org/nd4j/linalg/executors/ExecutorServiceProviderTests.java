@@ -0,0 +1,75 @@
+package org.nd4j.linalg.executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ExecutorServiceProviderTests {
+
+    @After
+    public void tearDown() {
+        // pools created by tests shouldn't leak into other tests
+        for (String name : new String[] {"provided", "not_provided", "registered"}) {
+            ExecutorService executorService = ExecutorServiceProvider.deregisterExecutorService(name);
+            if (executorService != null)
+                executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNamedPools1() throws Exception {
+        ExecutorService def = ExecutorServiceProvider.getExecutorService();
+        ExecutorService io = ExecutorServiceProvider.getExecutorService(ExecutorServiceProvider.IO_POOL);
+
+        assertSame(def, ExecutorServiceProvider.getExecutorService(ExecutorServiceProvider.DEFAULT_POOL));
+        assertSame(io, ExecutorServiceProvider.getExecutorService(ExecutorServiceProvider.IO_POOL));
+        assertNotSame(def, io);
+
+        io.submit(new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do here
+            }
+        }).get();
+
+        boolean found = false;
+        for (PoolMetrics metrics : ExecutorServiceProvider.getMetrics()) {
+            if (ExecutorServiceProvider.IO_POOL.equals(metrics.getName())) {
+                found = true;
+                assertTrue(metrics.getCompletedTasks() >= 1);
+                assertEquals(0, metrics.getQueueSize());
+            }
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void testProvider1() throws Exception {
+        final ExecutorService custom = Executors.newSingleThreadExecutor();
+        try {
+            ExecutorServiceProvider.setProvider(new ExecutorProvider() {
+                @Override
+                public ExecutorService createExecutorService(String poolName, int threads) {
+                    return "provided".equals(poolName) ? custom : null;
+                }
+            });
+
+            assertSame(custom, ExecutorServiceProvider.getExecutorService("provided"));
+            assertNotSame(custom, ExecutorServiceProvider.getExecutorService("not_provided"));
+
+            ExecutorService registered = Executors.newSingleThreadExecutor();
+            ExecutorServiceProvider.registerExecutorService("registered", registered);
+            assertSame(registered, ExecutorServiceProvider.getExecutorService("registered"));
+            registered.shutdown();
+        } finally {
+            ExecutorServiceProvider.setProvider(null);
+            custom.shutdown();
+            custom.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+}
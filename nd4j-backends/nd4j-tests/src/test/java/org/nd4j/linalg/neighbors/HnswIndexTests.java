@@ -0,0 +1,140 @@
+package org.nd4j.linalg.neighbors;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class HnswIndexTests {
+
+    @Test
+    public void testRecall1() throws Exception {
+        Nd4j.getRandom().setSeed(119);
+        INDArray vectors = Nd4j.rand(2000, 16);
+        INDArray queries = Nd4j.rand(50, 16);
+
+        HnswIndex index = new HnswIndex(16, DistanceMetric.EUCLIDEAN);
+        // incremental insertion: one vector, and then the rest of them
+        assertEquals(0, index.add(vectors.getRow(0)));
+        index.addAll(vectors.get(NDArrayIndex.interval(1, 2000), NDArrayIndex.all()));
+        assertEquals(2000, index.size());
+
+        index.setEf(100);
+        TopKResult approximate = index.search(queries, 10);
+        TopKResult exact = new TopKSearch(vectors, DistanceMetric.EUCLIDEAN).search(queries, 10);
+
+        double recall = recall(exact, approximate, 10);
+        log.info("Recall@10: {}", recall);
+        assertTrue(recall >= 0.9);
+
+        // closest element found by both should have the same distance
+        if (exact.getIndex(0, 0) == approximate.getIndex(0, 0))
+            assertEquals(exact.getDistances().getDouble(0, 0), approximate.getDistances().getDouble(0, 0), 1e-3);
+    }
+
+    @Test
+    public void testCosine1() throws Exception {
+        HnswIndex index = new HnswIndex(2, DistanceMetric.COSINE_SIMILARITY, 4, 16);
+        index.addAll(Nd4j.create(new double[][] {{1, 0}, {0, 1}, {1, 1}, {-1, 0}}));
+
+        TopKResult result = index.search(Nd4j.create(new double[][] {{2, 0.1}}), 2);
+        assertEquals(0, result.getIndex(0, 0));
+        assertEquals(2, result.getIndex(0, 1));
+        assertTrue(result.getDistances().getDouble(0, 0) > result.getDistances().getDouble(0, 1));
+    }
+
+    @Test
+    public void testSaveLoad1() throws Exception {
+        Nd4j.getRandom().setSeed(119);
+        INDArray vectors = Nd4j.rand(500, 8);
+        INDArray queries = Nd4j.rand(20, 8);
+
+        HnswIndex index = new HnswIndex(8, DistanceMetric.MANHATTAN, 8, 50);
+        index.addAll(vectors);
+
+        File file = File.createTempFile("hnsw", ".bin");
+        file.deleteOnExit();
+        index.save(file);
+
+        HnswIndex restored = HnswIndex.load(file);
+        assertEquals(index.size(), restored.size());
+        assertEquals(index.getMetric(), restored.getMetric());
+        assertEquals(index.getEf(), restored.getEf());
+
+        TopKResult expected = index.search(queries, 5);
+        TopKResult result = restored.search(queries, 5);
+        assertArrayEquals(expected.getIndices(), result.getIndices());
+        assertEquals(expected.getDistances(), result.getDistances());
+
+        // restored index should be still usable for insertion
+        restored.add(vectors.getRow(7));
+        assertEquals(501, restored.size());
+    }
+
+    @Test
+    public void testConcurrentQueries1() throws Exception {
+        Nd4j.getRandom().setSeed(119);
+        final INDArray vectors = Nd4j.rand(1000, 8);
+        final HnswIndex index = new HnswIndex(8, DistanceMetric.EUCLIDEAN);
+        index.addAll(vectors);
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 100;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 100; i++) {
+                            // every stored vector is its own nearest neighbour
+                            TopKResult result = index.search(vectors.getRow(offset + i), 1);
+                            assertEquals(0.0, result.getDistances().getDouble(0, 0), 1e-5);
+                        }
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        // insertions are allowed while queries are running
+        index.addAll(Nd4j.rand(100, 8));
+
+        for (Thread thread : threads)
+            thread.join();
+
+        if (error.get() != null)
+            throw new RuntimeException(error.get());
+
+        assertEquals(1100, index.size());
+    }
+
+    protected static double recall(TopKResult exact, TopKResult approximate, int k) {
+        int rows = exact.getIndices().length;
+        int matches = 0;
+        for (int r = 0; r < rows; r++) {
+            Set<Integer> expected = new HashSet<>();
+            for (int e = 0; e < k; e++)
+                expected.add(exact.getIndex(r, e));
+
+            for (int e = 0; e < k; e++)
+                if (expected.contains(approximate.getIndex(r, e)))
+                    matches++;
+        }
+
+        return matches / (double) (rows * k);
+    }
+}
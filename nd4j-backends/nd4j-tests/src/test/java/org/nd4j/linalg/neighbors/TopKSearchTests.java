@@ -0,0 +1,64 @@
+package org.nd4j.linalg.neighbors;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import static org.junit.Assert.assertEquals;
+
+@Slf4j
+public class TopKSearchTests {
+
+    @Test
+    public void testEuclideanTopK1() throws Exception {
+        Nd4j.getRandom().setSeed(119);
+        INDArray index = Nd4j.rand(100, 16);
+        INDArray queries = Nd4j.rand(37, 16);
+
+        // small blocks, so merging across index blocks and parallel query blocks are both involved
+        TopKSearch search = new TopKSearch(index, DistanceMetric.EUCLIDEAN).setQueryBlockSize(8).setIndexBlockSize(13);
+        TopKResult result = search.search(queries, 5);
+
+        assertEquals(37, result.getIndices().length);
+        assertEquals(5, result.getIndices()[0].length);
+
+        for (int q = 0; q < queries.rows(); q++) {
+            INDArray query = queries.getRow(q);
+
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < index.rows(); i++) {
+                double distance = Transforms.euclideanDistance(query, index.getRow(i));
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = i;
+                }
+            }
+
+            assertEquals(best, result.getIndex(q, 0));
+            assertEquals(bestDistance, result.getDistances().getDouble(q, 0), 1e-3);
+
+            // closest first
+            for (int e = 1; e < 5; e++)
+                assertEquals(true, result.getDistances().getDouble(q, e - 1) <= result.getDistances().getDouble(q, e));
+        }
+    }
+
+    @Test
+    public void testCosineTopK1() throws Exception {
+        INDArray index = Nd4j.create(new double[][] {{1, 0}, {0, 1}, {1, 1}, {-1, 0}});
+        INDArray queries = Nd4j.create(new double[][] {{2, 0.1}, {0.1, 3}});
+
+        TopKResult result = new TopKSearch(index, DistanceMetric.COSINE_SIMILARITY).search(queries, 4);
+
+        assertEquals(0, result.getIndex(0, 0));
+        assertEquals(2, result.getIndex(0, 1));
+        assertEquals(3, result.getIndex(0, 3));
+        assertEquals(1, result.getIndex(1, 0));
+        assertEquals(Transforms.cosineSim(queries.getRow(1), index.getRow(1)),
+                        result.getDistances().getDouble(1, 0), 1e-5);
+        assertEquals(3, result.getIndex(1, 3));
+    }
+}
@@ -0,0 +1,96 @@
+package org.nd4j.linalg.profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.nd4j.linalg.api.instrumentation.InMemoryInstrumentation;
+import org.nd4j.linalg.api.instrumentation.Instrumentation;
+import org.nd4j.linalg.api.instrumentation.LogEntry;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class InMemoryInstrumentationTests {
+
+    @Test
+    public void testLiveAndDestroyed1() throws Exception {
+        InMemoryInstrumentation instrumentation = new InMemoryInstrumentation(100, 100, 100);
+        instrumentation.setCaptureStackTraces(false);
+        try {
+            INDArray first = Nd4j.create(10);
+            INDArray second = Nd4j.create(20);
+
+            instrumentation.log(first);
+            instrumentation.log(second);
+            instrumentation.log(first, Instrumentation.DESTROYED);
+
+            assertEquals(1, instrumentation.getStillAlive().size());
+            assertEquals(20, instrumentation.getStillAlive().iterator().next().length());
+            assertEquals(1, instrumentation.getDestroyed().size());
+            assertEquals(3, instrumentation.getEntries().size());
+
+            Thread.sleep(20);
+            List<LogEntry> candidates = instrumentation.getLeakCandidates(10, TimeUnit.MILLISECONDS);
+            assertEquals(1, candidates.size());
+            assertEquals(0, instrumentation.getLeakCandidates(1, TimeUnit.HOURS).size());
+        } finally {
+            instrumentation.shutdown();
+        }
+    }
+
+    @Test
+    public void testStackTracesOptIn1() throws Exception {
+        InMemoryInstrumentation instrumentation = new InMemoryInstrumentation(100, 100, 100);
+        try {
+            instrumentation.log(Nd4j.create(10));
+            instrumentation.setCaptureStackTraces(true);
+            instrumentation.log(Nd4j.create(20));
+
+            List<LogEntry> entries = instrumentation.getEntries();
+            assertEquals(2, entries.size());
+            assertNull(entries.get(0).getStackTraceElements());
+            assertNotNull(entries.get(1).getStackTraceElements());
+        } finally {
+            instrumentation.shutdown();
+        }
+    }
+
+    @Test
+    public void testBoundedMemory1() throws Exception {
+        final InMemoryInstrumentation instrumentation = new InMemoryInstrumentation(50, 1024, 30);
+        instrumentation.setCaptureStackTraces(false);
+        try {
+            final INDArray array = Nd4j.create(10);
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 500; i++)
+                            instrumentation.log(array.dup());
+                    }
+                });
+                threads[t].start();
+            }
+
+            for (Thread thread : threads)
+                thread.join();
+
+            instrumentation.flush();
+
+            // history and live map never exceed their capacities, oldest entries are overwritten
+            assertEquals(50, instrumentation.getEntries().size());
+            assertTrue(instrumentation.getStillAlive().size() <= 30);
+            assertTrue(instrumentation.getEvictedCount() > 0);
+        } finally {
+            instrumentation.shutdown();
+        }
+    }
+}
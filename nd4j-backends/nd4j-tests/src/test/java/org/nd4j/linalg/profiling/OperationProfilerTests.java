@@ -13,9 +13,15 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.LatencyProfiler;
 import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.SamplingProfiler;
+import org.nd4j.linalg.profiler.data.LatencySnapshot;
+import org.nd4j.linalg.profiler.data.primitives.LatencyHistogram;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -346,5 +352,156 @@ public class OperationProfilerTests {
         }
     }
 
+    @Test
+    public void testLatencyHistogram1() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000L, histogram.getMinimum());
+        assertEquals(1000000L, histogram.getMaximum());
+        assertEquals(500500L, histogram.getAverage());
+
+        // buckets keep ~6% relative precision
+        assertEquals(500000.0, histogram.getMedian(), 500000.0 * 0.07);
+        assertEquals(990000.0, histogram.getPercentile(99.0), 990000.0 * 0.07);
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(5L);
+        histogram.merge(other);
+
+        assertEquals(1001, histogram.getCount());
+        assertEquals(5L, histogram.getMinimum());
+    }
+
+    @Test
+    public void testLatencyProfiler1() throws Exception {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.LATENCY);
+        LatencyProfiler.getInstance().reset();
+
+        final int threads = 4;
+        final int iterations = 100;
+        final AtomicInteger failures = new AtomicInteger(0);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        INDArray array = Nd4j.createUninitialized(100);
+                        for (int i = 0; i < iterations; i++) {
+                            array.assign(10f);
+                            array.divi(2f);
+                        }
+                    } catch (Throwable e) {
+                        log.error("", e);
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+
+        for (Thread worker : workers)
+            worker.join();
+
+        assertEquals(0, failures.get());
+
+        LatencySnapshot snapshot = LatencyProfiler.getInstance().snapshot();
+        log.info("Latencies:\n{}", snapshot.asString());
+
+        assertEquals(threads * iterations * 2, snapshot.getTotalCount());
+        assertEquals(threads, snapshot.getNumberOfThreads());
+        assertEquals(2, snapshot.getOpNames().size());
+
+        for (String opName : snapshot.getOpNames()) {
+            assertEquals(1, snapshot.getShapeClasses(opName).size());
+            assertEquals(threads * iterations, snapshot.getHistogram(opName).getCount());
+        }
+
+        LatencyProfiler.getInstance().reset();
+        assertEquals(0, LatencyProfiler.getInstance().snapshot().getTotalCount());
+    }
+
+    @Test
+    public void testLatencyProfilerSampleRate() throws Exception {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.LATENCY);
+        LatencyProfiler.getInstance().reset();
+        LatencyProfiler.getInstance().setSampleRate(10);
+
+        try {
+            INDArray array = Nd4j.createUninitialized(100);
+            for (int i = 0; i < 100; i++)
+                array.assign(10f);
+
+            assertEquals(10, LatencyProfiler.getInstance().snapshot().getTotalCount());
+        } finally {
+            LatencyProfiler.getInstance().setSampleRate(1);
+            LatencyProfiler.getInstance().reset();
+        }
+    }
 
+    @Test
+    public void testSamplingProfiler1() {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.SAMPLING);
+        SamplingProfiler.getInstance().setSampleRate(10);
+        SamplingProfiler.getInstance().reset();
+
+        try {
+            INDArray matrix = Nd4j.create(10, 10);
+            INDArray column = matrix.getColumn(1);
+
+            for (int i = 0; i < 1000; i++)
+                column.addi(1.0);
+
+            SamplingProfiler.getInstance().printOutDashboard();
+
+            assertEquals(1000, SamplingProfiler.getInstance().getTotalCount());
+            assertEquals(100, SamplingProfiler.getInstance().getSampledCount());
+
+            long strided = SamplingProfiler.getInstance().getEstimatedCount(OpProfiler.PenaltyCause.STRIDED_ACCESS);
+            assertTrue(strided > 900 && strided <= 1000);
+            assertEquals(0, SamplingProfiler.getInstance().getEstimatedCount(OpProfiler.PenaltyCause.MIXED_ORDER));
+
+            Map<String, Long> hotSpots = SamplingProfiler.getInstance().getHotSpots(OpProfiler.PenaltyCause.STRIDED_ACCESS);
+            assertTrue(hotSpots.size() > 0);
+            assertTrue(hotSpots.keySet().iterator().next().contains("testSamplingProfiler1"));
+        } finally {
+            SamplingProfiler.getInstance().setSampleRate(SamplingProfiler.DEFAULT_SAMPLE_RATE);
+        }
+    }
+
+    @Test
+    public void testSamplingProfilerFinishedThreads() throws Exception {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.SAMPLING);
+        SamplingProfiler.getInstance().setSampleRate(10);
+        SamplingProfiler.getInstance().reset();
+
+        try {
+            final int iterations = 100;
+            for (int t = 0; t < 4; t++) {
+                Thread worker = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        INDArray column = Nd4j.create(10, 10).getColumn(1);
+                        for (int i = 0; i < iterations; i++)
+                            column.addi(1.0);
+                    }
+                });
+                worker.start();
+                worker.join();
+            }
+
+            // counters of finished threads are retired, not lost
+            assertEquals(4 * iterations, SamplingProfiler.getInstance().getTotalCount());
+            assertEquals(4 * iterations / 10, SamplingProfiler.getInstance().getSampledCount());
+            assertTrue(SamplingProfiler.getInstance().getEstimatedCount(OpProfiler.PenaltyCause.STRIDED_ACCESS) > 0);
+
+            SamplingProfiler.getInstance().reset();
+            assertEquals(0, SamplingProfiler.getInstance().getTotalCount());
+        } finally {
+            SamplingProfiler.getInstance().setSampleRate(SamplingProfiler.DEFAULT_SAMPLE_RATE);
+        }
+    }
 }
@@ -0,0 +1,188 @@
+package org.nd4j.linalg.workspace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.memory.abstracts.ConcurrentWorkspace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+@RunWith(Parameterized.class)
+public class ConcurrentWorkspaceTests extends BaseNd4jTest {
+    private DataBuffer.Type initialType;
+
+    public ConcurrentWorkspaceTests(Nd4jBackend backend) {
+        super(backend);
+        this.initialType = Nd4j.dataType();
+    }
+
+    @After
+    public void shutUp() throws Exception {
+        Nd4j.getMemoryManager().setCurrentWorkspace(null);
+        Nd4j.getWorkspaceManager().destroySharedWorkspace("SHARED");
+        Nd4j.setDataType(this.initialType);
+    }
+
+    @Test
+    public void testSharedAllocations1() throws Exception {
+        Nd4j.setDataType(DataBuffer.Type.FLOAT);
+
+        WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(10 * 1024L * 1024L)
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE)
+                        .policySpill(SpillPolicy.EXTERNAL).build();
+
+        final ConcurrentWorkspace workspace = (ConcurrentWorkspace) Nd4j.getWorkspaceManager()
+                        .getSharedWorkspace(configuration, "SHARED");
+
+        assertTrue(workspace == Nd4j.getWorkspaceManager().getSharedWorkspace(configuration, "SHARED"));
+
+        final int numThreads = 4;
+        final CyclicBarrier inside = new CyclicBarrier(numThreads);
+        final CountDownLatch done = new CountDownLatch(numThreads);
+        final AtomicInteger failures = new AtomicInteger(0);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int value = t + 1;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                        INDArray array = Nd4j.create(1000).assign(value);
+                        if (!array.isAttached())
+                            failures.incrementAndGet();
+
+                        // all threads are within scope now, so nobody can reset workspace
+                        inside.await();
+
+                        if (array.sumNumber().floatValue() != 1000f * value)
+                            failures.incrementAndGet();
+                    } catch (Throwable e) {
+                        log.error("", e);
+                        failures.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        done.await();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, failures.get());
+        assertEquals(0, workspace.getNumberOfBorrowers());
+        assertFalse(workspace.isScopeActive());
+
+        // last borrower resets workspace
+        assertEquals(0, workspace.getBlockOffset());
+        assertEquals(0, workspace.getSpilledSize());
+        assertEquals(1, workspace.getCyclesCount());
+        assertEquals(numThreads * 4000, workspace.getLastCycleAllocations());
+    }
+
+    @Test
+    public void testSharedNestedScopes1() throws Exception {
+        WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(1024L * 1024L)
+                        .policyLearning(LearningPolicy.NONE).policySpill(SpillPolicy.EXTERNAL).build();
+
+        ConcurrentWorkspace workspace = (ConcurrentWorkspace) Nd4j.getWorkspaceManager()
+                        .getSharedWorkspace(configuration, "SHARED");
+
+        try (MemoryWorkspace ws1 = workspace.notifyScopeEntered()) {
+            Nd4j.create(100);
+            long offset = workspace.getBlockOffset();
+
+            try (MemoryWorkspace ws2 = workspace.notifyScopeEntered()) {
+                Nd4j.create(100);
+            }
+
+            // nested scope doesn't reset anything
+            assertEquals(offset, workspace.getBlockOffset());
+            assertEquals(1, workspace.getNumberOfBorrowers());
+            assertTrue(Nd4j.getMemoryManager().getCurrentWorkspace() == workspace);
+        }
+
+        assertNull(Nd4j.getMemoryManager().getCurrentWorkspace());
+        assertEquals(0, workspace.getNumberOfBorrowers());
+        assertEquals(0, workspace.getBlockOffset());
+    }
+
+    @Test
+    public void testSharedTaggedUse1() throws Exception {
+        WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(1024L * 1024L)
+                        .policyLearning(LearningPolicy.NONE).policySpill(SpillPolicy.EXTERNAL).build();
+
+        ConcurrentWorkspace workspace = (ConcurrentWorkspace) Nd4j.getWorkspaceManager()
+                        .getSharedWorkspace(configuration, "SHARED");
+
+        // tagged use outside of scope doesn't touch borrowers
+        workspace.tagOutOfScopeUse();
+        workspace.close();
+        assertEquals(0, workspace.getNumberOfBorrowers());
+
+        long cycles = workspace.getCyclesCount();
+        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+            Nd4j.create(100);
+            assertEquals(1, workspace.getNumberOfBorrowers());
+        }
+
+        // cycle is still reset once the last borrower leaves
+        assertEquals(cycles + 1, workspace.getCyclesCount());
+        assertEquals(0, workspace.getBlockOffset());
+    }
+
+    @Test
+    public void testSharedLearning1() throws Exception {
+        Nd4j.setDataType(DataBuffer.Type.FLOAT);
+
+        WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(0)
+                        .policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.FIRST_LOOP)
+                        .policySpill(SpillPolicy.EXTERNAL).build();
+
+        ConcurrentWorkspace workspace = (ConcurrentWorkspace) Nd4j.getWorkspaceManager()
+                        .getSharedWorkspace(configuration, "SHARED");
+
+        assertEquals(0, workspace.getCurrentSize());
+
+        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+            Nd4j.create(1000);
+            assertEquals(4000, workspace.getSpilledSize());
+        }
+
+        assertEquals(4000, workspace.getCurrentSize());
+
+        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+            Nd4j.create(1000);
+            assertEquals(0, workspace.getSpilledSize());
+            assertEquals(4000, workspace.getBlockOffset());
+        }
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -9,6 +9,10 @@ import org.junit.runners.Parameterized;
 import org.nd4j.linalg.BaseNd4jTest;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.WorkspaceEvent;
+import org.nd4j.linalg.api.memory.WorkspaceListener;
+import org.nd4j.linalg.api.memory.WorkspacePool;
+import org.nd4j.linalg.api.memory.WorkspaceStatistics;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.*;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -22,6 +26,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -970,6 +975,139 @@ public class WorkspaceProviderTests extends BaseNd4jTest {
 
     }
 
+    @Test
+    public void testWorkspacePool1() throws Exception {
+        long requiredMemory = 1000 * Nd4j.sizeOfDataType();
+
+        WorkspacePool pool = Nd4j.getWorkspaceManager().createWorkspacePool(firstConfiguration, "POOL", 2);
+
+        try (WorkspacePool.Lease lease = pool.lease()) {
+            assertTrue(Nd4j.getMemoryManager().getCurrentWorkspace() == lease.getWorkspace());
+            INDArray array = Nd4j.create(1000);
+            assertTrue(array.isAttached());
+        }
+
+        assertNull(Nd4j.getMemoryManager().getCurrentWorkspace());
+
+        // first loop spills, and its size is learned by the whole pool
+        assertEquals(1, pool.getNumberOfSpills());
+        assertEquals(requiredMemory, pool.getLearnedSize());
+
+        try (WorkspacePool.Lease lease1 = pool.lease()) {
+            try (WorkspacePool.Lease lease2 = pool.lease()) {
+                assertNotEquals(lease1.getWorkspace(), lease2.getWorkspace());
+
+                // second workspace is created pre-sized
+                assertEquals(requiredMemory, lease2.getWorkspace().getCurrentSize());
+                Nd4j.create(1000);
+
+                // pool is exhausted
+                assertNull(pool.lease(10, TimeUnit.MILLISECONDS));
+            }
+        }
+
+        assertEquals(1, pool.getNumberOfSpills());
+        assertEquals(1, pool.getNumberOfWaits());
+        assertEquals(2, pool.getNumberOfWorkspaces());
+        assertEquals(2, pool.getMaxLeased());
+        assertEquals(0, pool.getNumberOfLeased());
+        assertEquals(3, pool.getNumberOfLeases());
+
+        pool.destroy();
+        assertEquals(0, pool.getNumberOfWorkspaces());
+    }
+
+    @Test
+    public void testWorkspacePoolKeepsThreadWorkspace() throws Exception {
+        // pooled workspace gets the same id as workspace already owned by this thread
+        MemoryWorkspace own = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(firstConfiguration, "POOL2_0");
+        WorkspacePool pool = Nd4j.getWorkspaceManager().createWorkspacePool(firstConfiguration, "POOL2", 1);
+
+        try (WorkspacePool.Lease lease = pool.lease()) {
+            assertNotEquals(own, lease.getWorkspace());
+        }
+
+        assertTrue(own == Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread("POOL2_0"));
+
+        pool.destroy();
+    }
+
+    @Test
+    public void testWorkspaceListener1() throws Exception {
+        long requiredMemory = 1000 * Nd4j.sizeOfDataType();
+
+        final List<WorkspaceEvent> events = new CopyOnWriteArrayList<>();
+        WorkspaceListener listener = new WorkspaceListener() {
+            @Override
+            public void onEvent(WorkspaceEvent event) {
+                if ("WS_LISTENER".equals(event.getWorkspaceId()))
+                    events.add(event);
+            }
+        };
+
+        Nd4j.getWorkspaceManager().addWorkspaceListener(listener);
+        try {
+            WorkspaceStatistics before = Nd4j.getWorkspaceManager().getWorkspaceStatistics();
+
+            try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(firstConfiguration,
+                            "WS_LISTENER")) {
+                Nd4j.create(1000);
+            }
+
+            WorkspaceStatistics after = Nd4j.getWorkspaceManager().getWorkspaceStatistics();
+
+            assertEquals(2, events.size());
+            assertEquals(WorkspaceEventType.SPILL, events.get(0).getType());
+            assertEquals(requiredMemory, events.get(0).getBytes());
+            assertEquals(WorkspaceEventType.LEARNED, events.get(1).getType());
+            assertEquals(requiredMemory, events.get(1).getCurrentSize());
+
+            assertEquals(1, after.getEventCount(WorkspaceEventType.SPILL)
+                            - before.getEventCount(WorkspaceEventType.SPILL));
+            assertEquals(requiredMemory, after.getEventBytes(WorkspaceEventType.SPILL)
+                            - before.getEventBytes(WorkspaceEventType.SPILL));
+
+            WorkspaceStatistics.Entry entry = after.getWorkspaces().get("WS_LISTENER");
+            assertNotNull(entry);
+            assertEquals(requiredMemory, entry.getCurrentSize());
+            assertEquals(requiredMemory, entry.getMaxCycleAllocations());
+
+            Nd4j.getWorkspaceManager()
+                            .destroyWorkspace(Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread("WS_LISTENER"));
+
+            assertEquals(3, events.size());
+            assertEquals(WorkspaceEventType.DESTROY, events.get(2).getType());
+        } finally {
+            Nd4j.getWorkspaceManager().removeWorkspaceListener(listener);
+        }
+    }
+
+    @Test
+    public void testWorkspaceStatisticsWithoutListeners1() throws Exception {
+        long requiredMemory = 1000 * Nd4j.sizeOfDataType();
+
+        assertFalse(Nd4j.getWorkspaceManager().hasWorkspaceListeners());
+
+        WorkspaceStatistics before = Nd4j.getWorkspaceManager().getWorkspaceStatistics();
+
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(firstConfiguration,
+                        "WS_NO_LISTENER")) {
+            Nd4j.create(1000);
+        }
+
+        Nd4j.getWorkspaceManager()
+                        .destroyWorkspace(Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread("WS_NO_LISTENER"));
+
+        WorkspaceStatistics after = Nd4j.getWorkspaceManager().getWorkspaceStatistics();
+
+        // counters of destroyed workspace are kept
+        assertEquals(1, after.getEventCount(WorkspaceEventType.SPILL) - before.getEventCount(WorkspaceEventType.SPILL));
+        assertEquals(requiredMemory, after.getEventBytes(WorkspaceEventType.SPILL)
+                        - before.getEventBytes(WorkspaceEventType.SPILL));
+        assertEquals(1, after.getEventCount(WorkspaceEventType.DESTROY)
+                        - before.getEventCount(WorkspaceEventType.DESTROY));
+    }
+
     @Override
     public char ordering() {
         return 'c';
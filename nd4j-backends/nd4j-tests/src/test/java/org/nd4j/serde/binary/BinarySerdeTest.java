@@ -4,13 +4,19 @@ import org.apache.commons.lang3.time.StopWatch;
 import org.junit.Test;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.CompressedDataBuffer;
+import org.nd4j.linalg.compression.CompressionDescriptor;
 import org.nd4j.linalg.factory.Nd4j;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.UUID;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -67,6 +73,93 @@ public class BinarySerdeTest {
         assertEquals(rand, fromDisk);
     }
 
+    @Test
+    public void testReadWriteFileMapped() throws Exception {
+        File tmpFile = new File(System.getProperty("java.io.tmpdir"),
+                        "ndarraytmp-" + UUID.randomUUID().toString() + " .bin");
+        tmpFile.deleteOnExit();
+        INDArray rand = Nd4j.randn(5, 5);
+        BinarySerde.writeArrayToDisk(rand, tmpFile);
+        INDArray fromDisk = BinarySerde.readFromDiskMapped(tmpFile);
+        assertEquals(rand, fromDisk);
+
+        // changes are private to mapping, file stays intact
+        fromDisk.addi(1.0);
+        assertEquals(rand, BinarySerde.readFromDisk(tmpFile));
+    }
+
+    @Test
+    public void testReadWriteFileMappedNative() throws Exception {
+        File tmpFile = new File(System.getProperty("java.io.tmpdir"),
+                        "ndarraytmp-" + UUID.randomUUID().toString() + " .bin");
+        tmpFile.deleteOnExit();
+        INDArray rand = Nd4j.randn(50, 50);
+        BinarySerde.writeArrayToDisk(rand, tmpFile);
+
+        // same path is used for files larger than 2GB
+        INDArray fromDisk = BinarySerde.readFromDiskMappedNative(tmpFile);
+        assertEquals(rand, fromDisk);
+    }
+
+    @Test
+    public void testChannelChunked() throws Exception {
+        File tmpFile = new File(System.getProperty("java.io.tmpdir"),
+                        "ndarraytmp-" + UUID.randomUUID().toString() + " .bin");
+        tmpFile.deleteOnExit();
+        INDArray rand = Nd4j.randn(100, 100);
+        try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+            BinarySerde.writeArrayToChannel(rand, fos.getChannel(), 1000);
+        }
+
+        // streamed layout should match regular one
+        assertEquals(rand, BinarySerde.readFromDisk(tmpFile));
+
+        try (FileInputStream fis = new FileInputStream(tmpFile)) {
+            INDArray fromChannel = BinarySerde.readFromChannel(fis.getChannel(), 999);
+            assertEquals(rand, fromChannel);
+        }
+    }
+
+    @Test
+    public void testChannelCompressed() throws Exception {
+        INDArray arr = Nd4j.linspace(1, 1000, 1000);
+        INDArray compressed = Nd4j.getCompressor().compress(arr, "GZIP");
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        BinarySerde.writeArrayToChannel(compressed, Channels.newChannel(bos), 64);
+
+        INDArray restored = BinarySerde.readFromChannel(
+                        Channels.newChannel(new ByteArrayInputStream(bos.toByteArray())), 64);
+        assertTrue(restored.isCompressed());
+        assertEquals(arr, Nd4j.getCompressor().decompress(restored));
+    }
+
+    @Test
+    public void testToAndFromBlockCompressed() throws Exception {
+        INDArray arr = Nd4j.linspace(1, 10000, 20000);
+
+        Nd4j.getCompressor().setBlockSize(3000);
+        try {
+            INDArray compressed = Nd4j.getCompressor().compress(arr, "GZIP");
+
+            INDArray back = BinarySerde.toArray(BinarySerde.toByteBuffer(compressed));
+            assertTrue(back.isCompressed());
+            CompressionDescriptor descriptor = ((CompressedDataBuffer) back.data()).getCompressionDescriptor();
+            assertTrue(descriptor.isBlocked());
+            assertEquals(7, descriptor.getNumberOfBlocks());
+            assertEquals(arr, Nd4j.getCompressor().decompress(back));
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            BinarySerde.writeArrayToChannel(compressed, Channels.newChannel(bos), 64);
+            INDArray restored = BinarySerde.readFromChannel(
+                            Channels.newChannel(new ByteArrayInputStream(bos.toByteArray())), 64);
+            assertTrue(((CompressedDataBuffer) restored.data()).getCompressionDescriptor().isBlocked());
+            assertEquals(arr, Nd4j.getCompressor().decompress(restored));
+        } finally {
+            Nd4j.getCompressor().setBlockSize(0);
+        }
+    }
+
     @Test
     public void testReadShapeFile() throws Exception {
         File tmpFile = new File(System.getProperty("java.io.tmpdir"),
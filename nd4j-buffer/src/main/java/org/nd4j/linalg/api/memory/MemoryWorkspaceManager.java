@@ -165,6 +165,78 @@ public interface MemoryWorkspaceManager {
      */
     MemoryWorkspace scopeOutOfWorkspaces();
 
+    /**
+     * This method returns Workspace with a given Id, shared by all threads within JVM process.
+     * Workspace is created with given configuration, if it wasn't created before.
+     *
+     * PLEASE NOTE: Unlike workspaces returned by getWorkspaceForCurrentThread(), this workspace can be entered by multiple threads at the same time
+     *
+     * @param configuration
+     * @param id
+     * @return
+     */
+    MemoryWorkspace getSharedWorkspace(WorkspaceConfiguration configuration, String id);
+
+    /**
+     * This method returns shared Workspace with a given Id, created with default configuration if it wasn't created before
+     *
+     * @param id
+     * @return
+     */
+    MemoryWorkspace getSharedWorkspace(String id);
+
+    /**
+     * This method destroys shared Workspace with a given Id, if any
+     *
+     * PLEASE NOTE: Workspace can't be destroyed while any thread is within its scope
+     *
+     * @param id
+     */
+    void destroySharedWorkspace(String id);
+
+    /**
+     * This method creates pool of workspaces with a given configuration, that can be leased to any thread for the duration of single scope.
+     * Size learned by any pooled workspace is shared across the whole pool.
+     *
+     * @param configuration
+     * @param id
+     * @param poolSize maximum number of workspaces in this pool
+     * @return
+     */
+    WorkspacePool createWorkspacePool(WorkspaceConfiguration configuration, String id, int poolSize);
+
+    /**
+     * This method registers listener for workspace events of all threads
+     *
+     * @param listener
+     */
+    void addWorkspaceListener(WorkspaceListener listener);
+
+    void removeWorkspaceListener(WorkspaceListener listener);
+
+    /**
+     * This method returns true if there's at least one listener registered.
+     * Workspaces check it before creating WorkspaceEvent, so events cost nothing when nobody listens
+     *
+     * @return
+     */
+    boolean hasWorkspaceListeners();
+
+    /**
+     * This method is called by workspaces to report events. Event is delivered to all listeners.
+     * Event counters are kept by workspaces themselves, and aggregated in getWorkspaceStatistics()
+     *
+     * @param event
+     */
+    void notifyWorkspaceEvent(WorkspaceEvent event);
+
+    /**
+     * This method returns snapshot of statistics for workspaces of all threads
+     *
+     * @return
+     */
+    WorkspaceStatistics getWorkspaceStatistics();
+
 
     void printAllocationStatisticsForCurrentThread();
 }
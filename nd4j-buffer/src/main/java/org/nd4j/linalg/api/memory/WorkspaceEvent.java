@@ -0,0 +1,22 @@
+package org.nd4j.linalg.api.memory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.nd4j.linalg.api.memory.enums.WorkspaceEventType;
+
+/**
+ * This class describes single workspace event, delivered to WorkspaceListener instances
+ */
+@Data
+@AllArgsConstructor
+public class WorkspaceEvent {
+    private WorkspaceEventType type;
+    private String workspaceId;
+    private Long threadId;
+    // number of bytes spilled, or 0 for non-allocation events
+    private long bytes;
+    // workspace size before this event, and after it
+    private long previousSize;
+    private long currentSize;
+    private long timestamp;
+}
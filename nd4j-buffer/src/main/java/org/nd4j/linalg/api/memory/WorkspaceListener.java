@@ -0,0 +1,16 @@
+package org.nd4j.linalg.api.memory;
+
+/**
+ * This interface describes listener for workspace events: spills, reallocations, learning completion and destroy.
+ *
+ * PLEASE NOTE: Listeners are called synchronously, within the thread that caused the event, so they should be fast.
+ */
+public interface WorkspaceListener {
+
+    /**
+     * This method is called for each workspace event
+     *
+     * @param event
+     */
+    void onEvent(WorkspaceEvent event);
+}
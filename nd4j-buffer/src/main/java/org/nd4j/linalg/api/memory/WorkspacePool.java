@@ -0,0 +1,297 @@
+package org.nd4j.linalg.api.memory;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size pool of workspaces, leased to a request (or any other unit of work) for the duration of one scope.
+ *
+ * Workspaces are created lazily, up to pool size. Once all of them are leased, further lease() calls wait for one to be returned.
+ * Learned size is shared across the pool: the largest cycle observed by any pooled workspace is used to pre-size
+ * workspaces that are created later, and to replace idle workspaces that are smaller than that, so learning/reallocation
+ * cost is paid once per pool instead of once per worker thread.
+ *
+ * Pool reports number of waits, spills and high-water marks.
+ *
+ * PLEASE NOTE: Workspaces are thread-confined, and pool hands them over between threads only at lease boundaries:
+ * leased workspace may be used only by the thread that leased it, and lease must be closed by that thread, otherwise
+ * IllegalStateException is thrown. On multi-device backends, all threads leasing from the same pool should be
+ * attached to the same device, since workspace memory stays on the device it was allocated on.
+ */
+@Slf4j
+public abstract class WorkspacePool {
+    @Getter
+    protected final String id;
+    @Getter
+    protected final int poolSize;
+    @Getter
+    protected final WorkspaceConfiguration workspaceConfiguration;
+
+    protected final LinkedBlockingQueue<MemoryWorkspace> idle = new LinkedBlockingQueue<>();
+    protected final List<MemoryWorkspace> created = new ArrayList<>();
+
+    protected final AtomicLong learnedSize = new AtomicLong(0);
+    protected final AtomicLong leases = new AtomicLong(0);
+    protected final AtomicLong waits = new AtomicLong(0);
+    protected final AtomicLong waitTime = new AtomicLong(0);
+    protected final AtomicLong spills = new AtomicLong(0);
+    protected final AtomicLong spilledBytes = new AtomicLong(0);
+    protected final AtomicLong replacements = new AtomicLong(0);
+    protected final AtomicInteger leased = new AtomicInteger(0);
+    protected final AtomicInteger maxLeased = new AtomicInteger(0);
+
+    protected WorkspacePool(@NonNull WorkspaceConfiguration configuration, @NonNull String id, int poolSize) {
+        if (poolSize < 1)
+            throw new IllegalArgumentException("Pool size should be positive");
+
+        this.workspaceConfiguration = configuration;
+        this.id = id;
+        this.poolSize = poolSize;
+        this.learnedSize.set(configuration.getInitialSize());
+    }
+
+    /**
+     * This method creates new workspace, not attached to any thread
+     *
+     * @param configuration
+     * @param id
+     * @return
+     */
+    protected abstract MemoryWorkspace createWorkspace(WorkspaceConfiguration configuration, String id);
+
+    /**
+     * This method leases workspace from this pool, waiting for one to be returned if all workspaces are leased.
+     * Workspace scope is entered before return.
+     *
+     * @return
+     */
+    public Lease lease() {
+        try {
+            return lease(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This method leases workspace from this pool, waiting up to given timeout if all workspaces are leased.
+     * Workspace scope is entered before return.
+     *
+     * @param timeout
+     * @param timeUnit
+     * @return Lease, or null if timeout has elapsed
+     * @throws InterruptedException
+     */
+    public Lease lease(long timeout, @NonNull TimeUnit timeUnit) throws InterruptedException {
+        MemoryWorkspace workspace = idle.poll();
+
+        if (workspace == null)
+            workspace = createIfAllowed();
+
+        if (workspace == null) {
+            waits.incrementAndGet();
+            long time = System.nanoTime();
+            workspace = idle.poll(timeout, timeUnit);
+            waitTime.addAndGet(System.nanoTime() - time);
+
+            if (workspace == null)
+                return null;
+        }
+
+        // workspace that's smaller than learned size is replaced with pre-sized one
+        if (workspace.getCurrentSize() < learnedSize.get()) {
+            MemoryWorkspace replacement = createWorkspace(configurationFor(learnedSize.get()), workspace.getId());
+            workspace.destroyWorkspace();
+
+            synchronized (created) {
+                created.set(created.indexOf(workspace), replacement);
+            }
+
+            replacements.incrementAndGet();
+            workspace = replacement;
+        }
+
+        leases.incrementAndGet();
+        int current = leased.incrementAndGet();
+        int max;
+        while ((max = maxLeased.get()) < current && !maxLeased.compareAndSet(max, current));
+
+        return new Lease(workspace, workspace.getCurrentSize());
+    }
+
+    protected MemoryWorkspace createIfAllowed() {
+        synchronized (created) {
+            if (created.size() >= poolSize)
+                return null;
+
+            MemoryWorkspace workspace =
+                            createWorkspace(configurationFor(learnedSize.get()), id + "_" + created.size());
+            created.add(workspace);
+            return workspace;
+        }
+    }
+
+    protected void release(Lease lease) {
+        MemoryWorkspace workspace = lease.getWorkspace();
+
+        long cycle = workspace.getLastCycleAllocations();
+        if (cycle > lease.getInitialSize()) {
+            spills.incrementAndGet();
+            spilledBytes.addAndGet(cycle - lease.getInitialSize());
+        }
+
+        long learned = Math.max(cycle, workspace.getMaxCycleAllocations());
+        if (workspaceConfiguration.getMaxSize() > 0)
+            learned = Math.min(learned, workspaceConfiguration.getMaxSize());
+
+        long current;
+        while ((current = learnedSize.get()) < learned && !learnedSize.compareAndSet(current, learned));
+
+        leased.decrementAndGet();
+        idle.add(workspace);
+    }
+
+    protected WorkspaceConfiguration configurationFor(long initialSize) {
+        WorkspaceConfiguration conf = workspaceConfiguration;
+        return WorkspaceConfiguration.builder().policyAllocation(conf.getPolicyAllocation())
+                        .policySpill(conf.getPolicySpill()).policyMirroring(conf.getPolicyMirroring())
+                        .policyLearning(conf.getPolicyLearning()).policyReset(conf.getPolicyReset())
+                        .policyLocation(conf.getPolicyLocation()).tempFilePath(conf.getTempFilePath())
+                        .initialSize(initialSize).minSize(conf.getMinSize()).maxSize(conf.getMaxSize())
+                        .cyclesBeforeInitialization(conf.getCyclesBeforeInitialization())
+                        .overallocationLimit(conf.getOverallocationLimit()).stepsNumber(conf.getStepsNumber())
+                        .build();
+    }
+
+    /**
+     * This method destroys all idle workspaces of this pool
+     */
+    public void destroy() {
+        MemoryWorkspace workspace;
+        while ((workspace = idle.poll()) != null) {
+            workspace.destroyWorkspace();
+
+            synchronized (created) {
+                created.remove(workspace);
+            }
+        }
+    }
+
+    /**
+     * This method returns size, in bytes, that's used for workspaces created by this pool
+     * @return
+     */
+    public long getLearnedSize() {
+        return learnedSize.get();
+    }
+
+    /**
+     * This method returns number of workspaces created by this pool so far
+     * @return
+     */
+    public int getNumberOfWorkspaces() {
+        synchronized (created) {
+            return created.size();
+        }
+    }
+
+    public long getNumberOfLeases() {
+        return leases.get();
+    }
+
+    /**
+     * This method returns number of lease() calls that had to wait for workspace to be returned
+     * @return
+     */
+    public long getNumberOfWaits() {
+        return waits.get();
+    }
+
+    /**
+     * This method returns total time spent waiting for workspaces, in nanoseconds
+     * @return
+     */
+    public long getWaitTime() {
+        return waitTime.get();
+    }
+
+    /**
+     * This method returns number of leases that allocated more memory than leased workspace had
+     * @return
+     */
+    public long getNumberOfSpills() {
+        return spills.get();
+    }
+
+    /**
+     * This method returns total number of bytes allocated beyond leased workspace sizes
+     * @return
+     */
+    public long getSpilledBytes() {
+        return spilledBytes.get();
+    }
+
+    /**
+     * This method returns number of idle workspaces replaced because they were smaller than learned size
+     * @return
+     */
+    public long getNumberOfReplacements() {
+        return replacements.get();
+    }
+
+    public int getNumberOfLeased() {
+        return leased.get();
+    }
+
+    /**
+     * This method returns highest number of workspaces leased at the same time
+     * @return
+     */
+    public int getMaxLeased() {
+        return maxLeased.get();
+    }
+
+    /**
+     * Workspace leased from pool. Closing lease leaves workspace scope, and returns workspace to pool.
+     */
+    public class Lease implements AutoCloseable {
+        @Getter
+        private final MemoryWorkspace workspace;
+        @Getter
+        private final long initialSize;
+        private final Thread owner;
+        private boolean closed = false;
+
+        protected Lease(MemoryWorkspace workspace, long initialSize) {
+            this.workspace = workspace;
+            this.initialSize = initialSize;
+            this.owner = Thread.currentThread();
+
+            workspace.notifyScopeEntered();
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+
+            if (Thread.currentThread() != owner)
+                throw new IllegalStateException("Lease of workspace [" + workspace.getId() + "] should be closed by thread ["
+                                + owner.getName() + "] that leased it");
+
+            closed = true;
+            workspace.close();
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.nd4j.linalg.api.memory;
+
+import lombok.Data;
+import org.nd4j.linalg.api.memory.enums.WorkspaceEventType;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of workspace statistics, aggregated across all threads.
+ *
+ * Sizes describe workspaces alive at the moment of snapshot, event counters are cumulative since manager creation.
+ */
+@Data
+public class WorkspaceStatistics {
+    private long timestamp;
+    private int numberOfWorkspaces;
+
+    private long currentSize;
+    private long spilledSize;
+    private long pinnedSize;
+    private long lastCycleAllocations;
+    private long maxCycleAllocations;
+    private int numberOfExternalAllocations;
+    private int numberOfPinnedAllocations;
+
+    // per workspace id, aggregated across threads
+    private Map<String, Entry> workspaces = new HashMap<>();
+
+    private Map<WorkspaceEventType, Long> eventCounts = new EnumMap<>(WorkspaceEventType.class);
+    private Map<WorkspaceEventType, Long> eventBytes = new EnumMap<>(WorkspaceEventType.class);
+
+    /**
+     * This method adds single workspace to this snapshot
+     */
+    public void add(String id, long currentSize, long spilledSize, long pinnedSize, long lastCycleAllocations,
+                    long maxCycleAllocations, int numberOfExternalAllocations, int numberOfPinnedAllocations) {
+        this.numberOfWorkspaces++;
+        this.currentSize += currentSize;
+        this.spilledSize += spilledSize;
+        this.pinnedSize += pinnedSize;
+        this.lastCycleAllocations += lastCycleAllocations;
+        this.maxCycleAllocations = Math.max(this.maxCycleAllocations, maxCycleAllocations);
+        this.numberOfExternalAllocations += numberOfExternalAllocations;
+        this.numberOfPinnedAllocations += numberOfPinnedAllocations;
+
+        Entry entry = workspaces.get(id);
+        if (entry == null) {
+            entry = new Entry();
+            workspaces.put(id, entry);
+        }
+
+        entry.numberOfInstances++;
+        entry.currentSize += currentSize;
+        entry.spilledSize += spilledSize;
+        entry.pinnedSize += pinnedSize;
+        entry.maxCycleAllocations = Math.max(entry.maxCycleAllocations, maxCycleAllocations);
+    }
+
+    public long getEventCount(WorkspaceEventType type) {
+        Long count = eventCounts.get(type);
+        return count == null ? 0 : count;
+    }
+
+    public long getEventBytes(WorkspaceEventType type) {
+        Long bytes = eventBytes.get(type);
+        return bytes == null ? 0 : bytes;
+    }
+
+    @Data
+    public static class Entry {
+        private int numberOfInstances;
+        private long currentSize;
+        private long spilledSize;
+        private long pinnedSize;
+        private long maxCycleAllocations;
+    }
+}
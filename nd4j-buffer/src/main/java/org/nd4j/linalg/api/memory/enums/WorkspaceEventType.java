@@ -0,0 +1,29 @@
+package org.nd4j.linalg.api.memory.enums;
+
+public enum WorkspaceEventType {
+    /**
+     * Allocation didn't fit into workspace, and was served by external allocation
+     */
+    SPILL,
+
+    /**
+     * Allocation didn't fit into circular workspace, and was served by pinned allocation
+     */
+    PINNED,
+
+    /**
+     * Workspace was reallocated to larger size
+     */
+    REALLOCATE,
+
+    /**
+     * Workspace learned its size, and was allocated for the first time
+     */
+    LEARNED,
+
+    /**
+     * Workspace was destroyed via MemoryWorkspaceManager, or was garbage collected without being destroyed.
+     * For garbage collected workspace event is fired from workspace deallocator thread, and its sizes are 0
+     */
+    DESTROY,
+}
@@ -34,6 +34,16 @@ public class PagedPointer extends Pointer {
         this.position = 0;
     }
 
+    public PagedPointer(long address, long capacity) {
+        this.originalPointer = null;
+
+        this.address = address;
+
+        this.capacity = capacity;
+        this.limit = capacity;
+        this.position = 0;
+    }
+
     public PagedPointer(Pointer pointer) {
         this.originalPointer = pointer;
 
@@ -25,6 +25,8 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import java.io.IOException;
 import java.sql.Blob;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Load a complex ndarray via org.nd4j.jdbc
@@ -118,5 +120,21 @@ public interface JDBCNDArrayIO {
      */
     void delete(String id) throws SQLException;
 
+    /**
+     * Save the given ndarrays using batched inserts.
+     * Arrays are stored in binary format, and should be loaded back via {@link #loadBatch(Collection)}
+     *
+     * @param arrays the ndarrays to save, keyed by id
+     */
+    void saveBatch(Map<String, INDArray> arrays) throws SQLException, IOException;
+
+    /**
+     * Load ndarrays saved earlier via {@link #saveBatch(Map)}
+     *
+     * @param ids the ids to load
+     * @return loaded ndarrays keyed by id. Missing ids are not present in the map
+     */
+    Map<String, INDArray> loadBatch(Collection<String> ids) throws SQLException, IOException;
+
 
 }
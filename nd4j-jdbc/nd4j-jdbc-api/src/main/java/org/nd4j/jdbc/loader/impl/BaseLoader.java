@@ -25,24 +25,57 @@ import org.nd4j.jdbc.loader.api.JDBCNDArrayIO;
 import org.nd4j.linalg.api.complex.IComplexNDArray;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.serde.binary.BinarySerde;
 
 import javax.sql.DataSource;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Base class for loading ndarrays via org.nd4j.jdbc
  *
+ * {@link #save(INDArray, String)} stores ndarrays via {@link Nd4j#write(INDArray, DataOutputStream)}.
+ * {@link #saveBatch(Map)} streams them in {@link BinarySerde} format, prefixed with a magic number,
+ * a format version and the byte order the array was written in.
+ * Both load methods branch on that prefix, so rows written through either API can be read through the other.
+ * Complex ndarrays are stored via {@link Nd4j#writeComplex(IComplexNDArray, DataOutputStream)}.
+ *
  * @author Adam Gibson
  */
 
 public abstract class BaseLoader implements JDBCNDArrayIO {
 
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Prefix of rows written by {@link #saveBatch(Map)}.
+     * {@link Nd4j#write(INDArray, DataOutputStream)} output starts with a zero byte, so it can't collide.
+     */
+    private static final byte[] BINARY_SERDE_MAGIC = {(byte) 0xFF, 'N', 'D', 'B'};
+    private static final byte BINARY_SERDE_VERSION = 1;
+    private static final byte LITTLE_ENDIAN = 0;
+    private static final byte BIG_ENDIAN = 1;
+    private static final int HEADER_LENGTH = BINARY_SERDE_MAGIC.length + 2;
+
     protected String tableName, columnName, idColumnName, jdbcUrl;
     protected DataSource dataSource;
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+    // compression algorithm used by saveBatch, null means no compression
+    protected String compressionAlgorithm;
 
     protected BaseLoader(DataSource dataSource, String jdbcUrl, String tableName, String idColumnName,
                     String columnName) throws Exception {
@@ -130,8 +163,9 @@ public abstract class BaseLoader implements JDBCNDArrayIO {
     public INDArray load(Blob blob) throws SQLException, IOException {
         if (blob == null)
             return null;
-        DataInputStream dis = new DataInputStream(blob.getBinaryStream());
-        return Nd4j.read(dis);
+        try (InputStream is = blob.getBinaryStream()) {
+            return read(is);
+        }
     }
 
     /**
@@ -234,4 +268,278 @@ public abstract class BaseLoader implements JDBCNDArrayIO {
         p.close();
 
     }
+
+    /**
+     * Create a select statement for the given number of ids.
+     * This should be a templated query, with one question mark per id.
+     *
+     * @param numIds the number of ids
+     * @return a new select statement
+     */
+    public String loadBatchStatement(int numIds) {
+        StringBuilder builder = new StringBuilder("SELECT * FROM ").append(tableName).append(" WHERE ")
+                        .append(idColumnName).append(" IN (");
+        for (int i = 0; i < numIds; i++) {
+            if (i > 0)
+                builder.append(",");
+            builder.append("?");
+        }
+        return builder.append(")").toString();
+    }
+
+    /**
+     * Save the given ndarrays using JDBC batch inserts,
+     * executing a batch every {@link #getBatchSize()} rows within a single transaction.
+     *
+     * Arrays are written in {@link BinarySerde} format after a magic prefix, streamed to the driver
+     * straight from their memory, and compressed with {@link #getCompressionAlgorithm()} codec if one is set.
+     *
+     * @param arrays the ndarrays to save, keyed by id
+     */
+    @Override
+    public void saveBatch(Map<String, INDArray> arrays) throws SQLException, IOException {
+        Connection c = dataSource.getConnection();
+        boolean autoCommit = c.getAutoCommit();
+        try {
+            c.setAutoCommit(false);
+            PreparedStatement preparedStatement = c.prepareStatement(insertStatement());
+            try {
+                int pending = 0;
+                for (Map.Entry<String, INDArray> entry : arrays.entrySet()) {
+                    INDArray array = entry.getValue();
+                    if (compressionAlgorithm != null && !array.isCompressed())
+                        array = Nd4j.getCompressor().compress(array, compressionAlgorithm);
+
+                    ArrayInputStream is = new ArrayInputStream(array);
+                    preparedStatement.setString(1, entry.getKey());
+                    preparedStatement.setBinaryStream(2, is, is.length());
+                    preparedStatement.addBatch();
+
+                    if (++pending >= batchSize) {
+                        preparedStatement.executeBatch();
+                        pending = 0;
+                    }
+                }
+
+                if (pending > 0)
+                    preparedStatement.executeBatch();
+            } finally {
+                preparedStatement.close();
+            }
+            c.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(autoCommit);
+            c.close();
+        }
+    }
+
+    /**
+     * Load ndarrays saved earlier via {@link #saveBatch(Map)} or {@link #save(INDArray, String)},
+     * querying up to {@link #getBatchSize()} ids per statement.
+     * Array data is streamed from the driver straight into off-heap memory.
+     * Compressed arrays are decompressed.
+     *
+     * @param ids the ids to load
+     * @return loaded ndarrays keyed by id. Missing ids are not present in the map
+     */
+    @Override
+    public Map<String, INDArray> loadBatch(Collection<String> ids) throws SQLException, IOException {
+        Map<String, INDArray> ret = new LinkedHashMap<>();
+        List<String> idList = new ArrayList<>(ids);
+        Connection c = dataSource.getConnection();
+        try {
+            for (int from = 0; from < idList.size(); from += batchSize) {
+                List<String> part = idList.subList(from, Math.min(from + batchSize, idList.size()));
+                PreparedStatement preparedStatement = c.prepareStatement(loadBatchStatement(part.size()));
+                try {
+                    for (int i = 0; i < part.size(); i++)
+                        preparedStatement.setString(i + 1, part.get(i));
+
+                    ResultSet r = preparedStatement.executeQuery();
+                    try {
+                        while (r.next()) {
+                            String id = r.getString(1);
+                            try (InputStream is = r.getBinaryStream(2)) {
+                                if (is == null)
+                                    continue;
+                                ret.put(id, read(is));
+                            }
+                        }
+                    } finally {
+                        r.close();
+                    }
+                } finally {
+                    preparedStatement.close();
+                }
+            }
+        } finally {
+            c.close();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Read an ndarray stored by this loader.
+     * Rows starting with the saveBatch magic prefix are read via {@link BinarySerde},
+     * anything else via {@link Nd4j#read(DataInputStream)}.
+     * Compressed arrays are decompressed.
+     *
+     * @param is the stream to read from
+     * @return the ndarray read
+     */
+    protected INDArray read(InputStream is) throws IOException {
+        BufferedInputStream bis = new BufferedInputStream(is);
+        bis.mark(HEADER_LENGTH);
+        byte[] header = new byte[HEADER_LENGTH];
+        int read = 0;
+        while (read < HEADER_LENGTH) {
+            int n = bis.read(header, read, HEADER_LENGTH - read);
+            if (n < 0)
+                break;
+            read += n;
+        }
+
+        INDArray array;
+        if (read == HEADER_LENGTH && hasMagic(header)) {
+            byte version = header[BINARY_SERDE_MAGIC.length];
+            if (version != BINARY_SERDE_VERSION)
+                throw new IOException("Unsupported BinarySerde row version: " + version);
+
+            ByteOrder order = header[BINARY_SERDE_MAGIC.length + 1] == BIG_ENDIAN ? ByteOrder.BIG_ENDIAN
+                            : ByteOrder.LITTLE_ENDIAN;
+            if (order != ByteOrder.nativeOrder())
+                throw new IOException("Row was written in " + order + " byte order, but this machine is "
+                                + ByteOrder.nativeOrder());
+
+            array = BinarySerde.readFromChannel(Channels.newChannel(bis));
+        } else {
+            bis.reset();
+            array = Nd4j.read(new DataInputStream(bis));
+        }
+
+        if (array.isCompressed())
+            array = Nd4j.getCompressor().decompress(array);
+        return array;
+    }
+
+    private static boolean hasMagic(byte[] header) {
+        for (int i = 0; i < BINARY_SERDE_MAGIC.length; i++)
+            if (header[i] != BINARY_SERDE_MAGIC[i])
+                return false;
+        return true;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set the number of rows per JDBC batch
+     * used by {@link #saveBatch(Map)} and {@link #loadBatch(Collection)}
+     *
+     * @param batchSize the number of rows per batch
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size should be positive");
+        this.batchSize = batchSize;
+    }
+
+    public String getCompressionAlgorithm() {
+        return compressionAlgorithm;
+    }
+
+    /**
+     * Set the {@link org.nd4j.linalg.compression.NDArrayCompressor} codec
+     * used by {@link #saveBatch(Map)}, for example "GZIP" or "FLOAT16".
+     *
+     * @param compressionAlgorithm the codec name, or null to disable compression
+     */
+    public void setCompressionAlgorithm(String compressionAlgorithm) {
+        this.compressionAlgorithm = compressionAlgorithm;
+    }
+
+    /**
+     * InputStream over the magic prefix and an ndarray in {@link BinarySerde} format.
+     * {@link BinarySerde#writeArrayToChannel(INDArray, WritableByteChannel)} writes
+     * views of array memory, which are kept and read back in order,
+     * so array data is passed to the driver without any copies.
+     */
+    private static class ArrayInputStream extends InputStream {
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        // keeps memory referenced by buffers alive
+        private final INDArray array;
+        private long length;
+        private int current;
+
+        private ArrayInputStream(INDArray array) throws IOException {
+            this.array = array.isView() ? array.dup() : array;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.put(BINARY_SERDE_MAGIC).put(BINARY_SERDE_VERSION)
+                            .put(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN : LITTLE_ENDIAN);
+            header.flip();
+            buffers.add(header);
+            length = HEADER_LENGTH;
+
+            BinarySerde.writeArrayToChannel(this.array, new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) {
+                    int written = src.remaining();
+                    buffers.add(src.duplicate());
+                    src.position(src.limit());
+                    length += written;
+                    return written;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                    // no-op
+                }
+            });
+        }
+
+        private long length() {
+            return length;
+        }
+
+        private ByteBuffer currentBuffer() {
+            while (current < buffers.size() && !buffers.get(current).hasRemaining())
+                current++;
+            return current < buffers.size() ? buffers.get(current) : null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer buffer = currentBuffer();
+            return buffer == null ? -1 : buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            ByteBuffer buffer = currentBuffer();
+            if (buffer == null)
+                return -1;
+
+            int toRead = Math.min(len, buffer.remaining());
+            buffer.get(b, off, toRead);
+            return toRead;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current < buffers.size() ? buffers.get(current).remaining() : 0;
+        }
+    }
 }
@@ -0,0 +1,120 @@
+package org.nd4j.jdbc.loader.impl;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Batch save/load against embedded H2 database
+ */
+public class BaseLoaderBatchTest {
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID().toString() + ";DB_CLOSE_DELAY=-1");
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            s.execute("CREATE TABLE ndarrays (id VARCHAR(64) PRIMARY KEY, array BLOB)");
+        }
+    }
+
+    @Test
+    public void testSaveLoadBatch() throws Exception {
+        TestLoader loader = new TestLoader(dataSource);
+        loader.setBatchSize(7);
+
+        Map<String, INDArray> arrays = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++)
+            arrays.put(String.valueOf(i), Nd4j.rand(3, 4));
+
+        loader.saveBatch(arrays);
+
+        Map<String, INDArray> loaded = loader.loadBatch(arrays.keySet());
+        assertEquals(arrays, loaded);
+
+        Map<String, INDArray> partial = loader.loadBatch(Arrays.asList("1", "missing"));
+        assertEquals(1, partial.size());
+        assertEquals(arrays.get("1"), partial.get("1"));
+        assertFalse(partial.containsKey("missing"));
+    }
+
+    @Test
+    public void testSaveLoadBatchCompressed() throws Exception {
+        TestLoader loader = new TestLoader(dataSource);
+        loader.setCompressionAlgorithm("GZIP");
+
+        Map<String, INDArray> arrays = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++)
+            arrays.put(String.valueOf(i), Nd4j.linspace(1, 100, 100).muli(i));
+
+        loader.saveBatch(arrays);
+
+        assertEquals(arrays, loader.loadBatch(arrays.keySet()));
+    }
+
+    @Test
+    public void testSaveAndLoadBatchShareFormat() throws Exception {
+        TestLoader loader = new TestLoader(dataSource);
+        INDArray single = Nd4j.rand(5, 6);
+        loader.save(single, "single");
+
+        // rows written via Nd4j.write directly should be readable as well
+        INDArray legacy = Nd4j.rand(2, 3);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        Nd4j.write(legacy, new DataOutputStream(bos));
+        try (Connection c = dataSource.getConnection();
+                        PreparedStatement ps = c.prepareStatement(loader.insertStatement())) {
+            ps.setString(1, "legacy");
+            ps.setBytes(2, bos.toByteArray());
+            ps.executeUpdate();
+        }
+
+        Map<String, INDArray> loaded = loader.loadBatch(Arrays.asList("single", "legacy"));
+        assertEquals(single, loaded.get("single"));
+        assertEquals(legacy, loaded.get("legacy"));
+
+        // and rows written by saveBatch are readable through the single row API
+        INDArray batched = Nd4j.rand(4, 2);
+        loader.saveBatch(Collections.singletonMap("batched", batched));
+        assertEquals(batched, loader.load(loader.loadForID("batched")));
+    }
+
+    private static class TestLoader extends BaseLoader {
+        private TestLoader(DataSource dataSource) throws Exception {
+            super(dataSource, null, "ndarrays", "array");
+        }
+
+        @Override
+        public String insertStatement() {
+            return "INSERT INTO " + tableName + " VALUES(?,?)";
+        }
+
+        @Override
+        public String loadStatement() {
+            return "SELECT * FROM " + tableName + " WHERE " + this.idColumnName + " =?";
+        }
+
+        @Override
+        public String deleteStatement() {
+            return "DELETE FROM " + tableName + " WHERE " + this.idColumnName + " =?";
+        }
+    }
+}
@@ -3,14 +3,42 @@ package org.nd4j.parameterserver.updater.storage;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.nd4j.aeron.ipc.NDArrayMessage;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.compression.CompressionAlgorithm;
+import org.nd4j.linalg.factory.Nd4j;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Update storage backed by RocksDB.
+ *
+ * Updates are keyed by their index. By default every update is written
+ * with its own put. With batchSize &gt; 1 updates are accumulated in a {@link WriteBatch},
+ * which is written once it holds batchSize updates, or every flushIntervalMs milliseconds
+ * if that is positive. Updates can optionally be stored compressed with one of
+ * codecs that can be serialized within {@link NDArrayMessage}: lossless "GZIP", "BLOCKSHUFFLE" or "NOOP",
+ * or lossy "FLOAT16", which halves storage of FLOAT updates at the cost of fp16 precision.
+ *
+ * Iterators returned by {@link #iterator(int)} hold native RocksDB iterators, so they should be closed
+ * if they're abandoned before reaching the end. Iterators still open are closed along with the storage.
+ *
  * Created by agibsonccc on 12/2/16.
  */
 public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
@@ -20,10 +48,42 @@ public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
     }
 
 
+    private static final Logger log = LoggerFactory.getLogger(RocksDbStorage.class);
+
+    // codec should have CompressionAlgorithm constant for serialization, and shouldn't drop values. FLOAT16 is lossy
+    // in precision only, so it's allowed
+    private static final Set<CompressionAlgorithm> STORAGE_CODECS = EnumSet.of(CompressionAlgorithm.GZIP,
+                    CompressionAlgorithm.BLOCKSHUFFLE, CompressionAlgorithm.NOOP, CompressionAlgorithm.FLOAT16);
+
     private RocksDB db;
-    private int size = 0;
+    // written under storage lock only, volatile for numUpdates()
+    private volatile int size = 0;
+    private final int batchSize;
+    private final String compressionAlgorithm;
+    private final WriteOptions writeOptions = new WriteOptions();
+    private WriteBatch batch = new WriteBatch();
+    private ScheduledExecutorService flusher;
+    private final Set<UpdateIterator> openIterators =
+                    Collections.newSetFromMap(new ConcurrentHashMap<UpdateIterator, Boolean>());
 
     public RocksDbStorage(String dbPath) {
+        this(dbPath, 1, 0, null);
+    }
+
+    /**
+     *
+     * @param dbPath the path of the database
+     * @param batchSize the number of updates per write batch, 1 writes every update immediately
+     * @param flushIntervalMs the interval for flushing incomplete batches, 0 disables background flushing
+     * @param compressionAlgorithm the compression codec for stored updates, or null for no compression
+     */
+    public RocksDbStorage(String dbPath, int batchSize, long flushIntervalMs, String compressionAlgorithm) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size should be positive");
+
+        this.batchSize = batchSize;
+        this.compressionAlgorithm = compressionAlgorithm == null ? null : validateCodec(compressionAlgorithm);
+
         // that determines the behavior of a database.
         Options options = new Options().setCreateIfMissing(true);
         try {
@@ -34,6 +94,49 @@ public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
             // do some error handling
 
         }
+
+        if (batchSize > 1 && flushIntervalMs > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "RocksDbStorage flusher");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            flusher.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    // exception thrown here would cancel all subsequent flushes
+                    try {
+                        flush();
+                    } catch (Exception e) {
+                        log.error("Background flush failed", e);
+                    }
+                }
+            }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String validateCodec(String compressionAlgorithm) {
+        String algorithm = compressionAlgorithm.toUpperCase();
+        CompressionAlgorithm codec;
+        try {
+            codec = CompressionAlgorithm.valueOf(algorithm);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Compression algorithm [" + compressionAlgorithm
+                            + "] can't be serialized, use one of " + STORAGE_CODECS);
+        }
+
+        if (!STORAGE_CODECS.contains(codec))
+            throw new IllegalArgumentException("Compression algorithm [" + compressionAlgorithm
+                            + "] can't be used for storage, use one of " + STORAGE_CODECS);
+
+        if (!Nd4j.getCompressor().getAvailableCompressors().contains(algorithm))
+            throw new IllegalArgumentException("Compression algorithm [" + compressionAlgorithm
+                            + "] isn't available");
+
+        return algorithm;
     }
 
     /**
@@ -42,16 +145,28 @@ public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
      * @param array the array to add
      */
     @Override
-    public void addUpdate(NDArrayMessage array) {
+    public synchronized void addUpdate(NDArrayMessage array) {
+        if (compressionAlgorithm != null && !array.getArr().isCompressed()) {
+            INDArray compressed = Nd4j.getCompressor().compress(array.getArr(), compressionAlgorithm);
+            array = NDArrayMessage.builder().arr(compressed).sent(array.getSent()).index(array.getIndex())
+                            .dimensions(array.getDimensions()).build();
+        }
+
         UnsafeBuffer directBuffer = (UnsafeBuffer) NDArrayMessage.toBuffer(array);
         byte[] data = directBuffer.byteArray();
         if (data == null) {
             data = new byte[directBuffer.capacity()];
             directBuffer.getBytes(0, data, 0, data.length);
         }
-        byte[] key = ByteBuffer.allocate(4).putInt(size).array();
+        byte[] key = key(size);
         try {
-            db.put(key, data);
+            if (batchSize == 1) {
+                db.put(key, data);
+            } else {
+                batch.put(key, data);
+                if (batch.count() >= batchSize)
+                    flush();
+            }
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
         }
@@ -60,6 +175,98 @@ public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
 
     }
 
+    /**
+     * Write all pending batched updates to the database
+     */
+    public synchronized void flush() {
+        if (batch.count() == 0)
+            return;
+
+        try {
+            db.write(writeOptions, batch);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+        batch.close();
+        batch = new WriteBatch();
+    }
+
+    /**
+     * Iterate over stored updates in order,
+     * starting from the given index.
+     * Pending batched updates are flushed first.
+     *
+     * The returned iterator holds a native RocksDB iterator,
+     * which is released once iteration is complete, or
+     * once the iterator is closed.
+     *
+     * @param from the index of the first update
+     * @return an iterator over the updates
+     */
+    public UpdateIterator iterator(int from) {
+        flush();
+        RocksIterator iterator = db.newIterator();
+        iterator.seek(key(from));
+        UpdateIterator updateIterator = new UpdateIterator(iterator);
+        openIterators.add(updateIterator);
+        return updateIterator;
+    }
+
+    /**
+     * Iterator over stored updates, backed by native RocksDB iterator
+     */
+    public class UpdateIterator implements Iterator<NDArrayMessage>, AutoCloseable {
+        private final RocksIterator iterator;
+        private boolean closed = false;
+
+        private UpdateIterator(RocksIterator iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            if (closed)
+                return false;
+            if (!iterator.isValid()) {
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized NDArrayMessage next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            NDArrayMessage message = NDArrayMessage.fromBuffer(new UnsafeBuffer(iterator.value()), 0);
+            iterator.next();
+            return message;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Release native iterator
+         */
+        @Override
+        public synchronized void close() {
+            if (closed)
+                return;
+
+            closed = true;
+            iterator.close();
+            openIterators.remove(this);
+        }
+    }
+
+    private static byte[] key(int index) {
+        // big endian, so byte order of keys matches order of indices
+        return ByteBuffer.allocate(4).putInt(index).array();
+    }
+
     /**
      * The number of updates added
      * to the update storage
@@ -75,14 +282,18 @@ public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
      * Clear the array storage
      */
     @Override
-    public void clear() {
+    public synchronized void clear() {
+        batch.clear();
         RocksIterator iterator = db.newIterator();
-        while (iterator.isValid())
+        iterator.seekToFirst();
+        while (iterator.isValid()) {
             try {
                 db.remove(iterator.key());
             } catch (RocksDBException e) {
                 throw new RuntimeException(e);
             }
+            iterator.next();
+        }
         iterator.close();
         size = 0;
     }
@@ -96,7 +307,8 @@ public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
      */
     @Override
     public NDArrayMessage doGetUpdate(int index) {
-        byte[] key = ByteBuffer.allocate(4).putInt(index).array();
+        flush();
+        byte[] key = key(index);
         try {
             UnsafeBuffer unsafeBuffer = new UnsafeBuffer(db.get(key));
             return NDArrayMessage.fromBuffer(unsafeBuffer, 0);
@@ -110,6 +322,13 @@ public class RocksDbStorage extends BaseUpdateStorage implements AutoCloseable {
      */
     @Override
     public void close() {
+        if (flusher != null)
+            flusher.shutdownNow();
+        for (UpdateIterator iterator : openIterators)
+            iterator.close();
+        flush();
+        batch.close();
+        writeOptions.close();
         db.close();
     }
 }
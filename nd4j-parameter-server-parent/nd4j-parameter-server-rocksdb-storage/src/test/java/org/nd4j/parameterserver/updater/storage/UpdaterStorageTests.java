@@ -2,9 +2,14 @@ package org.nd4j.parameterserver.updater.storage;
 
 import org.junit.Test;
 import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.util.Iterator;
+
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
 
 /**
  * Created by agibsonccc on 12/2/16.
@@ -22,4 +27,65 @@ public class UpdaterStorageTests {
         assertEquals(0, updateStorage.numUpdates());
         updateStorage.close();
     }
+
+    @Test
+    public void testBatchedCompressed() {
+        RocksDbStorage updateStorage = new RocksDbStorage("/tmp/rocksdb-batched", 4, 0, "GZIP");
+        updateStorage.clear();
+        for (int i = 0; i < 10; i++)
+            updateStorage.addUpdate(NDArrayMessage.wholeArrayUpdate(Nd4j.valueArrayOf(new int[] {2, 2}, i)));
+
+        assertEquals(10, updateStorage.numUpdates());
+        assertEquals(Nd4j.valueArrayOf(new int[] {2, 2}, 9), updateStorage.getUpdate(9).getArr());
+
+        Iterator<NDArrayMessage> iterator = updateStorage.iterator(5);
+        int expected = 5;
+        while (iterator.hasNext()) {
+            assertEquals(Nd4j.valueArrayOf(new int[] {2, 2}, expected), iterator.next().getArr());
+            expected++;
+        }
+        assertEquals(10, expected);
+
+        updateStorage.clear();
+        assertEquals(0, updateStorage.numUpdates());
+        updateStorage.close();
+    }
+
+    @Test
+    public void testHalfPrecisionCodec() {
+        RocksDbStorage updateStorage = new RocksDbStorage("/tmp/rocksdb-fp16", 4, 0, "FLOAT16");
+        updateStorage.clear();
+
+        INDArray update = Nd4j.linspace(1, 4, 4).divi(3);
+        updateStorage.addUpdate(NDArrayMessage.wholeArrayUpdate(update));
+        updateStorage.flush();
+
+        // values are restored within half precision
+        INDArray restored = Nd4j.getCompressor().decompress(updateStorage.getUpdate(0).getArr());
+        assertTrue(update.equalsWithEps(restored, 1e-3));
+
+        updateStorage.clear();
+        updateStorage.close();
+    }
+
+    @Test
+    public void testAbandonedIteratorClosed() {
+        RocksDbStorage updateStorage = new RocksDbStorage("/tmp/rocksdb-iterator", 1, 0, null);
+        updateStorage.clear();
+        for (int i = 0; i < 3; i++)
+            updateStorage.addUpdate(NDArrayMessage.wholeArrayUpdate(Nd4j.scalar(i)));
+
+        RocksDbStorage.UpdateIterator iterator = updateStorage.iterator(0);
+        iterator.next();
+        iterator.close();
+        assertFalse(iterator.hasNext());
+
+        updateStorage.clear();
+        updateStorage.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCodecRejected() {
+        new RocksDbStorage("/tmp/rocksdb-threshold", 4, 0, "THRESHOLD");
+    }
 }
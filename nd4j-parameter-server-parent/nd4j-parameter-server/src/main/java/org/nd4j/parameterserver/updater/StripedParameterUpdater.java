@@ -0,0 +1,310 @@
+package org.nd4j.parameterserver.updater;
+
+import org.nd4j.aeron.ipc.NDArrayHolder;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.parameterserver.updater.storage.UpdateStorage;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Synchronous updater that lets
+ * concurrent updates proceed in parallel.
+ *
+ * The parameter vector is split in to
+ * a number of stripes, each guarded by its own lock.
+ * Whole array updates are applied one stripe at a time,
+ * with every update starting at a different stripe,
+ * so concurrent updates work on different parts of the
+ * array instead of waiting on each other.
+ * Partial (tensor along dimension) updates lock all stripes.
+ *
+ * Optionally, each thread can pre sum a number of incoming
+ * whole array updates in a thread local accumulator, applying
+ * the sum to the parameters once per preSumCount updates.
+ * Pending sums can be applied with {@link #flush()}, and are
+ * applied automatically once a pass is complete, before
+ * {@link #shouldReplicate()} or {@link #isReady()} return true.
+ *
+ * Unlike the base updater, messages are counted in update storage only
+ * after they were applied (or pre summed), so a complete pass never
+ * includes updates that are still being applied.
+ */
+public class StripedParameterUpdater extends SynchronousParameterUpdater {
+    private final int numStripes;
+    private final int preSumCount;
+    private final ReentrantLock[] locks;
+    private final AtomicInteger nextStripe = new AtomicInteger(0);
+    private final AtomicLong appliedUpdates = new AtomicLong(0);
+    private final Set<Accumulator> accumulators =
+                    Collections.newSetFromMap(new ConcurrentHashMap<Accumulator, Boolean>());
+    private final ThreadLocal<Accumulator> threadAccumulator = new ThreadLocal<Accumulator>() {
+        @Override
+        protected Accumulator initialValue() {
+            // new thread is a good moment to get rid of accumulators left by dead ones
+            flush();
+            Accumulator accumulator = new Accumulator(Thread.currentThread());
+            accumulators.add(accumulator);
+            return accumulator;
+        }
+    };
+
+    /**
+     *
+     * @param updateStorage the update storage to use
+     * @param ndArrayHolder the holder of the parameters
+     * @param workers the number of workers
+     * @param numStripes the number of stripes to split the parameters in to
+     * @param preSumCount the number of updates to sum per thread before applying them,
+     *                    1 applies every update immediately
+     */
+    public StripedParameterUpdater(UpdateStorage updateStorage, NDArrayHolder ndArrayHolder, int workers,
+                    int numStripes, int preSumCount) {
+        super(updateStorage, ndArrayHolder, workers);
+        if (numStripes < 1)
+            throw new IllegalArgumentException("Number of stripes should be positive");
+        if (preSumCount < 1)
+            throw new IllegalArgumentException("Pre sum count should be positive");
+
+        this.numStripes = numStripes;
+        this.preSumCount = preSumCount;
+        this.locks = new ReentrantLock[numStripes];
+        for (int i = 0; i < numStripes; i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    /**
+     * Uses one stripe per available processor and no pre summing
+     * @param updateStorage the update storage to use
+     * @param ndArrayHolder the holder of the parameters
+     * @param workers the number of workers
+     */
+    public StripedParameterUpdater(UpdateStorage updateStorage, NDArrayHolder ndArrayHolder, int workers) {
+        this(updateStorage, ndArrayHolder, workers, Runtime.getRuntime().availableProcessors(), 1);
+    }
+
+    /**
+     * Returns the current status of this parameter server
+     * updater
+     *
+     * @return
+     */
+    @Override
+    public Map<String, Number> status() {
+        Map<String, Number> ret = super.status();
+        ret.put("stripes", numStripes);
+        ret.put("preSumCount", preSumCount);
+        ret.put("appliedUpdates", appliedUpdates.get());
+        return ret;
+    }
+
+    /**
+     * Returns true if
+     * the updater has accumulated enough ndarrays to
+     * replicate to the workers.
+     * Pending pre summed updates are applied first.
+     *
+     * @return true if replication should happen,false otherwise
+     */
+    @Override
+    public boolean shouldReplicate() {
+        if (!super.shouldReplicate())
+            return false;
+
+        flush();
+        return true;
+    }
+
+    /**
+     * Returns true if the updater is
+     * ready for a new array.
+     * Pending pre summed updates are applied first.
+     *
+     * @return
+     */
+    @Override
+    public boolean isReady() {
+        if (!super.isReady())
+            return false;
+
+        flush();
+        return true;
+    }
+
+    /**
+     * Do an update based on the ndarray message.
+     * Message is added to update storage after it's applied.
+     *
+     * @param message
+     */
+    @Override
+    public void update(NDArrayMessage message) {
+        INDArray arr = message.getArr();
+        int[] dimensions = message.getDimensions();
+        boolean whole = dimensions.length == 1 && dimensions[0] == -1;
+
+        if (!whole)
+            partialUpdate(arr, ndArrayHolder.get(), message.getIndex(), dimensions);
+        else
+            update(arr, ndArrayHolder.get());
+
+        updateStorage.addUpdate(message);
+    }
+
+    /**
+     * Updates result
+     * based on arr along a particular
+     * {@link INDArray#tensorAlongDimension(int, int...)}
+     *
+     * @param arr        the array to update
+     * @param result     the result ndarray to update
+     * @param idx        the index to update
+     * @param dimensions the dimensions to update
+     */
+    @Override
+    public void partialUpdate(INDArray arr, INDArray result, long idx, int... dimensions) {
+        // tads may span any stripes, so lock them all. locks are always taken in the same order
+        for (int i = 0; i < numStripes; i++)
+            locks[i].lock();
+        try {
+            super.partialUpdate(arr, result, idx, dimensions);
+        } finally {
+            for (int i = numStripes - 1; i >= 0; i--)
+                locks[i].unlock();
+        }
+    }
+
+    /**
+     * Updates result
+     * based on arr
+     *
+     * @param arr    the array to update
+     * @param result the result ndarray to update
+     */
+    @Override
+    public void update(INDArray arr, INDArray result) {
+        if (preSumCount == 1) {
+            applyStriped(arr, result);
+            return;
+        }
+
+        Accumulator accumulator = threadAccumulator.get();
+        INDArray toApply = null;
+        synchronized (accumulator) {
+            if (accumulator.sum == null || accumulator.target != result) {
+                if (accumulator.sum != null)
+                    applyStriped(accumulator.sum, accumulator.target);
+                accumulator.sum = arr.dup();
+                accumulator.target = result;
+                accumulator.count = 1;
+            } else {
+                accumulator.sum.addi(arr);
+                accumulator.count++;
+            }
+
+            if (accumulator.count >= preSumCount) {
+                toApply = accumulator.sum;
+                accumulator.sum = null;
+                accumulator.count = 0;
+            }
+        }
+
+        if (toApply != null)
+            applyStriped(toApply, result);
+    }
+
+    /**
+     * Apply all pending pre summed updates,
+     * from all threads.
+     * Accumulators of threads that are no longer alive
+     * are dropped once their sums are applied.
+     */
+    public void flush() {
+        if (preSumCount == 1)
+            return;
+
+        for (Accumulator accumulator : accumulators) {
+            synchronized (accumulator) {
+                if (accumulator.sum != null) {
+                    applyStriped(accumulator.sum, accumulator.target);
+                    accumulator.sum = null;
+                    accumulator.target = null;
+                    accumulator.count = 0;
+                }
+
+                Thread owner = accumulator.owner.get();
+                if (owner == null || !owner.isAlive())
+                    accumulators.remove(accumulator);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of (possibly pre summed)
+     * updates applied to the parameters so far
+     * @return the number of applied updates
+     */
+    public long appliedUpdates() {
+        return appliedUpdates.get();
+    }
+
+    protected void applyStriped(INDArray arr, INDArray result) {
+        long length = result.lengthLong();
+        if (numStripes == 1 || length < numStripes || arr.lengthLong() != length || result.isView()) {
+            // nothing to split, or result can't be reshaped in place in to linear stripes
+            applyLocked(arr, result);
+            return;
+        }
+
+        INDArray resultVector = result.reshape(result.ordering(), 1, (int) length);
+        INDArray arrVector = arr.reshape(result.ordering(), 1, (int) length);
+
+        int start = (nextStripe.getAndIncrement() & Integer.MAX_VALUE) % numStripes;
+        for (int i = 0; i < numStripes; i++) {
+            int stripe = (start + i) % numStripes;
+            int from = (int) (length * stripe / numStripes);
+            int to = (int) (length * (stripe + 1) / numStripes);
+
+            locks[stripe].lock();
+            try {
+                resultVector.get(NDArrayIndex.point(0), NDArrayIndex.interval(from, to))
+                                .addi(arrVector.get(NDArrayIndex.point(0), NDArrayIndex.interval(from, to)));
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+
+        appliedUpdates.incrementAndGet();
+    }
+
+    private void applyLocked(INDArray arr, INDArray result) {
+        for (int i = 0; i < numStripes; i++)
+            locks[i].lock();
+        try {
+            super.update(arr, result);
+        } finally {
+            for (int i = numStripes - 1; i >= 0; i--)
+                locks[i].unlock();
+        }
+        appliedUpdates.incrementAndGet();
+    }
+
+    private static class Accumulator {
+        private final WeakReference<Thread> owner;
+        private INDArray sum;
+        private INDArray target;
+        private int count;
+
+        private Accumulator(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+    }
+}
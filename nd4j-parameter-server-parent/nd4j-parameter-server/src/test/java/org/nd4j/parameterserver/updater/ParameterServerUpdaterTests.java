@@ -6,6 +6,7 @@ import org.nd4j.aeron.ndarrayholder.InMemoryNDArrayHolder;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.parameterserver.updater.storage.NoUpdateStorage;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeNotNull;
@@ -32,4 +33,66 @@ public class ParameterServerUpdaterTests {
 
     }
 
+    @Test
+    public void stripedTest() throws Exception {
+        final int threads = 4;
+        final int updatesPerThread = 50;
+        final StripedParameterUpdater updater = new StripedParameterUpdater(new NoUpdateStorage(),
+                        new InMemoryNDArrayHolder(Nd4j.zeros(10, 10)), threads * updatesPerThread, 3, 4);
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < updatesPerThread; i++)
+                        updater.update(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(10, 10)));
+                }
+            });
+            workers[t].start();
+        }
+
+        for (Thread worker : workers)
+            worker.join();
+
+        updater.flush();
+
+        assertEquals(Nd4j.valueArrayOf(new int[] {10, 10}, threads * updatesPerThread),
+                        updater.ndArrayHolder().get());
+        assertTrue(updater.shouldReplicate());
+    }
+
+    @Test
+    public void stripedPassFlushTest() {
+        StripedParameterUpdater updater = new StripedParameterUpdater(new NoUpdateStorage(),
+                        new InMemoryNDArrayHolder(Nd4j.zeros(10, 10)), 3, 3, 4);
+        for (int i = 0; i < 3; i++)
+            updater.update(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(10, 10)));
+
+        // pass is complete, so pending pre sums should be applied before replication
+        assertTrue(updater.shouldReplicate());
+        assertEquals(Nd4j.valueArrayOf(new int[] {10, 10}, 3), updater.ndArrayHolder().get());
+    }
+
+    @Test
+    public void stripedCountsAppliedUpdatesTest() {
+        final InMemoryNDArrayHolder holder = new InMemoryNDArrayHolder(Nd4j.zeros(10, 10));
+        final double[] seen = new double[3];
+        NoUpdateStorage storage = new NoUpdateStorage() {
+            @Override
+            public void addUpdate(NDArrayMessage array) {
+                // update is counted only once it's visible in parameters
+                seen[numUpdates()] = holder.get().sumNumber().doubleValue();
+                super.addUpdate(array);
+            }
+        };
+
+        StripedParameterUpdater updater = new StripedParameterUpdater(storage, holder, 3, 3, 1);
+        for (int i = 0; i < 3; i++)
+            updater.update(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(10, 10)));
+
+        assertEquals(100.0, seen[0], 1e-5);
+        assertEquals(200.0, seen[1], 1e-5);
+        assertEquals(300.0, seen[2], 1e-5);
+    }
 }
@@ -8,8 +8,10 @@ import org.nd4j.linalg.factory.Nd4jBackend;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * @deprecated use JMH benchmarks from {@link org.nd4j.linalg.benchmark.jmh} instead
  * @author Adam Gibson
  */
+@Deprecated
 public abstract class BaseBenchmarkPerformer implements BenchMarkPerformer {
     protected int nTimes;
     protected long averageTime;
@@ -0,0 +1,73 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastAddOp;
+import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastMulOp;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row/column vector broadcasts, the JMH counterpart of
+ * {@link org.nd4j.linalg.benchmark.addirowvector.AddiRowVectorOpRunner}.
+ *
+ * In-place helpers are applied with neutral vectors (zeros for add, ones for mul), so matrix
+ * values stay the same across invocations, while the amount of work done is unchanged.
+ * Broadcast ops use random vectors and write into preallocated result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+    @Param({"64x1024", "1024x1024", "4096x256"})
+    public String shape;
+
+    @Param({"c", "f"})
+    public char order;
+
+    private INDArray matrix;
+    private INDArray result;
+    private INDArray rowVector;
+    private INDArray columnVector;
+    private INDArray zeroRowVector;
+    private INDArray oneColumnVector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] split = shape.split("x");
+        int rows = Integer.parseInt(split[0]);
+        int columns = Integer.parseInt(split[1]);
+        matrix = Nd4j.rand(order, new int[] {rows, columns});
+        result = Nd4j.create(new int[] {rows, columns}, order);
+        rowVector = Nd4j.rand(1, columns);
+        columnVector = Nd4j.rand(rows, 1);
+        zeroRowVector = Nd4j.zeros(1, columns);
+        oneColumnVector = Nd4j.ones(rows, 1);
+    }
+
+    @Benchmark
+    public INDArray addiRowVector() {
+        return matrix.addiRowVector(zeroRowVector);
+    }
+
+    @Benchmark
+    public INDArray muliColumnVector() {
+        return matrix.muliColumnVector(oneColumnVector);
+    }
+
+    @Benchmark
+    public INDArray broadcastAddOp() {
+        Nd4j.getExecutioner().exec(new BroadcastAddOp(matrix, rowVector, result, 1), 1);
+        return result;
+    }
+
+    @Benchmark
+    public INDArray broadcastMulOp() {
+        Nd4j.getExecutioner().exec(new BroadcastMulOp(matrix, columnVector, result, 0), 0);
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.CustomOp;
+import org.nd4j.linalg.api.ops.DynamicCustomOp;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of CustomOp execution. Arrays are tiny, so time is dominated by
+ * argument marshalling, not by the op itself.
+ *
+ * reuseArguments=false allocates native argument blocks on every call, as it was done before
+ * per-thread argument blocks were introduced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CustomOpBenchmark {
+    @Param({"1", "16", "256"})
+    public int length;
+
+    @Param({"true", "false"})
+    public boolean reuseArguments;
+
+    private INDArray x;
+    private INDArray y;
+    private INDArray z;
+    private CustomOp add;
+    private CustomOp addWithArguments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // backend is a runtime dependency only, so the toggle is looked up reflectively
+        OpExecutioner executioner = Nd4j.getExecutioner();
+        Method method = executioner.getClass().getMethod("setReuseCustomOpArguments", boolean.class);
+        method.invoke(executioner, reuseArguments);
+
+        x = Nd4j.rand(1, length);
+        y = Nd4j.rand(1, length);
+        z = Nd4j.create(1, length);
+
+        add = DynamicCustomOp.builder("add").addInputs(x, y).addOutputs(z).build();
+
+        // same op with extra integer and floating point arguments, so all argument blocks are involved
+        addWithArguments = DynamicCustomOp.builder("add").addInputs(x, y).addOutputs(z)
+                        .addIntegerArguments(new int[] {0, 1, 2, 3}).addFloatingPointArguments(1.0, 2.0).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        OpExecutioner executioner = Nd4j.getExecutioner();
+        executioner.getClass().getMethod("setReuseCustomOpArguments", boolean.class).invoke(executioner, true);
+    }
+
+    @Benchmark
+    public INDArray execAdd() {
+        Nd4j.getExecutioner().exec(add);
+        return z;
+    }
+
+    @Benchmark
+    public INDArray execAddWithArguments() {
+        Nd4j.getExecutioner().exec(addWithArguments);
+        return z;
+    }
+}
@@ -0,0 +1,52 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH counterpart of {@link org.nd4j.linalg.benchmark.gemm.GemmOpRunner}:
+ * square matrix multiplication for a range of sizes and input orders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GemmBenchmark {
+    @Param({"32", "128", "512"})
+    public int size;
+
+    @Param({"c", "f"})
+    public char order;
+
+    private INDArray a;
+    private INDArray b;
+    private INDArray c;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        a = Nd4j.rand(order, new int[] {size, size});
+        b = Nd4j.rand(order, new int[] {size, size});
+        // gemm result must be 'f' ordered with zero offset
+        c = Nd4j.createUninitialized(new int[] {size, size}, 'f');
+    }
+
+    @Benchmark
+    public INDArray gemm() {
+        return Nd4j.gemm(a, b, c, false, false, 1.0, 0.0);
+    }
+
+    @Benchmark
+    public INDArray gemmTransposed() {
+        return Nd4j.gemm(a, b, c, true, false, 1.0, 0.0);
+    }
+
+    @Benchmark
+    public INDArray mmul() {
+        return a.mmul(b);
+    }
+}
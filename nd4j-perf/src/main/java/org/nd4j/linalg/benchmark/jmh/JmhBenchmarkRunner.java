@@ -0,0 +1,57 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks in this package, and writes results in machine-readable form
+ * so they can be compared across versions.
+ *
+ * Allocation rates are collected via the gc profiler unless disabled.
+ */
+public class JmhBenchmarkRunner {
+    @Option(name = "--include", usage = "Regexp of benchmarks to run", aliases = "-i")
+    private String include = JmhBenchmarkRunner.class.getPackage().getName() + ".*";
+    @Option(name = "--output", usage = "Results file", aliases = "-o")
+    private String output = "nd4j-jmh-results.json";
+    @Option(name = "--format", usage = "Results format: JSON, CSV, SCSV, TEXT or LATEX", aliases = "-f")
+    private String format = "JSON";
+    @Option(name = "--forks", usage = "Number of forks per benchmark")
+    private int forks = 1;
+    @Option(name = "--noGc", usage = "Disable allocation profiling")
+    private boolean noGc = false;
+
+    /**
+     * Do the main method
+     * @param args the arguments for the method
+     * @throws Exception if an exception is thrown
+     */
+    public void doMain(String[] args) throws Exception {
+        CmdLineParser parser = new CmdLineParser(this);
+        try {
+            parser.parseArgument(args);
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            parser.printUsage(System.err);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().include(include).forks(forks)
+                        .resultFormat(ResultFormatType.valueOf(format.toUpperCase())).result(output);
+
+        if (!noGc)
+            options.addProfiler(GCProfiler.class);
+
+        new Runner(options.build()).run();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new JmhBenchmarkRunner().doMain(args);
+    }
+}
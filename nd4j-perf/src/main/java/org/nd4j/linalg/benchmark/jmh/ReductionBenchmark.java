@@ -0,0 +1,68 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full and TAD-based (along dimension) reductions, the JMH counterpart of
+ * {@link org.nd4j.linalg.benchmark.accum.SumOpRunner} and
+ * {@link org.nd4j.linalg.benchmark.dimensionwise.DimensionWiseOpRunner}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ReductionBenchmark {
+    @Param({"64x1024", "1024x1024", "4096x256"})
+    public String shape;
+
+    @Param({"c", "f"})
+    public char order;
+
+    private INDArray matrix;
+    private INDArray tensor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] split = shape.split("x");
+        int rows = Integer.parseInt(split[0]);
+        int columns = Integer.parseInt(split[1]);
+        matrix = Nd4j.rand(order, new int[] {rows, columns});
+        tensor = Nd4j.rand(order, new int[] {rows, columns / 16, 16});
+    }
+
+    @Benchmark
+    public Number sumAll() {
+        return matrix.sumNumber();
+    }
+
+    @Benchmark
+    public INDArray sumAlongRows() {
+        return matrix.sum(1);
+    }
+
+    @Benchmark
+    public INDArray sumAlongColumns() {
+        return matrix.sum(0);
+    }
+
+    @Benchmark
+    public INDArray maxAlongRows() {
+        return matrix.max(1);
+    }
+
+    @Benchmark
+    public INDArray argMaxAlongRows() {
+        return Nd4j.argMax(matrix, 1);
+    }
+
+    @Benchmark
+    public INDArray meanAlongInnerDimensions() {
+        return tensor.mean(1, 2);
+    }
+}
@@ -0,0 +1,61 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.primitives.Pair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shape information and view creation overhead. These calls don't touch the data,
+ * so everything measured here is pure bookkeeping cost (shape buffers, TAD lookups, index resolution).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ShapeBenchmark {
+    @Param({"c", "f"})
+    public char order;
+
+    private int[] shape = new int[] {32, 64, 128};
+    private INDArray arr;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        arr = Nd4j.create(shape, order);
+    }
+
+    @Benchmark
+    public Pair<DataBuffer, int[]> createShapeInformation() {
+        return Nd4j.getShapeInfoProvider().createShapeInformation(shape, order);
+    }
+
+    @Benchmark
+    public INDArray tensorAlongDimension() {
+        index = (index + 1) % 32;
+        return arr.tensorAlongDimension(index, 1, 2);
+    }
+
+    @Benchmark
+    public INDArray intervalView() {
+        return arr.get(NDArrayIndex.point(3), NDArrayIndex.interval(8, 40), NDArrayIndex.all());
+    }
+
+    @Benchmark
+    public INDArray permuteView() {
+        return arr.permute(2, 0, 1);
+    }
+
+    @Benchmark
+    public INDArray reshapeNoCopy() {
+        return Shape.newShapeNoCopy(arr, new int[] {32 * 64, 128}, order == 'f');
+    }
+}
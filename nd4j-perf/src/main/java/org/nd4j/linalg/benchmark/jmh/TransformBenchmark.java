@@ -0,0 +1,73 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.transforms.Tanh;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elementwise transform, scalar and pairwise ops, the JMH counterpart of
+ * {@link org.nd4j.linalg.benchmark.transform.TransformOpRunner} and
+ * {@link org.nd4j.linalg.benchmark.scalar.ScalarOpRunner}.
+ *
+ * Both variants writing into preallocated result and copying ones are measured, the latter also shows up
+ * in the allocation rate reported by the gc profiler. Inputs are never modified, so their values don't drift
+ * towards denormals or infinity over the run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+    @Param({"1024", "65536", "1048576"})
+    public int length;
+
+    @Param({"c", "f"})
+    public char order;
+
+    private INDArray x;
+    private INDArray y;
+    private INDArray z;
+    private INDArray view;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int columns = 256;
+        int rows = Math.max(1, length / columns);
+        x = Nd4j.rand(order, new int[] {rows, columns});
+        y = Nd4j.rand(order, new int[] {rows, columns});
+        z = Nd4j.create(new int[] {rows, columns}, order);
+        // transposed view of the same data, exercises the strided code path
+        view = y.transpose();
+    }
+
+    @Benchmark
+    public INDArray tanhPreallocated() {
+        return Nd4j.getExecutioner().execAndReturn(new Tanh(x, z));
+    }
+
+    @Benchmark
+    public INDArray expCopy() {
+        return Transforms.exp(x, true);
+    }
+
+    @Benchmark
+    public INDArray scalarAddPreallocated() {
+        return x.addi(1e-3, z);
+    }
+
+    @Benchmark
+    public INDArray pairwiseMulPreallocated() {
+        return x.muli(y, z);
+    }
+
+    @Benchmark
+    public INDArray dupStridedView() {
+        return view.dup(order);
+    }
+}
@@ -0,0 +1,78 @@
+package org.nd4j.linalg.benchmark.jmh;
+
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of short-lived arrays within a workspace cycle vs regular allocation.
+ * Run with the gc profiler (see {@link JmhBenchmarkRunner}) to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class WorkspaceBenchmark {
+    private static final String WORKSPACE_ID = "JMH_WS";
+
+    @Param({"16", "256", "4096"})
+    public int length;
+
+    @Param({"c", "f"})
+    public char order;
+
+    /**
+     * Number of arrays allocated per cycle
+     */
+    @Param({"10"})
+    public int allocations;
+
+    private WorkspaceConfiguration configuration;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        configuration = WorkspaceConfiguration.builder().initialSize(0)
+                        .policyAllocation(AllocationPolicy.STRICT).policySpill(SpillPolicy.REALLOCATE)
+                        .policyLearning(LearningPolicy.FIRST_LOOP).build();
+
+        // first cycle is spent on learning, so we do it here and not during warmup
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(configuration, WORKSPACE_ID)) {
+            allocate(null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    @Benchmark
+    public void workspaceAllocation(Blackhole blackhole) {
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(configuration, WORKSPACE_ID)) {
+            allocate(blackhole);
+        }
+    }
+
+    @Benchmark
+    public void regularAllocation(Blackhole blackhole) {
+        allocate(blackhole);
+    }
+
+    protected void allocate(Blackhole blackhole) {
+        for (int i = 0; i < allocations; i++) {
+            INDArray arr = Nd4j.create(new int[] {length, 4}, order);
+            if (blackhole != null)
+                blackhole.consume(arr);
+        }
+    }
+}
@@ -27,6 +27,11 @@ public class NDArrayFragmentHandler implements FragmentHandler {
         this.ndArrayCallback = ndArrayCallback;
     }
 
+    public NDArrayFragmentHandler(NDArrayCallback ndArrayCallback, ChunkAccumulator chunkAccumulator) {
+        this.ndArrayCallback = ndArrayCallback;
+        this.chunkAccumulator = chunkAccumulator;
+    }
+
     /**
      * Callback for handling
      * fragments of data being read from a log.
@@ -73,7 +78,9 @@ public class NDArrayFragmentHandler implements FragmentHandler {
 
             if (chunkAccumulator.allPresent(chunk.getId())) {
                 NDArrayMessage message = chunkAccumulator.reassemble(chunk.getId());
-                ndArrayCallback.onNDArrayMessage(message);
+                // null means message was already reassembled by another handler thread
+                if (message != null)
+                    ndArrayCallback.onNDArrayMessage(message);
             }
         } else {
             NDArrayMessage message = NDArrayMessage.fromBuffer(buffer, offset);
@@ -326,6 +326,26 @@ public class NDArrayMessage implements Serializable {
     public static NDArrayMessage fromBuffer(DirectBuffer buffer, int offset) {
         //skip the message opType
         Pair<INDArray, ByteBuffer> pair = AeronNDArraySerde.toArrayAndByteBuffer(buffer, offset + 4);
+        return fromArrayAndBuffer(pair);
+    }
+
+    /**
+     * Convert a direct byte buffer to an ndarray
+     * message without copying the array data:
+     * the array of the returned message is backed by the given buffer.
+     * See {@link #fromBuffer(DirectBuffer, int)} for the format.
+     *
+     * @param buffer the direct buffer to convert, must not be reused afterwards
+     * @param offset  the offset to start at with the buffer (message opType included)
+     * @return the ndarray message based on this buffer.
+     */
+    public static NDArrayMessage fromBufferNoCopy(ByteBuffer buffer, int offset) {
+        //skip the message opType
+        Pair<INDArray, ByteBuffer> pair = AeronNDArraySerde.toArrayAndByteBuffer(buffer, offset + 4, false);
+        return fromArrayAndBuffer(pair);
+    }
+
+    private static NDArrayMessage fromArrayAndBuffer(Pair<INDArray, ByteBuffer> pair) {
         INDArray arr = pair.getKey();
         Nd4j.getCompressor().decompressi(arr);
         //use the rest of the buffer, of note here the offset is already set, we should only need to use
@@ -37,7 +37,9 @@ public interface ChunkAccumulator {
      *
      *
      * @param id the id to reassemble
-     * @return the reassembled message
+     * @return the reassembled message, implementations
+     * safe for concurrent use may return null if the message
+     * was already reassembled by another thread
      */
     NDArrayMessage reassemble(String id);
 
@@ -0,0 +1,319 @@
+package org.nd4j.aeron.ipc.chunk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.aeron.ipc.NDArrayMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulate chunks directly into their final position.
+ *
+ * Unlike {@link InMemoryChunkAccumulator}, which keeps every chunk
+ * around and concatenates them on reassembly, this accumulator allocates
+ * the destination buffer when the first chunk of a message arrives,
+ * and copies each chunk into its offset as it comes in.
+ * Received chunks are tracked with an atomic bitmap, so chunks
+ * may be accumulated from multiple threads, and duplicate chunks are ignored.
+ * Reassembly wraps the destination buffer without any further copy.
+ *
+ * Messages that didn't receive any chunks within the configured timeout
+ * are evicted, whether they're partial or complete but never reassembled.
+ * Ids of reassembled and expired complete messages are remembered for the same timeout,
+ * so late duplicate chunks are dropped instead of starting a new partial message.
+ */
+@Slf4j
+public class PreallocatedChunkAccumulator implements ChunkAccumulator {
+    public static final long DEFAULT_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ConcurrentMap<String, PartialMessage> messages = new ConcurrentHashMap<>();
+    // ids of reassembled messages, mapped to completion time
+    private final ConcurrentMap<String, Long> completed = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong evicted = new AtomicLong(0);
+
+    public PreallocatedChunkAccumulator() {
+        this(DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * @param timeoutMs time in milliseconds since the last received chunk,
+     *                  after which a message that wasn't reassembled is evicted
+     */
+    public PreallocatedChunkAccumulator(long timeoutMs) {
+        if (timeoutMs < 1)
+            throw new IllegalArgumentException("Timeout should be positive");
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Returns the number of chunks
+     * accumulated for a given id so far
+     *
+     * @param id the id to get the
+     *           number of chunks for
+     * @return the number of chunks accumulated
+     * for a given id so far
+     */
+    @Override
+    public int numChunksSoFar(String id) {
+        PartialMessage message = messages.get(id);
+        return message == null ? 0 : message.received.get();
+    }
+
+    /**
+     * Returns true if all chunks are present
+     *
+     * @param id the id to check for
+     * @return true if all the chunks are present,false otherwise
+     */
+    @Override
+    public boolean allPresent(String id) {
+        PartialMessage message = messages.get(id);
+        return message != null && message.isComplete();
+    }
+
+    /**
+     * Reassemble an ndarray message
+     * from the accumulated chunks.
+     * The array of the returned message is backed
+     * by the buffer chunks were accumulated into.
+     *
+     * Each message is reassembled only once: if several threads
+     * try to reassemble the same message, only one of them gets it.
+     *
+     * @param id the id to reassemble
+     * @return the reassembled message, or null if it was
+     * already reassembled by another thread, or expired
+     */
+    @Override
+    public NDArrayMessage reassemble(String id) {
+        PartialMessage message = messages.get(id);
+        if (message == null) {
+            if (completed.containsKey(id))
+                return null;
+            throw new IllegalStateException("No chunks found for message " + id);
+        }
+
+        if (!message.isComplete())
+            throw new IllegalStateException("Unable to reassemble message chunk " + id + " missing "
+                            + (message.numChunks - message.received.get()) + "chunks");
+
+        // id is marked as completed first, so chunks arriving after removal don't start a new message
+        completed.put(id, System.currentTimeMillis());
+        if (!messages.remove(id, message))
+            return null;
+
+        ByteBuffer buffer = message.buffer;
+        buffer.clear();
+        return NDArrayMessage.fromBufferNoCopy(buffer, 0);
+    }
+
+    /**
+     * Copy the chunk data into the
+     * buffer of its message.
+     * Buffer is allocated on the first chunk
+     * of any given message.
+     * @param chunk the chunk
+     */
+    @Override
+    public void accumulateChunk(NDArrayMessageChunk chunk) {
+        long now = System.currentTimeMillis();
+        evictStale(now);
+
+        String id = chunk.getId();
+        if (completed.containsKey(id)) {
+            log.debug("Dropping late chunk for already reassembled id " + id);
+            return;
+        }
+
+        PartialMessage message = messages.get(id);
+        if (message == null) {
+            PartialMessage created = new PartialMessage(chunk.getNumChunks(), chunk.getChunkSize(), now);
+            // buffer is allocated only by the thread that published the message, others wait on its monitor
+            synchronized (created) {
+                message = messages.putIfAbsent(id, created);
+                if (message == null) {
+                    // message could be reassembled between the check above and our insert
+                    if (completed.containsKey(id)) {
+                        messages.remove(id, created);
+                        return;
+                    }
+
+                    boolean allocated = false;
+                    try {
+                        created.allocate();
+                        allocated = true;
+                    } finally {
+                        if (!allocated)
+                            messages.remove(id, created);
+                    }
+                    message = created;
+                }
+            }
+        }
+
+        if (!message.put(chunk, now)) {
+            log.debug("Dropping chunk for discarded id " + id);
+            return;
+        }
+
+        log.debug("Accumulating chunk for id " + chunk.getId());
+    }
+
+    /**
+     * Returns the number of messages evicted because of timeout so far,
+     * both partial and complete but never reassembled
+     * @return the number of evicted messages
+     */
+    public long numEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * Returns the number of partial messages
+     * currently being accumulated
+     * @return the number of partial messages
+     */
+    public int numPending() {
+        return messages.size();
+    }
+
+    /**
+     * Evict messages that didn't receive any chunks within timeout,
+     * and forget ids of messages reassembled earlier than timeout.
+     * Complete messages nobody reassembled are evicted as well,
+     * their ids are remembered as completed. Sweeps happen at most
+     * once per half of timeout.
+     * @param now current time in milliseconds
+     */
+    protected void evictStale(long now) {
+        long last = lastSweep.get();
+        if (now - last < timeoutMs / 2 || !lastSweep.compareAndSet(last, now))
+            return;
+
+        for (Map.Entry<String, PartialMessage> entry : messages.entrySet()) {
+            PartialMessage message = entry.getValue();
+            if (now - message.lastUpdate <= timeoutMs)
+                continue;
+
+            boolean complete = message.isComplete();
+            if (complete)
+                completed.put(entry.getKey(), now);
+
+            // conditional removal, so a concurrent reassemble() of the same message wins
+            if (!messages.remove(entry.getKey(), message))
+                continue;
+
+            evicted.incrementAndGet();
+            if (complete)
+                log.warn("Evicting complete message " + entry.getKey() + " that wasn't reassembled within "
+                                + timeoutMs + " ms");
+            else
+                log.warn("Evicting message " + entry.getKey() + " after receiving " + message.received.get()
+                                + " out of " + message.numChunks + " chunks");
+        }
+
+        Iterator<Map.Entry<String, Long>> completedIterator = completed.entrySet().iterator();
+        while (completedIterator.hasNext()) {
+            if (now - completedIterator.next().getValue() > timeoutMs)
+                completedIterator.remove();
+        }
+    }
+
+    private static class PartialMessage {
+        private final int numChunks;
+        private final int chunkSize;
+        // allocated by the thread that published this message, while holding its monitor
+        private volatile ByteBuffer buffer;
+        private final AtomicLongArray bitmap;
+        private final AtomicInteger received = new AtomicInteger(0);
+        private volatile long lastUpdate;
+
+        private PartialMessage(int numChunks, int chunkSize, long now) {
+            if (numChunks < 1 || chunkSize < 1)
+                throw new IllegalStateException(
+                                "Found invalid number of chunks " + numChunks + " or chunk size " + chunkSize);
+
+            long capacity = (long) numChunks * chunkSize;
+            if (capacity > Integer.MAX_VALUE)
+                throw new IllegalStateException("Message of " + capacity + " bytes can't be reassembled");
+
+            this.numChunks = numChunks;
+            this.chunkSize = chunkSize;
+            this.bitmap = new AtomicLongArray((numChunks + 63) / 64);
+            this.lastUpdate = now;
+        }
+
+        private void allocate() {
+            buffer = ByteBuffer.allocateDirect(numChunks * chunkSize).order(ByteOrder.nativeOrder());
+        }
+
+        /**
+         * Returns the destination buffer, waiting for the allocating thread if needed.
+         * Null means allocation failed, or message was discarded before allocation.
+         */
+        private ByteBuffer buffer() {
+            ByteBuffer result = buffer;
+            if (result != null)
+                return result;
+
+            synchronized (this) {
+                return buffer;
+            }
+        }
+
+        private boolean isComplete() {
+            return received.get() == numChunks;
+        }
+
+        /**
+         * Copies the chunk into its position
+         * @return false if this message has no buffer to copy into
+         */
+        private boolean put(NDArrayMessageChunk chunk, long now) {
+            int index = chunk.getChunkIndex();
+            if (index < 0 || index >= numChunks)
+                throw new IllegalStateException("Chunk index " + index + " is out of range for " + numChunks
+                                + " chunks");
+
+            ByteBuffer destination = buffer();
+            if (destination == null)
+                return false;
+
+            // claim this chunk, so duplicates are ignored
+            int word = index / 64;
+            long bit = 1L << (index % 64);
+            long current;
+            do {
+                current = bitmap.get(word);
+                if ((current & bit) != 0)
+                    return true;
+            } while (!bitmap.compareAndSet(word, current, current | bit));
+
+            // each chunk is written into its own region via a separate view, so concurrent writes don't interfere
+            ByteBuffer source = chunk.getData().duplicate();
+            source.position(0);
+            if (source.limit() > chunkSize)
+                source.limit(chunkSize);
+
+            ByteBuffer target = destination.duplicate();
+            target.position(index * chunkSize);
+            target.put(source);
+
+            lastUpdate = now;
+            // increment after the copy, so whoever observes completion also observes the data
+            received.incrementAndGet();
+            return true;
+        }
+    }
+}
@@ -29,5 +29,21 @@ public class NDArrayMessageTest {
 
     }
 
+    @Test
+    public void testBlockCompressedMessage() {
+        INDArray arr = Nd4j.linspace(1, 10000, 20000);
+
+        Nd4j.getCompressor().setBlockSize(3000);
+        try {
+            INDArray compressed = Nd4j.getCompressor().compress(arr, "GZIP");
+            NDArrayMessage message = NDArrayMessage.wholeArrayUpdate(compressed);
+            DirectBuffer buffer = NDArrayMessage.toBuffer(message);
+            NDArrayMessage restored = NDArrayMessage.fromBuffer(buffer, 0);
+
+            assertEquals(arr, restored.getArr());
+        } finally {
+            Nd4j.getCompressor().setBlockSize(0);
+        }
+    }
 
 }
@@ -5,6 +5,9 @@ import org.nd4j.aeron.ipc.NDArrayMessage;
 import org.nd4j.linalg.factory.Nd4j;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by agibsonccc on 11/20/16.
@@ -25,4 +28,80 @@ public class ChunkAccumulatorTests {
         assertEquals(message, message1);
     }
 
+    @Test
+    public void testPreallocatedAccumulator() {
+        PreallocatedChunkAccumulator chunkAccumulator = new PreallocatedChunkAccumulator();
+        NDArrayMessage message = NDArrayMessage.wholeArrayUpdate(Nd4j.linspace(1, 1000, 1000));
+        int chunkSize = 128;
+        NDArrayMessageChunk[] chunks = NDArrayMessage.chunks(message, chunkSize);
+        //out of order, with a duplicate
+        for (int i = chunks.length - 1; i >= 0; i--) {
+            chunkAccumulator.accumulateChunk(chunks[i]);
+        }
+        chunkAccumulator.accumulateChunk(chunks[0]);
+
+        assertEquals(chunks.length, chunkAccumulator.numChunksSoFar(chunks[0].getId()));
+        assertTrue(chunkAccumulator.allPresent(chunks[0].getId()));
+
+        NDArrayMessage message1 = chunkAccumulator.reassemble(chunks[0].getId());
+        assertEquals(message, message1);
+        assertEquals(0, chunkAccumulator.numPending());
+    }
+
+    @Test
+    public void testPreallocatedAccumulatorLateChunks() {
+        PreallocatedChunkAccumulator chunkAccumulator = new PreallocatedChunkAccumulator();
+        NDArrayMessage message = NDArrayMessage.wholeArrayUpdate(Nd4j.linspace(1, 1000, 1000));
+        NDArrayMessageChunk[] chunks = NDArrayMessage.chunks(message, 128);
+        for (int i = 0; i < chunks.length; i++)
+            chunkAccumulator.accumulateChunk(chunks[i]);
+
+        assertEquals(message, chunkAccumulator.reassemble(chunks[0].getId()));
+        //second reassembly of the same message gets nothing
+        assertNull(chunkAccumulator.reassemble(chunks[0].getId()));
+
+        //late duplicate doesn't start a new partial message
+        chunkAccumulator.accumulateChunk(chunks[1]);
+        assertEquals(0, chunkAccumulator.numPending());
+        assertEquals(0, chunkAccumulator.numChunksSoFar(chunks[0].getId()));
+    }
+
+    @Test
+    public void testPreallocatedAccumulatorEviction() throws Exception {
+        PreallocatedChunkAccumulator chunkAccumulator = new PreallocatedChunkAccumulator(10);
+        NDArrayMessageChunk[] chunks = NDArrayMessage.chunks(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(1000)), 128);
+        NDArrayMessageChunk[] other = NDArrayMessage.chunks(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(1000)), 128);
+
+        chunkAccumulator.accumulateChunk(chunks[0]);
+        Thread.sleep(50);
+        chunkAccumulator.accumulateChunk(other[0]);
+
+        assertFalse(chunkAccumulator.allPresent(chunks[0].getId()));
+        assertEquals(0, chunkAccumulator.numChunksSoFar(chunks[0].getId()));
+        assertEquals(1, chunkAccumulator.numEvicted());
+    }
+
+    @Test
+    public void testPreallocatedAccumulatorCompleteEviction() throws Exception {
+        PreallocatedChunkAccumulator chunkAccumulator = new PreallocatedChunkAccumulator(10);
+        NDArrayMessageChunk[] chunks = NDArrayMessage.chunks(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(1000)), 128);
+        NDArrayMessageChunk[] other = NDArrayMessage.chunks(NDArrayMessage.wholeArrayUpdate(Nd4j.ones(1000)), 128);
+
+        //complete, but never reassembled
+        for (int i = 0; i < chunks.length; i++)
+            chunkAccumulator.accumulateChunk(chunks[i]);
+        assertTrue(chunkAccumulator.allPresent(chunks[0].getId()));
+
+        Thread.sleep(50);
+        chunkAccumulator.accumulateChunk(other[0]);
+
+        assertFalse(chunkAccumulator.allPresent(chunks[0].getId()));
+        assertEquals(1, chunkAccumulator.numEvicted());
+        assertEquals(1, chunkAccumulator.numPending());
+        //expired message is gone, and its late chunks are dropped
+        assertNull(chunkAccumulator.reassemble(chunks[0].getId()));
+        chunkAccumulator.accumulateChunk(chunks[0]);
+        assertEquals(0, chunkAccumulator.numChunksSoFar(chunks[0].getId()));
+    }
+
 }